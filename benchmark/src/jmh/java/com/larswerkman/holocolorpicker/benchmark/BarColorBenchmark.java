@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker.benchmark;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The pointer position to color math of the {@code calculateColor} methods
+ * of the SV, saturation, value and opacity bars.
+ *
+ * <ul>
+ * <li>{@code float}: the bars' math with the framework's float
+ * {@code Color.HSVToColor}.</li>
+ * <li>{@code fixed}: the same math in fixed point, without divisions.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+public class BarColorBenchmark {
+
+	private static final int INPUTS = 1024;
+
+	/**
+	 * Length of the bar in pixels, 240dp at xxhdpi.
+	 */
+	private static final int BAR_LENGTH = 720;
+
+	@Param({ "sv", "saturation", "value", "opacity" })
+	public String bar;
+
+	@Param({ "float", "fixed" })
+	public String precision;
+
+	private int mBar;
+	private boolean mFixed;
+
+	private final int[] mCoords = new int[INPUTS];
+	private final float[] mHues = new float[INPUTS];
+	private final int[] mFixedHues = new int[INPUTS];
+	private int mIndex;
+
+	/**
+	 * Saturation of the input color of the value and opacity bars.
+	 */
+	private final float mSaturation = 0.75f;
+	private final int mFixedSaturation = 0xC000;
+
+	private final float mPosToUnitFactor = 1f / BAR_LENGTH;
+	private final float mPosToSVFactor = 1f / (BAR_LENGTH / 2);
+
+	/**
+	 * {@code 2^32 / length}, multiplying a coordinate by it and shifting by
+	 * 16 gives the position in 16.16 fixed point.
+	 */
+	private final long mPosToUnitFixed = (1L << 32) / BAR_LENGTH;
+	private final long mPosToSVFixed = (1L << 32) / (BAR_LENGTH / 2);
+
+	@Setup
+	public void setUp() {
+		mBar = bar.equals("sv") ? 0 : bar.equals("saturation") ? 1 : bar
+				.equals("value") ? 2 : 3;
+		mFixed = precision.equals("fixed");
+
+		Random random = new Random(42);
+		for (int i = 0; i < INPUTS; i++) {
+			mCoords[i] = random.nextInt(BAR_LENGTH + 1);
+			mHues[i] = random.nextFloat() * 360;
+			mFixedHues[i] = Math.round(mHues[i] * 64) % (360 * 64);
+		}
+	}
+
+	@Benchmark
+	public int calculateColor() {
+		int i = mIndex++ & (INPUTS - 1);
+		if (mFixed) {
+			return calculateColorFixed(mCoords[i], mFixedHues[i]);
+		}
+		return calculateColorFloat(mCoords[i], mHues[i]);
+	}
+
+	private int calculateColorFloat(int coord, float hue) {
+		switch (mBar) {
+		case 0:
+			if (coord > (BAR_LENGTH / 2) && (coord < BAR_LENGTH)) {
+				return ReferenceColor.hsvToColor(0xFF, hue, 1f, 1
+						- (mPosToSVFactor * (coord - (BAR_LENGTH / 2))));
+			} else if (coord > 0 && coord < BAR_LENGTH) {
+				return ReferenceColor.hsvToColor(0xFF, hue,
+						(mPosToSVFactor * coord), 1f);
+			} else if (coord <= 0) {
+				return 0xFFFFFFFF;
+			}
+			return 0xFF000000;
+		case 1:
+			return ReferenceColor.hsvToColor(0xFF, hue,
+					mPosToUnitFactor * coord, 1f);
+		case 2:
+			return ReferenceColor.hsvToColor(0xFF, hue, mSaturation,
+					1 - mPosToUnitFactor * coord);
+		default:
+			int alpha = Math.round(0xFF * mPosToUnitFactor * coord);
+			if (alpha > 250) {
+				alpha = 0xFF;
+			} else if (alpha < 5) {
+				return 0;
+			}
+			return ReferenceColor.hsvToColor(alpha, hue, mSaturation, 1f);
+		}
+	}
+
+	private int calculateColorFixed(int coord, int hue) {
+		switch (mBar) {
+		case 0:
+			if (coord > (BAR_LENGTH / 2) && (coord < BAR_LENGTH)) {
+				return ReferenceColor.hsvToColorFixed(0xFF, hue, 0x10000,
+						0x10000 - toFixed(coord - (BAR_LENGTH / 2), mPosToSVFixed));
+			} else if (coord > 0 && coord < BAR_LENGTH) {
+				return ReferenceColor.hsvToColorFixed(0xFF, hue,
+						toFixed(coord, mPosToSVFixed), 0x10000);
+			} else if (coord <= 0) {
+				return 0xFFFFFFFF;
+			}
+			return 0xFF000000;
+		case 1:
+			return ReferenceColor.hsvToColorFixed(0xFF, hue,
+					toFixed(coord, mPosToUnitFixed), 0x10000);
+		case 2:
+			return ReferenceColor.hsvToColorFixed(0xFF, hue, mFixedSaturation,
+					0x10000 - toFixed(coord, mPosToUnitFixed));
+		default:
+			int alpha = (toFixed(coord, mPosToUnitFixed) * 0xFF + 0x8000) >> 16;
+			if (alpha > 250) {
+				alpha = 0xFF;
+			} else if (alpha < 5) {
+				return 0;
+			}
+			return ReferenceColor.hsvToColorFixed(alpha, hue, mFixedSaturation,
+					0x10000);
+		}
+	}
+
+	private static int toFixed(int coord, long factor) {
+		return (int) ((coord * factor) >> 16);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.larswerkman.holocolorpicker.ColorArrays;
+
+/**
+ * The bulk conversions of {@link ColorArrays} on a LED frame sized and an
+ * image sized array.
+ *
+ * <ul>
+ * <li>{@code sequential}: on the benchmark thread.</li>
+ * <li>{@code parallel}: split across a {@code ForkJoinPool} with one thread
+ * per processor.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+public class BulkColorBenchmark {
+
+	@Param({ "4096", "1048576" })
+	public int size;
+
+	@Param({ "sequential", "parallel" })
+	public String variant;
+
+	private int[] mColors;
+	private float[] mHSV;
+	private ForkJoinPool mPool;
+
+	@Setup
+	public void setUp() {
+		if (variant.equals("parallel")) {
+			mPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+
+		Random random = new Random(42);
+		mColors = new int[size];
+		for (int i = 0; i < size; i++) {
+			mColors[i] = random.nextInt();
+		}
+		mHSV = new float[size * 3];
+		ColorArrays.colorsToHSV(mColors, mHSV, null);
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (mPool != null) {
+			mPool.shutdown();
+		}
+	}
+
+	@Benchmark
+	public float[] colorsToHSV() {
+		ColorArrays.colorsToHSV(mColors, mHSV, mPool);
+		return mHSV;
+	}
+
+	@Benchmark
+	public int[] HSVToColors() {
+		ColorArrays.HSVToColors(mHSV, mColors, mPool);
+		return mColors;
+	}
+
+	/**
+	 * Works in place; a hue shift keeps the saturation and value of the
+	 * colors, so every invocation does the same work.
+	 */
+	@Benchmark
+	public int[] shiftHSV() {
+		ColorArrays.shiftHSV(mColors, 30f, 0f, 0f, mPool);
+		return mColors;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker.benchmark;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.larswerkman.holocolorpicker.ColorMath;
+
+/**
+ * Converting a color to the angle of its hue on the wheel.
+ *
+ * <ul>
+ * <li>{@code direct}: {@code Color.colorToHSV} followed by
+ * {@code Math.toRadians}, as the picker did before {@link ColorMath}.</li>
+ * <li>{@code lut}: {@link ColorMath#colorToAngle(int)}, backed by reciprocal
+ * tables.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+public class ColorToAngleBenchmark {
+
+	private static final int INPUTS = 1024;
+
+	@Param({ "direct", "lut" })
+	public String variant;
+
+	private boolean mDirect;
+	private final int[] mColors = new int[INPUTS];
+	private final float[] mHSV = new float[3];
+	private int mIndex;
+
+	@Setup
+	public void setUp() {
+		mDirect = variant.equals("direct");
+
+		Random random = new Random(42);
+		for (int i = 0; i < INPUTS; i++) {
+			mColors[i] = random.nextInt() | 0xFF000000;
+		}
+	}
+
+	@Benchmark
+	public float colorToAngle() {
+		int color = mColors[mIndex++ & (INPUTS - 1)];
+		if (mDirect) {
+			ReferenceColor.colorToHSV(color, mHSV);
+			return (float) Math.toRadians(-mHSV[0]);
+		}
+		return ColorMath.colorToAngle(color);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker.benchmark;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The angle to pointer position math of
+ * {@code ColorPicker.calculatePointerPosition}.
+ *
+ * <ul>
+ * <li>{@code direct}: {@code Math.cos} and {@code Math.sin} into a new array,
+ * what the picker does.</li>
+ * <li>{@code lut}: a 4096 entry sine table into a reused array.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+public class PointerPositionBenchmark {
+
+	private static final int INPUTS = 1024;
+	private static final int LUT_SIZE = 4096;
+
+	/**
+	 * Radius of the wheel in pixels, 124dp at xxhdpi.
+	 */
+	private static final float RADIUS = 372;
+
+	@Param({ "direct", "lut" })
+	public String variant;
+
+	private boolean mDirect;
+	private final float[] mAngles = new float[INPUTS];
+	private final float[] mSin = new float[LUT_SIZE];
+	private final float[] mPosition = new float[2];
+	private int mIndex;
+
+	@Setup
+	public void setUp() {
+		mDirect = variant.equals("direct");
+
+		Random random = new Random(42);
+		for (int i = 0; i < INPUTS; i++) {
+			mAngles[i] = (float) ((random.nextFloat() * 2 - 1) * Math.PI);
+		}
+		for (int i = 0; i < LUT_SIZE; i++) {
+			mSin[i] = (float) Math.sin(2 * Math.PI * i / LUT_SIZE);
+		}
+	}
+
+	@Benchmark
+	public float[] calculatePointerPosition() {
+		float angle = mAngles[mIndex++ & (INPUTS - 1)];
+		if (mDirect) {
+			float x = (float) (RADIUS * Math.cos(angle));
+			float y = (float) (RADIUS * Math.sin(angle));
+			return new float[] { x, y };
+		}
+
+		int step = Math.round((float) (angle * (LUT_SIZE / (2 * Math.PI))));
+		mPosition[0] = RADIUS * mSin[(step + LUT_SIZE / 4) & (LUT_SIZE - 1)];
+		mPosition[1] = RADIUS * mSin[step & (LUT_SIZE - 1)];
+		return mPosition;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker.benchmark;
+
+/**
+ * Plain Java versions of the {@code android.graphics.Color} conversions the
+ * picker and the bars use, so their math can be measured on a JVM.
+ *
+ * <p>
+ * The float versions follow the framework (Skia) implementation. The fixed
+ * point versions work on hue in 1/64 degrees and saturation and value in
+ * 16.16 fixed point.
+ * </p>
+ */
+final class ReferenceColor {
+
+	private ReferenceColor() {
+	}
+
+	/**
+	 * Same as {@code Color.colorToHSV(int, float[])}.
+	 */
+	static void colorToHSV(int color, float[] hsv) {
+		int r = (color >> 16) & 0xFF;
+		int g = (color >> 8) & 0xFF;
+		int b = color & 0xFF;
+		int max = Math.max(r, Math.max(g, b));
+		int min = Math.min(r, Math.min(g, b));
+		int delta = max - min;
+
+		hsv[2] = max / 255f;
+		if (delta == 0) {
+			hsv[0] = 0;
+			hsv[1] = 0;
+			return;
+		}
+		hsv[1] = (float) delta / max;
+
+		float hue;
+		if (max == r) {
+			hue = (float) (g - b) / delta;
+		} else if (max == g) {
+			hue = 2 + (float) (b - r) / delta;
+		} else {
+			hue = 4 + (float) (r - g) / delta;
+		}
+		hue *= 60;
+		if (hue < 0) {
+			hue += 360;
+		}
+		hsv[0] = hue;
+	}
+
+	/**
+	 * Same as {@code Color.HSVToColor(int, float[])}.
+	 */
+	static int hsvToColor(int alpha, float hue, float saturation, float value) {
+		int v = Math.round(value * 255);
+		if (saturation <= 0) {
+			return (alpha << 24) | (v << 16) | (v << 8) | v;
+		}
+
+		float hx = (hue < 0 || hue >= 360) ? 0 : hue / 60;
+		int w = (int) hx;
+		float f = hx - w;
+
+		int p = Math.round((1 - saturation) * v);
+		int q = Math.round((1 - saturation * f) * v);
+		int t = Math.round((1 - saturation * (1 - f)) * v);
+		return pack(alpha, w, v, p, q, t);
+	}
+
+	/**
+	 * Fixed point version of {@link #hsvToColor(int, float, float, float)}.
+	 *
+	 * @param alpha The alpha component (0..255).
+	 * @param hue The hue in 1/64 degrees (0..360 * 64).
+	 * @param saturation The saturation in 16.16 fixed point (0..65536).
+	 * @param value The value in 16.16 fixed point (0..65536).
+	 */
+	static int hsvToColorFixed(int alpha, int hue, int saturation, int value) {
+		int v = (value * 255 + 0x8000) >> 16;
+		if (saturation <= 0) {
+			return (alpha << 24) | (v << 16) | (v << 8) | v;
+		}
+
+		if (hue < 0 || hue >= 360 * 64) {
+			hue = 0;
+		}
+		int w = hue / (60 * 64);
+		// Fraction of the sextant in 16.16 fixed point.
+		int f = ((hue - w * 60 * 64) << 16) / (60 * 64);
+
+		int p = mul(v, 0x10000 - saturation);
+		int q = mul(v, 0x10000 - ((saturation * (long) f) >> 16));
+		int t = mul(v, 0x10000 - ((saturation * (long) (0x10000 - f)) >> 16));
+		return pack(alpha, w, v, p, q, t);
+	}
+
+	private static int mul(int channel, long factor) {
+		return (int) ((channel * factor + 0x8000) >> 16);
+	}
+
+	private static int pack(int alpha, int sextant, int v, int p, int q, int t) {
+		int r, g, b;
+		switch (sextant) {
+		case 0:
+			r = v; g = t; b = p;
+			break;
+		case 1:
+			r = q; g = v; b = p;
+			break;
+		case 2:
+			r = p; g = v; b = t;
+			break;
+		case 3:
+			r = p; g = q; b = v;
+			break;
+		case 4:
+			r = t; g = p; b = v;
+			break;
+		default:
+			r = v; g = p; b = q;
+			break;
+		}
+		return (alpha << 24) | (r << 16) | (g << 8) | b;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker.benchmark;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.larswerkman.holocolorpicker.ColorMath;
+
+/**
+ * The angle to color interpolation of {@code ColorPicker.calculateColor}.
+ *
+ * <ul>
+ * <li>{@code direct}: {@link ColorMath#interpolate(int[], float)}, what the
+ * picker uses.</li>
+ * <li>{@code lut}: a 4096 entry table indexed by the angle.</li>
+ * <li>{@code fixed}: the same interpolation in 16.16 fixed point.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+public class WheelColorBenchmark {
+
+	/**
+	 * Colors of the picker's wheel.
+	 */
+	private static final int[] COLORS = new int[] { 0xFFFF0000, 0xFFFF00FF,
+			0xFF0000FF, 0xFF00FFFF, 0xFF00FF00, 0xFFFFFF00, 0xFFFF0000 };
+
+	private static final int INPUTS = 1024;
+	private static final int LUT_SIZE = 4096;
+
+	@Param({ "direct", "lut", "fixed" })
+	public String variant;
+
+	private int mVariant;
+	private final float[] mAngles = new float[INPUTS];
+	private final int[] mLut = new int[LUT_SIZE];
+	private int mIndex;
+
+	@Setup
+	public void setUp() {
+		mVariant = variant.equals("direct") ? 0 : variant.equals("lut") ? 1 : 2;
+
+		Random random = new Random(42);
+		for (int i = 0; i < INPUTS; i++) {
+			mAngles[i] = (float) ((random.nextFloat() * 2 - 1) * Math.PI);
+		}
+		for (int i = 0; i < LUT_SIZE; i++) {
+			mLut[i] = ColorMath.interpolate(COLORS, (float) i / (LUT_SIZE - 1));
+		}
+	}
+
+	@Benchmark
+	public int calculateColor() {
+		float angle = mAngles[mIndex++ & (INPUTS - 1)];
+		float unit = (float) (angle / (2 * Math.PI));
+		if (unit < 0) {
+			unit += 1;
+		}
+
+		switch (mVariant) {
+		case 0:
+			return ColorMath.interpolate(COLORS, unit);
+		case 1:
+			return mLut[(int) (unit * (LUT_SIZE - 1) + 0.5f)];
+		default:
+			return interpolateFixed((int) (unit * 0x10000));
+		}
+	}
+
+	/**
+	 * Interpolate on the wheel colors with the position in 16.16 fixed point.
+	 */
+	private static int interpolateFixed(int unit) {
+		if (unit <= 0) {
+			return COLORS[0];
+		}
+		if (unit >= 0x10000) {
+			return COLORS[COLORS.length - 1];
+		}
+
+		int p = unit * (COLORS.length - 1);
+		int i = p >> 16;
+		int f = p & 0xFFFF;
+
+		int c0 = COLORS[i];
+		int c1 = COLORS[i + 1];
+		int color = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			int s = (c0 >>> shift) & 0xFF;
+			int d = (c1 >>> shift) & 0xFF;
+			color |= (s + (((d - s) * f + 0x8000) >> 16)) << shift;
+		}
+		return color;
+	}
+}
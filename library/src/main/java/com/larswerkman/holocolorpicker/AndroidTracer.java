@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * {@link Tracer} emitting {@code android.os.Trace} sections, shown by
+ * systrace and Perfetto. Does nothing before Android 4.3.
+ */
+public class AndroidTracer implements Tracer {
+
+	private static final boolean SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+	@Override
+	public void beginSection(String section) {
+		if (SUPPORTED) {
+			Trace.beginSection(section);
+		}
+	}
+
+	@Override
+	public void endSection(String section) {
+		if (SUPPORTED) {
+			Trace.endSection();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+/**
+ * Geometry and drawing of a bar shared by the bar views and
+ * {@link ColorBarDrawable}, so both render the same bar for a size.
+ *
+ * <p>
+ * All positions are relative to the top left corner of the bar's view, which
+ * is {@code 2 * pointerHaloRadius} across the bar.
+ * </p>
+ */
+final class BarPainter {
+
+	private BarPainter() {
+	}
+
+	/**
+	 * Set the rectangle of the bar for a view of a size.
+	 *
+	 * @param barRect Rectangle receiving the bounds of the bar.
+	 * @param horizontal {@code true} for a horizontal bar.
+	 * @param width The width of the view.
+	 * @param height The height of the view.
+	 * @param pointerHaloRadius The radius of the pointer halo.
+	 * @param barThickness The thickness of the bar.
+	 *
+	 * @return The length of the bar.
+	 */
+	static int setBarRect(RectF barRect, boolean horizontal, int width,
+			int height, int pointerHaloRadius, int barThickness) {
+		int halo = pointerHaloRadius;
+		int half = barThickness / 2;
+		int length;
+		if (horizontal) {
+			length = width - (halo * 2);
+			barRect.set(halo, halo - half, length + halo, halo + half);
+		} else {
+			length = height - (halo * 2);
+			barRect.set(halo - half, halo, halo + half, length + halo);
+		}
+		return length;
+	}
+
+	/**
+	 * Create the gradient of a bar.
+	 *
+	 * @param horizontal {@code true} for a horizontal bar.
+	 * @param length The length of the bar.
+	 * @param pointerHaloRadius The radius of the pointer halo.
+	 * @param barThickness The thickness of the bar.
+	 * @param colors The colors of the gradient, from the start to the end of
+	 *            the bar.
+	 *
+	 * @return The {@code Shader} instance.
+	 */
+	static Shader createShader(boolean horizontal, int length,
+			int pointerHaloRadius, int barThickness, int[] colors) {
+		int x1, y1;
+		if (horizontal) {
+			x1 = length + pointerHaloRadius;
+			y1 = barThickness;
+		} else {
+			x1 = barThickness;
+			y1 = length + pointerHaloRadius;
+		}
+		return new LinearGradient(pointerHaloRadius, 0, x1, y1, colors, null,
+				Shader.TileMode.CLAMP);
+	}
+
+	/**
+	 * Draw the bar and its pointer.
+	 *
+	 * @param canvas The canvas.
+	 * @param barRect The bounds of the bar.
+	 * @param barPaint Paint with the gradient of the bar.
+	 * @param horizontal {@code true} for a horizontal bar.
+	 * @param position The position of the pointer's center along the bar.
+	 * @param pointerHaloRadius The radius of the pointer halo.
+	 * @param sprite The pointer.
+	 * @param haloPaint Paint of the pointer halo.
+	 * @param pointerPaint Paint of the pointer.
+	 */
+	static void draw(Canvas canvas, RectF barRect, Paint barPaint,
+			boolean horizontal, float position, int pointerHaloRadius,
+			PointerSprite sprite, Paint haloPaint, Paint pointerPaint) {
+		canvas.drawRect(barRect, barPaint);
+
+		float cX, cY;
+		if (horizontal) {
+			cX = position;
+			cY = pointerHaloRadius;
+		} else {
+			cX = pointerHaloRadius;
+			cY = position;
+		}
+		sprite.draw(canvas, cX, cY, haloPaint, pointerPaint);
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk color conversions on primitive arrays, for images and LED frames.
+ *
+ * <p>
+ * Every operation works in place or into a caller-supplied array and never
+ * allocates per color. The variants taking an {@code Executor} split inputs
+ * of at least {@link #PARALLEL_THRESHOLD} colors into chunks, run them on the
+ * executor and on the calling thread, and return when all chunks are done.
+ * On API 21 and higher a {@code ForkJoinPool} makes a good executor; a
+ * {@code null} executor runs everything on the calling thread.
+ * </p>
+ *
+ * <p>
+ * Like {@link ColorMath} this class doesn't depend on the Android
+ * framework.
+ * </p>
+ */
+public final class ColorArrays {
+
+	/**
+	 * Inputs with fewer colors are always converted on the calling thread.
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * Colors per chunk at least, so a chunk outweighs scheduling it.
+	 */
+	private static final int MIN_CHUNK = 1 << 14;
+
+	private ColorArrays() {
+	}
+
+	/**
+	 * Convert colors to their HSV components.
+	 *
+	 * @param colors The ARGB values of the colors.
+	 * @param hsv Array receiving three floats per color, the hue (0..360),
+	 *            the saturation (0..1) and the value (0..1).
+	 * @param executor {@code Executor} for large inputs, may be {@code null}.
+	 */
+	public static void colorsToHSV(final int[] colors, final float[] hsv,
+			Executor executor) {
+		checkLength(hsv.length, colors.length * 3L);
+		run(colors.length, executor, new Range() {
+			@Override
+			void run(int from, int to) {
+				colorsToHSVRange(colors, hsv, from, to);
+			}
+		});
+	}
+
+	/**
+	 * Convert HSV components to colors. The alpha of the entries of
+	 * {@code colors} is kept, so converting colors to HSV and back is
+	 * lossless.
+	 *
+	 * @param hsv Three floats per color, see
+	 *            {@link #colorsToHSV(int[], float[], Executor)}.
+	 * @param colors Array receiving the ARGB values of the colors.
+	 * @param executor {@code Executor} for large inputs, may be {@code null}.
+	 */
+	public static void HSVToColors(final float[] hsv, final int[] colors,
+			Executor executor) {
+		checkLength(hsv.length, colors.length * 3L);
+		run(colors.length, executor, new Range() {
+			@Override
+			void run(int from, int to) {
+				HSVToColorsRange(hsv, colors, from, to);
+			}
+		});
+	}
+
+	/**
+	 * Shift the hue, saturation and value of colors, in place. The alpha is
+	 * kept.
+	 *
+	 * @param colors The ARGB values of the colors.
+	 * @param hue Degrees added to the hue, the hue wraps around.
+	 * @param saturation Added to the saturation, the result is clamped to
+	 *            0..1.
+	 * @param value Added to the value, the result is clamped to 0..1.
+	 * @param executor {@code Executor} for large inputs, may be {@code null}.
+	 */
+	public static void shiftHSV(final int[] colors, final float hue,
+			final float saturation, final float value, Executor executor) {
+		run(colors.length, executor, new Range() {
+			@Override
+			void run(int from, int to) {
+				shiftHSVRange(colors, from, to, hue, saturation, value);
+			}
+		});
+	}
+
+	private static void colorsToHSVRange(int[] colors, float[] hsv,
+			int from, int to) {
+		for (int i = from; i < to; i++) {
+			ColorMath.colorToHSV(colors[i], hsv, i * 3);
+		}
+	}
+
+	private static void HSVToColorsRange(float[] hsv, int[] colors,
+			int from, int to) {
+		for (int i = from; i < to; i++) {
+			int h = i * 3;
+			colors[i] = ColorMath.HSVToColor(colors[i] >>> 24, hsv[h],
+					hsv[h + 1], hsv[h + 2]);
+		}
+	}
+
+	/**
+	 * Shift the hue, saturation and value of a range of colors on the
+	 * calling thread, see {@link #shiftHSV(int[], float, float, float, Executor)}.
+	 *
+	 * @param colors The ARGB values of the colors.
+	 * @param offset The index of the first color.
+	 * @param count The number of colors.
+	 * @param hue Degrees added to the hue.
+	 * @param saturation Added to the saturation.
+	 * @param value Added to the value.
+	 */
+	public static void shiftHSV(int[] colors, int offset, int count,
+			float hue, float saturation, float value) {
+		if (offset < 0 || count < 0 || offset + count > colors.length) {
+			throw new ArrayIndexOutOfBoundsException("offset " + offset
+					+ ", count " + count + ", length " + colors.length);
+		}
+		shiftHSVRange(colors, offset, offset + count, hue, saturation, value);
+	}
+
+	private static void shiftHSVRange(int[] colors, int from, int to,
+			float hue, float saturation, float value) {
+		float[] hsv = new float[3];
+		for (int i = from; i < to; i++) {
+			int color = colors[i];
+			ColorMath.colorToHSV(color, hsv, 0);
+			colors[i] = ColorMath.HSVToColor(color >>> 24, hsv[0] + hue,
+					hsv[1] + saturation, hsv[2] + value);
+		}
+	}
+
+	/**
+	 * A part of the input, converted by one thread.
+	 */
+	private static abstract class Range {
+		abstract void run(int from, int to);
+	}
+
+	/**
+	 * Run {@code range} over {@code count} colors, split into chunks on the
+	 * executor and the calling thread if the input is large enough.
+	 */
+	private static void run(int count, Executor executor, final Range range) {
+		int chunks = Math.min(Runtime.getRuntime().availableProcessors() * 2,
+				count / MIN_CHUNK);
+		if (executor == null || count < PARALLEL_THRESHOLD || chunks < 2) {
+			range.run(0, count);
+			return;
+		}
+
+		final CountDownLatch done = new CountDownLatch(chunks - 1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		int size = (count + chunks - 1) / chunks;
+		for (int chunk = 1; chunk < chunks; chunk++) {
+			final int from = chunk * size;
+			final int to = Math.min(from + size, count);
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						range.run(from, to);
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					} finally {
+						done.countDown();
+					}
+				}
+			});
+		}
+		// The calling thread takes the first chunk instead of idling.
+		range.run(0, Math.min(size, count));
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				done.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		Throwable t = failure.get();
+		if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		}
+	}
+
+	private static void checkLength(int hsvLength, long required) {
+		if (hsvLength < required) {
+			throw new IllegalArgumentException("hsv holds " + hsvLength
+					+ " floats, " + required + " needed");
+		}
+	}
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Draws one of the bars without a View.
+ *
+ * <p>
+ * The drawable renders the gradient and the pointer of a {@link SVBar},
+ * {@link SaturationBar}, {@link ValueBar} or {@link OpacityBar} for a color,
+ * with the dimensions of the bars, but without touch handling and saved
+ * state. The bar fills the width (or height) of its bounds and is centered
+ * across it.
+ * </p>
+ *
+ * <p>
+ * Like {@link ColorWheelDrawable} the paints and the geometry are shared by
+ * all drawables created with {@code getConstantState().newDrawable()}; each
+ * of them starts with a copy of the color, the pointer position and the
+ * alpha of the original and keeps the gradient for its own color. Only use
+ * it from the UI thread.
+ * </p>
+ */
+public class ColorBarDrawable extends Drawable {
+
+	/**
+	 * Types of bar, matching the bar views.
+	 */
+	public static final int TYPE_SV = 0;
+	public static final int TYPE_SATURATION = 1;
+	public static final int TYPE_VALUE = 2;
+	public static final int TYPE_OPACITY = 3;
+
+	private final BarState mState;
+
+	/**
+	 * The gradient for the current color, {@code null} if it needs to be
+	 * rebuilt.
+	 */
+	private Shader mShader;
+	private int mShaderLength;
+
+	/**
+	 * Create a bar with the default dimensions of the bar views.
+	 *
+	 * @param res {@code Resources} to read the dimensions from.
+	 * @param type One of {@link #TYPE_SV}, {@link #TYPE_SATURATION},
+	 *            {@link #TYPE_VALUE} and {@link #TYPE_OPACITY}.
+	 * @param horizontal {@code true} for a horizontal bar, {@code false} for a
+	 *            vertical one.
+	 */
+	public ColorBarDrawable(Resources res, int type, boolean horizontal) {
+		this(new BarState(new BarPaints(res, type, horizontal)));
+	}
+
+	private ColorBarDrawable(BarState state) {
+		mState = state;
+	}
+
+	/**
+	 * Show a color, the pointer moves to the component of the color the bar
+	 * controls.
+	 *
+	 * @param color The ARGB value of the color.
+	 */
+	public void setColor(int color) {
+		mState.setColor(color);
+		mShader = null;
+		invalidateSelf();
+	}
+
+	public int getColor() {
+		return mState.mColor;
+	}
+
+	@Override
+	public void draw(Canvas canvas) {
+		BarState state = mState;
+		BarPaints paints = state.mPaints;
+		Rect bounds = getBounds();
+		int length = paints.prepare(bounds);
+
+		if (mShader == null || mShaderLength != length) {
+			mShader = createShader(length);
+			mShaderLength = length;
+		}
+
+		int alpha = state.mAlpha;
+		ColorFilter filter = state.mColorFilter;
+		paints.mBarPaint.setShader(mShader);
+		paints.mBarPaint.setAlpha(alpha);
+		paints.mBarPaint.setColorFilter(filter);
+		paints.mPointerHaloPaint.setAlpha(0x50 * alpha / 0xFF);
+		paints.mPointerHaloPaint.setColorFilter(filter);
+		paints.mPointerPaint.setColorFilter(filter);
+		ColorWheelDrawable.applyColor(paints.mPointerPaint, state.mColor, alpha);
+
+		int count = canvas.save();
+		canvas.translate(paints.mOffsetX, paints.mOffsetY);
+		BarPainter.draw(canvas, paints.mBarRect, paints.mBarPaint,
+				paints.mHorizontal, paints.mPointerHaloRadius + state.mPosition
+						* length, paints.mPointerHaloRadius,
+				paints.mPointerSprite, paints.mPointerHaloPaint,
+				paints.mPointerPaint);
+		canvas.restoreToCount(count);
+
+		// Don't keep the gradient of this drawable alive through the paints.
+		paints.mBarPaint.setShader(null);
+	}
+
+	/**
+	 * Create the gradient of the bar for the current color.
+	 */
+	private Shader createShader(int length) {
+		BarPaints paints = mState.mPaints;
+		int color = mState.mColor;
+		float[] hsv = paints.mHSV;
+		ColorMath.colorToHSV(color, hsv);
+		int[] colors;
+		switch (paints.mType) {
+		case TYPE_SV:
+			colors = new int[] { Color.WHITE,
+					Color.HSVToColor(new float[] { hsv[0], 1f, 1f }),
+					Color.BLACK };
+			break;
+		case TYPE_SATURATION:
+			colors = new int[] { Color.WHITE,
+					Color.HSVToColor(new float[] { hsv[0], 1f, hsv[2] }) };
+			break;
+		case TYPE_VALUE:
+			colors = new int[] {
+					Color.HSVToColor(new float[] { hsv[0], hsv[1], 1f }),
+					Color.BLACK };
+			break;
+		default:
+			colors = new int[] { color & 0x00FFFFFF, color | 0xFF000000 };
+			break;
+		}
+		return BarPainter.createShader(paints.mHorizontal, length,
+				paints.mPointerHaloRadius, paints.mBarThickness, colors);
+	}
+
+	@Override
+	public void setAlpha(int alpha) {
+		mState.mAlpha = alpha;
+		invalidateSelf();
+	}
+
+	@Override
+	public int getAlpha() {
+		return mState.mAlpha;
+	}
+
+	@Override
+	public void setColorFilter(ColorFilter colorFilter) {
+		mState.mColorFilter = colorFilter;
+		invalidateSelf();
+	}
+
+	@Override
+	public int getOpacity() {
+		return PixelFormat.TRANSLUCENT;
+	}
+
+	@Override
+	public int getIntrinsicWidth() {
+		BarPaints paints = mState.mPaints;
+		return paints.mHorizontal ? paints.mIntrinsicLength
+				: 2 * paints.mPointerHaloRadius;
+	}
+
+	@Override
+	public int getIntrinsicHeight() {
+		BarPaints paints = mState.mPaints;
+		return paints.mHorizontal ? 2 * paints.mPointerHaloRadius
+				: paints.mIntrinsicLength;
+	}
+
+	/**
+	 * Every drawable already has a state of its own, {@code newDrawable()}
+	 * copies it, so there is nothing left to copy.
+	 */
+	@Override
+	public Drawable mutate() {
+		return this;
+	}
+
+	@Override
+	public ConstantState getConstantState() {
+		return mState;
+	}
+
+	/**
+	 * The color, the pointer position and the alpha of a drawable.
+	 * {@link #newDrawable()} gives the new drawable a copy, sharing only the
+	 * paints.
+	 */
+	static final class BarState extends ConstantState {
+
+		final BarPaints mPaints;
+
+		/**
+		 * The ARGB value of the color shown by the pointer.
+		 */
+		int mColor;
+
+		/**
+		 * The position of the pointer on the bar, between 0 and 1.
+		 */
+		float mPosition;
+
+		int mAlpha = 0xFF;
+
+		ColorFilter mColorFilter;
+
+		BarState(BarPaints paints) {
+			mPaints = paints;
+			setColor(0xff81ff00);
+		}
+
+		BarState(BarState state) {
+			mPaints = state.mPaints;
+			mColor = state.mColor;
+			mPosition = state.mPosition;
+			mAlpha = state.mAlpha;
+			mColorFilter = state.mColorFilter;
+		}
+
+		/**
+		 * Set the color and move the pointer to the component of the color
+		 * the bar controls.
+		 */
+		void setColor(int color) {
+			float[] hsv = mPaints.mHSV;
+			ColorMath.colorToHSV(color, hsv);
+			switch (mPaints.mType) {
+			case TYPE_SV:
+				// Like the SVBar only the saturation or the value is shown.
+				mPosition = hsv[1] < hsv[2] ? hsv[1] / 2 : 1 - hsv[2] / 2;
+				break;
+			case TYPE_SATURATION:
+				mPosition = hsv[1];
+				break;
+			case TYPE_VALUE:
+				mPosition = 1 - hsv[2];
+				break;
+			default:
+				mPosition = Color.alpha(color) / 255f;
+				break;
+			}
+			mColor = color;
+		}
+
+		@Override
+		public Drawable newDrawable() {
+			return new ColorBarDrawable(new BarState(this));
+		}
+
+		@Override
+		public int getChangingConfigurations() {
+			return 0;
+		}
+	}
+
+	/**
+	 * The paints and the geometry shared by all drawables created from one
+	 * another.
+	 */
+	static final class BarPaints {
+
+		final int mType;
+		final boolean mHorizontal;
+
+		final Paint mBarPaint;
+		final Paint mPointerHaloPaint;
+		final Paint mPointerPaint;
+		final PointerSprite mPointerSprite;
+
+		final int mBarThickness;
+		final int mPointerHaloRadius;
+		final int mIntrinsicLength;
+
+		/**
+		 * Scratch array for color conversions.
+		 */
+		final float[] mHSV = new float[3];
+
+		/**
+		 * The bounds the geometry was computed for.
+		 */
+		private final Rect mBounds = new Rect();
+		private int mLength = -1;
+		float mOffsetX;
+		float mOffsetY;
+		final RectF mBarRect = new RectF();
+
+		BarPaints(Resources res, int type, boolean horizontal) {
+			if (type < TYPE_SV || type > TYPE_OPACITY) {
+				throw new IllegalArgumentException("Unknown type " + type);
+			}
+			mType = type;
+			mHorizontal = horizontal;
+
+			mBarThickness = res.getDimensionPixelSize(R.dimen.bar_thickness);
+			mPointerHaloRadius = res
+					.getDimensionPixelSize(R.dimen.bar_pointer_halo_radius);
+			int pointerRadius = res
+					.getDimensionPixelSize(R.dimen.bar_pointer_radius);
+			mIntrinsicLength = res.getDimensionPixelSize(R.dimen.bar_length)
+					+ 2 * mPointerHaloRadius;
+
+			mBarPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+			mPointerHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mPointerHaloPaint.setColor(Color.BLACK);
+
+			mPointerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+			mPointerSprite = PointerSprite.obtain(mPointerHaloRadius,
+					pointerRadius);
+		}
+
+		/**
+		 * Compute the geometry for the bounds, like the bars do in
+		 * {@code onSizeChanged}. The bar is centered across the bounds.
+		 *
+		 * @return The length of the bar.
+		 */
+		int prepare(Rect bounds) {
+			if (mLength >= 0 && bounds.left == mBounds.left
+					&& bounds.top == mBounds.top
+					&& bounds.right == mBounds.right
+					&& bounds.bottom == mBounds.bottom) {
+				return mLength;
+			}
+			mBounds.set(bounds.left, bounds.top, bounds.right, bounds.bottom);
+
+			int halo = mPointerHaloRadius;
+			int width = Math.max(bounds.width(), 2 * halo);
+			int height = Math.max(bounds.height(), 2 * halo);
+			mLength = BarPainter.setBarRect(mBarRect, mHorizontal, width,
+					height, halo, mBarThickness);
+			if (mHorizontal) {
+				mOffsetX = bounds.left;
+				mOffsetY = bounds.top + (bounds.height() - 2 * halo) / 2f;
+			} else {
+				mOffsetX = bounds.left + (bounds.width() - 2 * halo) / 2f;
+				mOffsetY = bounds.top;
+			}
+			return mLength;
+		}
+	}
+}
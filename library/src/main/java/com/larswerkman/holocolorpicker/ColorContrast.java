@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * WCAG 2 contrast of colors against a background.
+ *
+ * <p>
+ * Relative luminances come from a lookup table of the linear intensity of
+ * every 8-bit channel value (see {@link ColorMath#luminance(int)}), so a
+ * ratio costs a few multiplications and one division. The luminance of the
+ * background is computed once. Cheap enough to call from every
+ * {@code onColorChanged}:
+ * </p>
+ *
+ * <pre>
+ * ColorContrast contrast = new ColorContrast(backgroundColor);
+ * float ratio = contrast.getContrastRatio(picker.getColor());
+ * boolean readable = contrast.getLevel(picker.getColor()) &gt;= ColorContrast.LEVEL_AA;
+ * </pre>
+ */
+public class ColorContrast {
+
+	/**
+	 * Levels of conformance, ordered so a higher level includes the lower
+	 * ones.
+	 */
+	public static final int LEVEL_FAIL = 0;
+
+	/**
+	 * At least 3:1, AA for large text and user interface components.
+	 */
+	public static final int LEVEL_AA_LARGE = 1;
+
+	/**
+	 * At least 4.5:1, AA for normal text and AAA for large text.
+	 */
+	public static final int LEVEL_AA = 2;
+
+	/**
+	 * At least 7:1, AAA for normal text.
+	 */
+	public static final int LEVEL_AAA = 3;
+
+	private final int mBackground;
+
+	/**
+	 * The relative luminance of the background plus 0.05.
+	 */
+	private final float mBackgroundTerm;
+
+	/**
+	 * @param background The ARGB value of the background, alpha is ignored.
+	 */
+	public ColorContrast(int background) {
+		mBackground = background;
+		mBackgroundTerm = ColorMath.luminance(background) + 0.05f;
+	}
+
+	public int getBackground() {
+		return mBackground;
+	}
+
+	/**
+	 * Get the contrast ratio of a color against the background.
+	 *
+	 * @param color The ARGB value of the color, alpha is ignored.
+	 *
+	 * @return The ratio, between 1 and 21.
+	 */
+	public float getContrastRatio(int color) {
+		return ratio(ColorMath.luminance(color) + 0.05f, mBackgroundTerm);
+	}
+
+	/**
+	 * Get the highest level a color passes against the background.
+	 *
+	 * @param color The ARGB value of the color, alpha is ignored.
+	 *
+	 * @return One of {@link #LEVEL_FAIL}, {@link #LEVEL_AA_LARGE},
+	 *         {@link #LEVEL_AA} and {@link #LEVEL_AAA}.
+	 */
+	public int getLevel(int color) {
+		return getLevel(getContrastRatio(color));
+	}
+
+	/**
+	 * Score a whole palette against the background in one call. Doesn't
+	 * allocate.
+	 *
+	 * @param colors The ARGB values of the colors.
+	 * @param ratios Array receiving the contrast ratio of every color, at
+	 *            least as long as {@code colors}.
+	 *
+	 * @return The number of colors passing {@link #LEVEL_AA}.
+	 */
+	public int getContrastRatios(int[] colors, float[] ratios) {
+		if (ratios.length < colors.length) {
+			throw new IllegalArgumentException("ratios.length < colors.length");
+		}
+		float background = mBackgroundTerm;
+		int passing = 0;
+		for (int i = 0; i < colors.length; i++) {
+			float ratio = ratio(ColorMath.luminance(colors[i]) + 0.05f,
+					background);
+			ratios[i] = ratio;
+			if (ratio >= 4.5f) {
+				passing++;
+			}
+		}
+		return passing;
+	}
+
+	/**
+	 * Get the contrast ratio of two colors.
+	 *
+	 * @param color1 The ARGB value of the first color, alpha is ignored.
+	 * @param color2 The ARGB value of the second color, alpha is ignored.
+	 *
+	 * @return The ratio, between 1 and 21.
+	 */
+	public static float contrastRatio(int color1, int color2) {
+		return ratio(ColorMath.luminance(color1) + 0.05f,
+				ColorMath.luminance(color2) + 0.05f);
+	}
+
+	/**
+	 * Get the highest level a contrast ratio passes.
+	 *
+	 * @param ratio The contrast ratio.
+	 *
+	 * @return One of {@link #LEVEL_FAIL}, {@link #LEVEL_AA_LARGE},
+	 *         {@link #LEVEL_AA} and {@link #LEVEL_AAA}.
+	 */
+	public static int getLevel(float ratio) {
+		if (ratio >= 7f) {
+			return LEVEL_AAA;
+		} else if (ratio >= 4.5f) {
+			return LEVEL_AA;
+		} else if (ratio >= 3f) {
+			return LEVEL_AA_LARGE;
+		}
+		return LEVEL_FAIL;
+	}
+
+	private static float ratio(float term1, float term2) {
+		return term1 > term2 ? term1 / term2 : term2 / term1;
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.graphics.Bitmap;
+
+/**
+ * The full HSV disc of a {@link ColorPicker} in disc mode. Hue varies with
+ * the angle and saturation with the distance to the center.
+ *
+ * <p>
+ * The disc is rendered once per size into a bitmap. A polar lookup grid
+ * covering the disc maps every pixel to its angle step and saturation, so
+ * touch events are resolved without {@code atan2}, {@code sqrt} or HSV
+ * conversions. Points outside the grid are scaled onto its border, which has
+ * the same angle and the full saturation.
+ * </p>
+ */
+final class ColorDisc {
+
+	/**
+	 * Number of discrete angles of the lookup grid.
+	 */
+	static final int ANGLE_STEPS = 4096;
+
+	private static final int QUARTER_TURN = ANGLE_STEPS / 4;
+
+	/**
+	 * The fully saturated color of the wheel for every angle step.
+	 */
+	private final int[] mHueColors = new int[ANGLE_STEPS];
+
+	/**
+	 * The radius of the disc.
+	 */
+	private int mRadius = -1;
+
+	/**
+	 * Half the size of the lookup grid, the grid is centered on the disc.
+	 */
+	private int mGridRadius = -1;
+
+	/**
+	 * Side length of the lookup grid.
+	 */
+	private int mGridSize;
+
+	/**
+	 * Packed angle step (upper bits) and saturation (lower 8 bits) of every
+	 * pixel of the grid. Pixels outside the disc hold the values of the edge
+	 * in the same direction.
+	 */
+	private int[] mPolar;
+
+	/**
+	 * The rendered disc, with the center of the disc in its center.
+	 */
+	private Bitmap mBitmap;
+
+	/**
+	 * @param colors The colors of the wheel, see
+	 *            {@link ColorMath#interpolate(int[], float)}.
+	 */
+	ColorDisc(int[] colors) {
+		for (int i = 0; i < ANGLE_STEPS; i++) {
+			mHueColors[i] = ColorMath.interpolate(colors, (float) i
+					/ ANGLE_STEPS);
+		}
+	}
+
+	/**
+	 * Rebuild the grid and bitmap if the size changed.
+	 *
+	 * @param radius The radius of the disc.
+	 */
+	void setSize(int radius) {
+		if (radius <= 0 || radius == mRadius) {
+			return;
+		}
+		// One more pixel for the edge ring of the bitmap.
+		int gridRadius = radius + 1;
+		mRadius = radius;
+		mGridRadius = gridRadius;
+		mGridSize = 2 * gridRadius + 1;
+		mPolar = new int[mGridSize * mGridSize];
+
+		// Fill the first octant, 0 <= y <= x, and mirror it onto the others.
+		// Quarter and half turns are exact steps, so the mirrored angles are
+		// the same steps atan2 would give.
+		float radiusSquared = (float) radius * radius;
+		for (int y = 0; y <= gridRadius; y++) {
+			for (int x = y; x <= gridRadius; x++) {
+				float distanceSquared = (float) x * x + (float) y * y;
+				int step = (int) Math.round(Math.atan2(y, x) / (2 * Math.PI)
+						* ANGLE_STEPS);
+				int saturation = 255;
+				if (distanceSquared < radiusSquared) {
+					saturation = Math.round((float) Math.sqrt(distanceSquared)
+							/ radius * 255);
+				}
+
+				setPolar(x, y, step, saturation);
+				setPolar(y, x, QUARTER_TURN - step, saturation);
+				setPolar(-y, x, QUARTER_TURN + step, saturation);
+				setPolar(-x, y, 2 * QUARTER_TURN - step, saturation);
+				setPolar(-x, -y, 2 * QUARTER_TURN + step, saturation);
+				setPolar(-y, -x, 3 * QUARTER_TURN - step, saturation);
+				setPolar(y, -x, 3 * QUARTER_TURN + step, saturation);
+				setPolar(x, -y, ANGLE_STEPS - step, saturation);
+			}
+		}
+
+		// Render the disc from the grid, including a ring of edge colors so
+		// an anti-aliased circle drawn with it gets a clean border.
+		// The bitmap is the grid without its last row and column.
+		int size = 2 * radius + 2;
+		int[] pixels = new int[size * size];
+		for (int py = 0; py < size; py++) {
+			for (int px = 0; px < size; px++) {
+				pixels[py * size + px] = colorForPolar(mPolar[py * mGridSize
+						+ px]);
+			}
+		}
+		if (mBitmap != null) {
+			mBitmap.recycle();
+		}
+		mBitmap = Bitmap.createBitmap(pixels, size, size,
+				Bitmap.Config.ARGB_8888);
+	}
+
+	/**
+	 * Store the packed angle step and saturation of a point of the grid.
+	 *
+	 * @param x X-coordinate relative to the center of the grid.
+	 * @param y Y-coordinate relative to the center of the grid.
+	 * @param step The angle step, any range.
+	 * @param saturation The saturation, between 0 and 255.
+	 */
+	private void setPolar(int x, int y, int step, int saturation) {
+		int index = (y + mGridRadius) * mGridSize + x + mGridRadius;
+		mPolar[index] = ((step & (ANGLE_STEPS - 1)) << 8) | saturation;
+	}
+
+	/**
+	 * Get the rendered disc. Its center is at
+	 * {@code (getRadius() + 1, getRadius() + 1)}.
+	 *
+	 * @return The cached bitmap, {@code null} before the first
+	 *         {@link #setSize(int)}.
+	 */
+	Bitmap getBitmap() {
+		return mBitmap;
+	}
+
+	int getRadius() {
+		return mRadius;
+	}
+
+	/**
+	 * Look up the polar coordinates of a point.
+	 *
+	 * @param x X-coordinate relative to the center of the disc.
+	 * @param y Y-coordinate relative to the center of the disc.
+	 *
+	 * @return The packed angle step and saturation, see
+	 *         {@link #angleForPolar(int)}, {@link #saturationForPolar(int)}
+	 *         and {@link #colorForPolar(int)}.
+	 */
+	int polarAt(float x, float y) {
+		// Scale points outside the grid back onto its border along the same
+		// direction, clamping each coordinate alone would change the angle.
+		float extent = Math.max(Math.abs(x), Math.abs(y));
+		if (extent > mGridRadius) {
+			float scale = mGridRadius / extent;
+			x *= scale;
+			y *= scale;
+		}
+		int px = Math.round(x) + mGridRadius;
+		int py = Math.round(y) + mGridRadius;
+		return mPolar[py * mGridSize + px];
+	}
+
+	static float angleForPolar(int polar) {
+		return (float) ((polar >>> 8) * (2 * Math.PI / ANGLE_STEPS));
+	}
+
+	static float saturationForPolar(int polar) {
+		return (polar & 0xFF) / 255f;
+	}
+
+	int colorForPolar(int polar) {
+		return ColorMath.saturate(mHueColors[polar >>> 8], polar & 0xFF);
+	}
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Parses and formats colors as text without allocating.
+ *
+ * <p>
+ * Accepted input is {@code #RRGGBB}, {@code #AARRGGBB} (the {@code #} is
+ * optional), {@code rgb(r, g, b)}, {@code rgba(r, g, b, a)},
+ * {@code hsl(h, s%, l%)} and {@code hsla(h, s%, l%, a)}. Channels of
+ * {@code rgb()} are 0..255 or percentages, alpha is 0..1 or a percentage and
+ * the hue is in degrees. Input is read straight from any
+ * {@code CharSequence}, like the {@code Editable} of a text field, and
+ * formatted output is written to a reusable {@code char[]}.
+ * </p>
+ *
+ * <p>
+ * Instances keep their parse state and buffer, so use one per thread.
+ * </p>
+ *
+ * @see ColorTextBinder
+ */
+public final class ColorFormat {
+	/*
+	 * Output styles of format(int, int).
+	 */
+	public static final int STYLE_HEX = 0;
+	public static final int STYLE_RGB = 1;
+	public static final int STYLE_HSL = 2;
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * Buffer receiving the formatted text.
+	 */
+	private final char[] mBuffer = new char[32];
+
+	/**
+	 * Arguments of the last parsed function.
+	 */
+	private final float[] mArgs = new float[4];
+	private final boolean[] mPercent = new boolean[4];
+
+	/**
+	 * Read position of the parser.
+	 */
+	private int mPos;
+
+	/**
+	 * The ARGB value of the last successfully parsed color.
+	 */
+	private int mColor;
+
+	/**
+	 * Parse a color.
+	 *
+	 * @param text The text to parse.
+	 *
+	 * @return true if the text holds a valid color, see {@link #getColor()}.
+	 */
+	public boolean parse(CharSequence text) {
+		return parse(text, 0, text.length());
+	}
+
+	/**
+	 * Parse a color from a part of a text.
+	 *
+	 * @param text The text to parse.
+	 * @param start Index of the first character.
+	 * @param end Index after the last character.
+	 *
+	 * @return true if the text holds a valid color, see {@link #getColor()}.
+	 */
+	public boolean parse(CharSequence text, int start, int end) {
+		while (start < end && text.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (start == end) {
+			return false;
+		}
+
+		char c = text.charAt(start);
+		if (c == '#') {
+			return parseHex(text, start + 1, end);
+		}
+		if (matches(text, start, end, "rgba(")) {
+			return parseRGB(text, start + 5, end, 4);
+		}
+		if (matches(text, start, end, "rgb(")) {
+			return parseRGB(text, start + 4, end, 3);
+		}
+		if (matches(text, start, end, "hsla(")) {
+			return parseHSL(text, start + 5, end, 4);
+		}
+		if (matches(text, start, end, "hsl(")) {
+			return parseHSL(text, start + 4, end, 3);
+		}
+		return parseHex(text, start, end);
+	}
+
+	/**
+	 * Get the last successfully parsed color.
+	 *
+	 * @return The ARGB value of the color.
+	 */
+	public int getColor() {
+		return mColor;
+	}
+
+	/**
+	 * Format a color into the buffer.
+	 *
+	 * <p>
+	 * {@link #STYLE_HEX} writes {@code #RRGGBB}, or {@code #AARRGGBB} for
+	 * translucent colors. The other styles switch to their {@code rgba()} and
+	 * {@code hsla()} forms for translucent colors.
+	 * </p>
+	 *
+	 * @param color The ARGB value of the color.
+	 * @param style One of {@link #STYLE_HEX}, {@link #STYLE_RGB} and
+	 *            {@link #STYLE_HSL}.
+	 *
+	 * @return The number of characters written to {@link #getBuffer()}.
+	 */
+	public int format(int color, int style) {
+		int alpha = color >>> 24;
+		int r = (color >> 16) & 0xFF;
+		int g = (color >> 8) & 0xFF;
+		int b = color & 0xFF;
+		mPos = 0;
+
+		switch (style) {
+		case STYLE_RGB:
+			writeFunction("rgb", alpha);
+			writeInt(r);
+			writeSeparator();
+			writeInt(g);
+			writeSeparator();
+			writeInt(b);
+			break;
+		case STYLE_HSL:
+			int max = r > g ? (r > b ? r : b) : (g > b ? g : b);
+			int min = r < g ? (r < b ? r : b) : (g < b ? g : b);
+			int sum = max + min;
+			int delta = max - min;
+			int saturation = delta == 0 ? 0 : Math.round(delta * 100f
+					/ (255 - Math.abs(sum - 255)));
+
+			writeFunction("hsl", alpha);
+			writeInt(Math.round(ColorMath.colorToHue(color)) % 360);
+			writeSeparator();
+			writeInt(saturation);
+			mBuffer[mPos++] = '%';
+			writeSeparator();
+			writeInt(Math.round(sum * 100f / 510));
+			mBuffer[mPos++] = '%';
+			break;
+		default:
+			mBuffer[mPos++] = '#';
+			if (alpha != 0xFF) {
+				writeHex(alpha);
+			}
+			writeHex(r);
+			writeHex(g);
+			writeHex(b);
+			return mPos;
+		}
+
+		if (alpha != 0xFF) {
+			// Alpha as 0..1 with at most two decimals.
+			int hundredths = Math.round(alpha * 100f / 255);
+			writeSeparator();
+			if (hundredths == 100) {
+				mBuffer[mPos++] = '1';
+			} else {
+				mBuffer[mPos++] = '0';
+				if (hundredths != 0) {
+					mBuffer[mPos++] = '.';
+					mBuffer[mPos++] = (char) ('0' + hundredths / 10);
+					if (hundredths % 10 != 0) {
+						mBuffer[mPos++] = (char) ('0' + hundredths % 10);
+					}
+				}
+			}
+		}
+		mBuffer[mPos++] = ')';
+		return mPos;
+	}
+
+	/**
+	 * Get the buffer {@link #format(int, int)} writes to. It is reused by
+	 * every call.
+	 *
+	 * @return The {@code char[]} buffer.
+	 */
+	public char[] getBuffer() {
+		return mBuffer;
+	}
+
+	/**
+	 * Check whether the supplied text equals the last formatted text.
+	 *
+	 * @param text The text to compare.
+	 * @param length The length returned by {@link #format(int, int)}.
+	 *
+	 * @return true if both are equal.
+	 */
+	public boolean contentEquals(CharSequence text, int length) {
+		if (text.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) != mBuffer[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean parseHex(CharSequence text, int start, int end) {
+		int length = end - start;
+		if (length != 6 && length != 8) {
+			return false;
+		}
+
+		int color = 0;
+		for (int i = start; i < end; i++) {
+			int digit = Character.digit(text.charAt(i), 16);
+			if (digit < 0) {
+				return false;
+			}
+			color = (color << 4) | digit;
+		}
+		mColor = length == 6 ? 0xFF000000 | color : color;
+		return true;
+	}
+
+	private boolean parseRGB(CharSequence text, int start, int end, int count) {
+		if (!parseArguments(text, start, end, count)) {
+			return false;
+		}
+
+		int r = channel(0);
+		int g = channel(1);
+		int b = channel(2);
+		if (r < 0 || g < 0 || b < 0) {
+			return false;
+		}
+		mColor = (alpha(count) << 24) | (r << 16) | (g << 8) | b;
+		return true;
+	}
+
+	private boolean parseHSL(CharSequence text, int start, int end, int count) {
+		if (!parseArguments(text, start, end, count)) {
+			return false;
+		}
+
+		float hue = mArgs[0] % 360;
+		if (hue < 0) {
+			hue += 360;
+		}
+		float s = clamp(mArgs[1] / 100);
+		float l = clamp(mArgs[2] / 100);
+
+		float chroma = (1 - Math.abs(2 * l - 1)) * s;
+		float sector = hue / 60;
+		float x = chroma * (1 - Math.abs(sector % 2 - 1));
+		float m = l - chroma / 2;
+		float r, g, b;
+		if (sector < 1) {
+			r = chroma; g = x; b = 0;
+		} else if (sector < 2) {
+			r = x; g = chroma; b = 0;
+		} else if (sector < 3) {
+			r = 0; g = chroma; b = x;
+		} else if (sector < 4) {
+			r = 0; g = x; b = chroma;
+		} else if (sector < 5) {
+			r = x; g = 0; b = chroma;
+		} else {
+			r = chroma; g = 0; b = x;
+		}
+
+		mColor = (alpha(count) << 24) | (Math.round((r + m) * 255) << 16)
+				| (Math.round((g + m) * 255) << 8) | Math.round((b + m) * 255);
+		return true;
+	}
+
+	/**
+	 * Parse {@code count} comma or space separated numbers up to the closing
+	 * parenthesis at {@code end - 1} into {@link #mArgs}.
+	 */
+	private boolean parseArguments(CharSequence text, int start, int end,
+			int count) {
+		if (text.charAt(end - 1) != ')') {
+			return false;
+		}
+		end--;
+		mPos = start;
+
+		for (int i = 0; i < count; i++) {
+			skipSeparators(text, end, i > 0);
+			if (!parseNumber(text, end, i)) {
+				return false;
+			}
+		}
+		while (mPos < end && text.charAt(mPos) <= ' ') {
+			mPos++;
+		}
+		return mPos == end;
+	}
+
+	private void skipSeparators(CharSequence text, int end, boolean comma) {
+		while (mPos < end) {
+			char c = text.charAt(mPos);
+			if (c <= ' ' || (comma && c == ',')) {
+				if (c == ',') {
+					comma = false;
+				}
+				mPos++;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private boolean parseNumber(CharSequence text, int end, int index) {
+		float value = 0;
+		float scale = 0;
+		boolean digits = false;
+		boolean negative = false;
+
+		if (mPos < end && text.charAt(mPos) == '-') {
+			negative = true;
+			mPos++;
+		}
+		while (mPos < end) {
+			char c = text.charAt(mPos);
+			if (c >= '0' && c <= '9') {
+				digits = true;
+				if (scale == 0) {
+					value = value * 10 + (c - '0');
+				} else {
+					value += (c - '0') * scale;
+					scale /= 10;
+				}
+			} else if (c == '.' && scale == 0) {
+				scale = 0.1f;
+			} else {
+				break;
+			}
+			mPos++;
+		}
+
+		mPercent[index] = mPos < end && text.charAt(mPos) == '%';
+		if (mPercent[index]) {
+			mPos++;
+		}
+		mArgs[index] = negative ? -value : value;
+		return digits;
+	}
+
+	/**
+	 * Get an 8-bit channel from an argument of {@code rgb()}.
+	 *
+	 * @return The channel, or -1 if out of range.
+	 */
+	private int channel(int index) {
+		float value = mArgs[index];
+		if (mPercent[index]) {
+			value = value * 255 / 100;
+		}
+		int channel = Math.round(value);
+		return channel >= 0 && channel <= 255 ? channel : -1;
+	}
+
+	/**
+	 * Get the alpha from the fourth argument, opaque if there is none.
+	 */
+	private int alpha(int count) {
+		if (count < 4) {
+			return 0xFF;
+		}
+		float alpha = mPercent[3] ? mArgs[3] / 100 : mArgs[3];
+		return Math.round(clamp(alpha) * 255);
+	}
+
+	private static float clamp(float value) {
+		return value < 0 ? 0 : (value > 1 ? 1 : value);
+	}
+
+	private static boolean matches(CharSequence text, int start, int end,
+			String prefix) {
+		if (end - start < prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (Character.toLowerCase(text.charAt(start + i)) != prefix
+					.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void writeFunction(String name, int alpha) {
+		for (int i = 0; i < name.length(); i++) {
+			mBuffer[mPos++] = name.charAt(i);
+		}
+		if (alpha != 0xFF) {
+			mBuffer[mPos++] = 'a';
+		}
+		mBuffer[mPos++] = '(';
+	}
+
+	private void writeSeparator() {
+		mBuffer[mPos++] = ',';
+		mBuffer[mPos++] = ' ';
+	}
+
+	private void writeHex(int value) {
+		mBuffer[mPos++] = HEX_DIGITS[value >> 4];
+		mBuffer[mPos++] = HEX_DIGITS[value & 0xF];
+	}
+
+	private void writeInt(int value) {
+		if (value >= 100) {
+			mBuffer[mPos++] = (char) ('0' + value / 100);
+		}
+		if (value >= 10) {
+			mBuffer[mPos++] = (char) ('0' + (value / 10) % 10);
+		}
+		mBuffer[mPos++] = (char) ('0' + value % 10);
+	}
+}
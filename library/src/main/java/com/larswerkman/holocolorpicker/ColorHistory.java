@@ -0,0 +1,591 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selected and favorite colors, kept across restarts in an append-only log.
+ *
+ * <p>
+ * The log is a memory-mapped file of fixed-size records, each a timestamp, a
+ * color and a type: a selected color or a favorite being added or removed.
+ * Appending writes the record into the mapping and then bumps the record
+ * count in the header, so a crash never leaves a partial record behind.
+ * Reading the most recent colors walks the records backwards from the end,
+ * without parsing, so it takes the same time for a log of a thousand or of
+ * millions of entries.
+ * </p>
+ *
+ * <p>
+ * Once compaction can drop enough records, the log is compacted on the
+ * supplied {@code Executor}: favorites are folded into one record each,
+ * history beyond {@link #setMaxHistory(int)} is dropped, and the result
+ * replaces the file atomically. Appends continue during compaction. Without
+ * a history limit only favorite changes can be dropped, so a log of selected
+ * colors just grows. The favorites are also kept in memory; at startup only
+ * the records appended since the last compaction are scanned for them.
+ * </p>
+ *
+ * <p>
+ * Set the history as {@code OnColorSelectedListener} of a {@link ColorPicker}
+ * to record every selected color. All methods are thread-safe.
+ * </p>
+ */
+public class ColorHistory implements ColorPicker.OnColorSelectedListener {
+
+	private static final Logger LOGGER = Logger.getLogger(ColorHistory.class
+			.getName());
+
+	private static final int MAGIC = 0x4843484C;
+	private static final int VERSION = 1;
+
+	/*
+	 * Layout of the header: magic, version, number of records, number of
+	 * folded favorite records at the start, end of the compacted records.
+	 */
+	private static final int HEADER_SIZE = 32;
+	private static final int OFFSET_COUNT = 8;
+	private static final int OFFSET_FAVORITES = 12;
+	private static final int OFFSET_COMPACTED = 16;
+
+	/*
+	 * Layout of a record: timestamp (long), color (int), type (int).
+	 */
+	private static final int RECORD_SIZE = 16;
+
+	private static final int TYPE_SELECTED = 0;
+	private static final int TYPE_FAVORITE_ADD = 1;
+	private static final int TYPE_FAVORITE_REMOVE = 2;
+
+	/**
+	 * Records mapped when a log is created.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Records compaction has to drop, and records appended since the last
+	 * compaction, before the next one is scheduled.
+	 */
+	private static final int COMPACT_THRESHOLD = 1 << 16;
+
+	private final File mFile;
+	private final Executor mExecutor;
+
+	private RandomAccessFile mRandomAccessFile;
+	private FileChannel mChannel;
+	private MappedByteBuffer mBuffer;
+
+	/**
+	 * Number of records, capacity of the mapping in records.
+	 */
+	private int mCount;
+	private int mCapacity;
+
+	/**
+	 * End of the records written by the last compaction.
+	 */
+	private int mCompacted;
+
+	/**
+	 * Record count when the last compaction ended, successfully or not.
+	 */
+	private int mCompactCheckpoint;
+
+	/**
+	 * Number of selected color records and of favorite records in the log.
+	 */
+	private int mSelectedRecords;
+	private int mFavoriteRecords;
+
+	/**
+	 * The favorite colors, oldest first.
+	 */
+	private int[] mFavorites = new int[16];
+	private int mFavoriteCount;
+
+	private int mMaxHistory = Integer.MAX_VALUE;
+
+	/**
+	 * {@code true} while a compaction is scheduled or running.
+	 */
+	private boolean mCompacting;
+
+	private final Runnable mCompact = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				compactScheduled();
+			} catch (IOException e) {
+				// Keep the uncompacted log, the next threshold retries.
+			}
+		}
+	};
+
+	/**
+	 * Open a log, creating it if the file doesn't exist.
+	 *
+	 * @param file The file of the log.
+	 * @param executor {@code Executor} compaction runs on, {@code null} to
+	 *            only compact on {@link #compact()}.
+	 *
+	 * @throws IOException If the file can't be opened or is not a log.
+	 */
+	public ColorHistory(File file, Executor executor) throws IOException {
+		mFile = file;
+		mExecutor = executor;
+		map();
+		loadFavorites();
+	}
+
+	/**
+	 * Limit the number of selected colors kept by compaction.
+	 *
+	 * @param maxHistory The number of most recent colors to keep.
+	 */
+	public synchronized void setMaxHistory(int maxHistory) {
+		if (maxHistory < 0) {
+			throw new IllegalArgumentException("maxHistory < 0");
+		}
+		mMaxHistory = maxHistory;
+	}
+
+	/**
+	 * Append a selected color.
+	 *
+	 * @param color The ARGB value of the color.
+	 *
+	 * @throws IOException If the log can't grow.
+	 */
+	public void add(int color) throws IOException {
+		append(color, TYPE_SELECTED);
+	}
+
+	/**
+	 * Records the color selected on the picker. If appending to the log
+	 * fails the color is not recorded and the error is logged.
+	 */
+	@Override
+	public void onColorSelected(int color) {
+		try {
+			add(color);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Appending to " + mFile + " failed", e);
+		}
+	}
+
+	/**
+	 * Add or remove a favorite color.
+	 *
+	 * @param color The ARGB value of the color.
+	 * @param favorite {@code true} to add, {@code false} to remove.
+	 *
+	 * @throws IOException If the log can't grow.
+	 */
+	public synchronized void setFavorite(int color, boolean favorite)
+			throws IOException {
+		if (isFavorite(color) == favorite) {
+			return;
+		}
+		append(color, favorite ? TYPE_FAVORITE_ADD : TYPE_FAVORITE_REMOVE);
+	}
+
+	public synchronized boolean isFavorite(int color) {
+		return indexOfFavorite(color) >= 0;
+	}
+
+	/**
+	 * Get the favorite colors.
+	 *
+	 * @return The ARGB values of the favorites, oldest first.
+	 */
+	public synchronized int[] getFavorites() {
+		return Arrays.copyOf(mFavorites, mFavoriteCount);
+	}
+
+	/**
+	 * Get the most recently selected colors. Only reads as many records as
+	 * needed, from the end of the log.
+	 *
+	 * @param colors Array receiving the ARGB values, most recent first.
+	 * @param times Array receiving the times (in ms since the epoch) the
+	 *            colors were selected, or {@code null}.
+	 *
+	 * @return The number of colors stored, at most {@code colors.length}.
+	 */
+	public synchronized int getRecent(int[] colors, long[] times) {
+		ByteBuffer buffer = mBuffer;
+		int found = 0;
+		for (int i = mCount - 1; i >= 0 && found < colors.length; i--) {
+			int offset = HEADER_SIZE + i * RECORD_SIZE;
+			if (buffer.getInt(offset + 12) != TYPE_SELECTED) {
+				continue;
+			}
+			colors[found] = buffer.getInt(offset + 8);
+			if (times != null) {
+				times[found] = buffer.getLong(offset);
+			}
+			found++;
+		}
+		return found;
+	}
+
+	/**
+	 * Get the number of records in the log, including favorite changes and
+	 * records compaction will drop.
+	 */
+	public synchronized int getRecordCount() {
+		return mCount;
+	}
+
+	/**
+	 * Compact the log on the calling thread. Appends by other threads only
+	 * wait while the last records appended during compaction are copied and
+	 * the files are swapped.
+	 *
+	 * @throws IOException If writing the compacted log fails, the log is
+	 *             left as it was.
+	 */
+	public void compact() throws IOException {
+		synchronized (this) {
+			if (mCompacting) {
+				return;
+			}
+			mCompacting = true;
+		}
+		compactScheduled();
+	}
+
+	/**
+	 * Compact the log, with {@code mCompacting} already set. Writing and
+	 * syncing the new file happen outside the lock.
+	 */
+	private void compactScheduled() throws IOException {
+		ByteBuffer source;
+		int end;
+		int[] favorites;
+		int maxHistory;
+		int selectedRecords;
+		int favoriteRecords;
+		synchronized (this) {
+			if (mChannel == null) {
+				mCompacting = false;
+				return;
+			}
+			source = mBuffer.duplicate();
+			end = mCount;
+			favorites = getFavorites();
+			maxHistory = mMaxHistory;
+			selectedRecords = mSelectedRecords;
+			favoriteRecords = mFavoriteRecords;
+		}
+
+		File temp = new File(mFile.getPath() + ".tmp");
+		RandomAccessFile out = null;
+		RandomAccessFile previous = null;
+		try {
+			out = new RandomAccessFile(temp, "rw");
+			out.setLength(0);
+			FileChannel channel = out.getChannel();
+			ByteBuffer chunk = ByteBuffer.allocate(RECORD_SIZE * 4096);
+			chunk.position(HEADER_SIZE);
+
+			// The favorites, folded into one record each.
+			for (int i = 0; i < favorites.length; i++) {
+				put(channel, chunk, 0, favorites[i], TYPE_FAVORITE_ADD);
+			}
+
+			// The most recent selected colors, in order.
+			int selected = 0;
+			int first = end;
+			while (first > 0 && selected < maxHistory) {
+				first--;
+				if (type(source, first) == TYPE_SELECTED) {
+					selected++;
+				}
+			}
+			for (int i = first; i < end; i++) {
+				int offset = HEADER_SIZE + i * RECORD_SIZE;
+				if (source.getInt(offset + 12) == TYPE_SELECTED) {
+					put(channel, chunk, source.getLong(offset),
+							source.getInt(offset + 8), TYPE_SELECTED);
+				}
+			}
+			int compacted = favorites.length + selected;
+
+			// Copy what was appended meanwhile. Committed records never
+			// change, so they can be read without the lock.
+			int copied;
+			synchronized (this) {
+				source = mBuffer.duplicate();
+				copied = mCount;
+			}
+			for (int i = end; i < copied; i++) {
+				int offset = HEADER_SIZE + i * RECORD_SIZE;
+				put(channel, chunk, source.getLong(offset),
+						source.getInt(offset + 8), source.getInt(offset + 12));
+			}
+			flush(channel, chunk);
+			int count = compacted + copied - end;
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(count)
+					.putInt(favorites.length).putInt(compacted);
+			header.rewind();
+			channel.write(header, 0);
+			channel.force(true);
+			int capacity = Math.max(INITIAL_CAPACITY, count * 2);
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE
+							+ (long) capacity * RECORD_SIZE);
+
+			synchronized (this) {
+				if (mChannel == null) {
+					return;
+				}
+
+				// Copy the last records into the mapping and swap the files.
+				int total = count + mCount - copied;
+				if (total > capacity) {
+					capacity = Math.max(capacity * 2, total);
+					buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+							HEADER_SIZE + (long) capacity * RECORD_SIZE);
+				}
+				for (int i = copied; i < mCount; i++) {
+					int from = HEADER_SIZE + i * RECORD_SIZE;
+					int to = HEADER_SIZE + (count + i - copied) * RECORD_SIZE;
+					buffer.putLong(to, mBuffer.getLong(from));
+					buffer.putInt(to + 8, mBuffer.getInt(from + 8));
+					buffer.putInt(to + 12, mBuffer.getInt(from + 12));
+				}
+				buffer.putInt(OFFSET_COUNT, total);
+
+				if (!temp.renameTo(mFile)) {
+					throw new IOException("Renaming " + temp + " failed");
+				}
+				previous = mRandomAccessFile;
+				mRandomAccessFile = out;
+				mChannel = channel;
+				mBuffer = buffer;
+				mCapacity = capacity;
+				mCount = total;
+				mCompacted = compacted;
+				mSelectedRecords += selected - selectedRecords;
+				mFavoriteRecords += favorites.length - favoriteRecords;
+				out = null;
+			}
+		} finally {
+			if (out != null) {
+				out.close();
+				temp.delete();
+			}
+			synchronized (this) {
+				mCompacting = false;
+				mCompactCheckpoint = mCount;
+			}
+			if (previous != null) {
+				// Replaced, nothing to sync.
+				previous.close();
+			}
+		}
+	}
+
+	/**
+	 * Close the log. The history can't be used afterwards.
+	 *
+	 * @throws IOException If closing the file fails.
+	 */
+	public synchronized void close() throws IOException {
+		if (mChannel != null) {
+			mBuffer.force();
+			mChannel.close();
+			mRandomAccessFile.close();
+			mChannel = null;
+			mRandomAccessFile = null;
+		}
+	}
+
+	/**
+	 * Append a record, growing the mapping if needed.
+	 */
+	private synchronized void append(int color, int type) throws IOException {
+		if (mChannel == null) {
+			throw new IOException("Closed");
+		}
+		if (mCount == mCapacity) {
+			mCapacity *= 2;
+			mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+					HEADER_SIZE + (long) mCapacity * RECORD_SIZE);
+		}
+
+		int offset = HEADER_SIZE + mCount * RECORD_SIZE;
+		mBuffer.putLong(offset, System.currentTimeMillis());
+		mBuffer.putInt(offset + 8, color);
+		mBuffer.putInt(offset + 12, type);
+		// The new count commits the record.
+		mBuffer.putInt(OFFSET_COUNT, ++mCount);
+
+		if (type == TYPE_SELECTED) {
+			mSelectedRecords++;
+		} else {
+			mFavoriteRecords++;
+			applyFavorite(color, type);
+		}
+		if (mExecutor != null && !mCompacting
+				&& mCount - mCompactCheckpoint >= COMPACT_THRESHOLD
+				&& getDroppableRecords() >= COMPACT_THRESHOLD) {
+			mCompacting = true;
+			mExecutor.execute(mCompact);
+		}
+	}
+
+	/**
+	 * Get the number of records compaction would drop.
+	 */
+	private int getDroppableRecords() {
+		return Math.max(0, mSelectedRecords - mMaxHistory) + mFavoriteRecords
+				- mFavoriteCount;
+	}
+
+	/**
+	 * Open and map the file, creating the header of a new log.
+	 */
+	private void map() throws IOException {
+		mRandomAccessFile = new RandomAccessFile(mFile, "rw");
+		mChannel = mRandomAccessFile.getChannel();
+		long length = mChannel.size();
+		try {
+			if (length < HEADER_SIZE) {
+				mCapacity = INITIAL_CAPACITY;
+				mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+						HEADER_SIZE + (long) mCapacity * RECORD_SIZE);
+				mBuffer.putInt(0, MAGIC);
+				mBuffer.putInt(4, VERSION);
+				mCount = 0;
+				mCompacted = 0;
+				return;
+			}
+
+			int capacity = (int) ((length - HEADER_SIZE) / RECORD_SIZE);
+			mCapacity = Math.max(capacity, INITIAL_CAPACITY);
+			mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+					HEADER_SIZE + (long) mCapacity * RECORD_SIZE);
+			if (mBuffer.getInt(0) != MAGIC) {
+				throw new IOException("Not a color history");
+			}
+			int version = mBuffer.getInt(4);
+			if (version != VERSION) {
+				throw new IOException("Unsupported version " + version);
+			}
+			mCount = mBuffer.getInt(OFFSET_COUNT);
+			mCompacted = mBuffer.getInt(OFFSET_COMPACTED);
+			if (mCount < 0 || mCount > capacity) {
+				throw new IOException("Corrupt record count " + mCount);
+			}
+		} catch (IOException e) {
+			mChannel.close();
+			mRandomAccessFile.close();
+			mChannel = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Load the folded favorites and apply the changes appended since.
+	 */
+	private void loadFavorites() {
+		mFavoriteCount = 0;
+		int folded = mBuffer.getInt(OFFSET_FAVORITES);
+		mFavoriteRecords = 0;
+		mSelectedRecords = Math.max(0, Math.min(mCompacted, mCount) - folded);
+		mCompactCheckpoint = mCompacted;
+		for (int i = 0; i < mCount; i++) {
+			if (i == folded) {
+				// Skip the compacted history, it holds no favorites.
+				i = Math.max(i, mCompacted);
+				if (i >= mCount) {
+					break;
+				}
+			}
+			int type = type(mBuffer, i);
+			if (type == TYPE_SELECTED) {
+				mSelectedRecords++;
+			} else {
+				mFavoriteRecords++;
+				applyFavorite(mBuffer.getInt(HEADER_SIZE + i * RECORD_SIZE + 8),
+						type);
+			}
+		}
+	}
+
+	private void applyFavorite(int color, int type) {
+		int index = indexOfFavorite(color);
+		if (type == TYPE_FAVORITE_ADD && index < 0) {
+			if (mFavoriteCount == mFavorites.length) {
+				mFavorites = Arrays.copyOf(mFavorites, mFavoriteCount * 2);
+			}
+			mFavorites[mFavoriteCount++] = color;
+		} else if (type == TYPE_FAVORITE_REMOVE && index >= 0) {
+			mFavoriteCount--;
+			System.arraycopy(mFavorites, index + 1, mFavorites, index,
+					mFavoriteCount - index);
+		}
+	}
+
+	private int indexOfFavorite(int color) {
+		for (int i = 0; i < mFavoriteCount; i++) {
+			if (mFavorites[i] == color) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int type(ByteBuffer buffer, int record) {
+		return buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + 12);
+	}
+
+	/**
+	 * Put a record into {@code chunk}, writing it to the channel when full.
+	 */
+	private static void put(FileChannel channel, ByteBuffer chunk, long time,
+			int color, int type) throws IOException {
+		if (chunk.remaining() < RECORD_SIZE) {
+			flush(channel, chunk);
+		}
+		chunk.putLong(time).putInt(color).putInt(type);
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer chunk)
+			throws IOException {
+		chunk.flip();
+		while (chunk.hasRemaining()) {
+			channel.write(chunk);
+		}
+		chunk.clear();
+	}
+}
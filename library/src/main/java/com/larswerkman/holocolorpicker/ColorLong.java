@@ -0,0 +1,345 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Colors with 16 bits per channel packed into a {@code long}.
+ *
+ * <p>
+ * The ARGB {@code int} colors used throughout the library have 8 bits per
+ * channel. A color long keeps the red, green and blue components with 16 bits
+ * each, the alpha with 12 bits, and a tag for the color space the components
+ * are in:
+ * </p>
+ *
+ * <pre>
+ * | 63 - 48 | 47 - 32 | 31 - 16 | 15 - 4 | 3 - 0 |
+ * |   red   |  green  |  blue   | alpha  | space |
+ * </pre>
+ *
+ * <p>
+ * All methods are static and none allocate, so color longs can be passed
+ * around as freely as {@code int} colors. Components are between 0 and 1;
+ * conversions between color spaces clamp colors outside the target gamut.
+ * </p>
+ *
+ * @see ColorPicker#getColorLong()
+ */
+public final class ColorLong {
+
+	/**
+	 * sRGB, the color space of the {@code int} colors.
+	 */
+	public static final int SPACE_SRGB = 0;
+
+	/**
+	 * sRGB primaries without the transfer function.
+	 */
+	public static final int SPACE_LINEAR_SRGB = 1;
+
+	/**
+	 * Display P3, DCI-P3 primaries with the D65 white point and the sRGB
+	 * transfer function.
+	 */
+	public static final int SPACE_DISPLAY_P3 = 2;
+
+	private static final int SPACE_COUNT = 3;
+
+	/*
+	 * Conversion matrices between linear sRGB and linear Display P3.
+	 */
+	private static final double[] SRGB_TO_P3 = {
+			0.8224621, 0.1775380, 0.0000000,
+			0.0331941, 0.9668058, 0.0000000,
+			0.0170827, 0.0723974, 0.9105199 };
+	private static final double[] P3_TO_SRGB = {
+			1.2249401, -0.2249404, 0.0000000,
+			-0.0420569, 1.0420571, 0.0000000,
+			-0.0196376, -0.0786361, 1.0982735 };
+
+	private ColorLong() {
+	}
+
+	/**
+	 * Pack a color from its components, clamped to between 0 and 1.
+	 *
+	 * @param red The red component.
+	 * @param green The green component.
+	 * @param blue The blue component.
+	 * @param alpha The alpha component.
+	 * @param space The color space of the components, one of
+	 *            {@link #SPACE_SRGB}, {@link #SPACE_LINEAR_SRGB} and
+	 *            {@link #SPACE_DISPLAY_P3}.
+	 *
+	 * @return The color long.
+	 */
+	public static long pack(float red, float green, float blue, float alpha,
+			int space) {
+		checkSpace(space);
+		return (unorm(red, 0xFFFF) << 48)
+				| (unorm(green, 0xFFFF) << 32)
+				| (unorm(blue, 0xFFFF) << 16)
+				| (unorm(alpha, 0xFFF) << 4) | space;
+	}
+
+	/**
+	 * Pack a color from 16 bit components.
+	 *
+	 * @param red The red component, between 0 and 65535.
+	 * @param green The green component, between 0 and 65535.
+	 * @param blue The blue component, between 0 and 65535.
+	 * @param alpha The alpha component, between 0 and 4095.
+	 * @param space The color space of the components.
+	 *
+	 * @return The color long.
+	 */
+	public static long pack16(int red, int green, int blue, int alpha,
+			int space) {
+		checkSpace(space);
+		return ((long) (red & 0xFFFF) << 48) | ((long) (green & 0xFFFF) << 32)
+				| ((long) (blue & 0xFFFF) << 16) | ((alpha & 0xFFF) << 4)
+				| space;
+	}
+
+	/**
+	 * Expand an ARGB color without changing its components, every 8 bit
+	 * value maps to the exactly corresponding 16 or 12 bit value.
+	 *
+	 * @param color The ARGB value of the color.
+	 * @param space The color space the components are in, usually
+	 *            {@link #SPACE_SRGB}.
+	 *
+	 * @return The color long.
+	 */
+	public static long fromArgb(int color, int space) {
+		int a = color >>> 24;
+		return pack16(((color >> 16) & 0xFF) * 257, ((color >> 8) & 0xFF) * 257,
+				(color & 0xFF) * 257, (a << 4) | (a >> 4), space);
+	}
+
+	/**
+	 * Round the components of a color to 8 bits. The color space is not
+	 * changed, use {@link #convert(long, int)} first to get an sRGB color.
+	 *
+	 * @param color The color long.
+	 *
+	 * @return The ARGB value of the color.
+	 */
+	public static int toArgb(long color) {
+		int a = (alpha12(color) * 255 + 2047) / 4095;
+		int r = (red16(color) * 255 + 32767) / 65535;
+		int g = (green16(color) * 255 + 32767) / 65535;
+		int b = (blue16(color) * 255 + 32767) / 65535;
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	public static int red16(long color) {
+		return (int) (color >>> 48);
+	}
+
+	public static int green16(long color) {
+		return (int) (color >>> 32) & 0xFFFF;
+	}
+
+	public static int blue16(long color) {
+		return (int) (color >>> 16) & 0xFFFF;
+	}
+
+	public static int alpha12(long color) {
+		return (int) (color >>> 4) & 0xFFF;
+	}
+
+	public static float red(long color) {
+		return red16(color) / 65535f;
+	}
+
+	public static float green(long color) {
+		return green16(color) / 65535f;
+	}
+
+	public static float blue(long color) {
+		return blue16(color) / 65535f;
+	}
+
+	public static float alpha(long color) {
+		return alpha12(color) / 4095f;
+	}
+
+	/**
+	 * Get the color space tag of a color.
+	 *
+	 * @return One of {@link #SPACE_SRGB}, {@link #SPACE_LINEAR_SRGB} and
+	 *         {@link #SPACE_DISPLAY_P3}.
+	 */
+	public static int space(long color) {
+		return (int) color & 0xF;
+	}
+
+	/**
+	 * Replace the alpha of a color.
+	 *
+	 * @param color The color long.
+	 * @param alpha The new alpha, between 0 and 1.
+	 *
+	 * @return The color long with the new alpha.
+	 */
+	public static long withAlpha(long color, float alpha) {
+		return (color & ~0xFFF0L) | (unorm(alpha, 0xFFF) << 4);
+	}
+
+	/**
+	 * Convert a color to another color space. Colors outside the gamut of
+	 * the target space are clamped. The alpha is kept.
+	 *
+	 * @param color The color long.
+	 * @param space The target color space.
+	 *
+	 * @return The color long in the target color space.
+	 */
+	public static long convert(long color, int space) {
+		checkSpace(space);
+		int source = space(color);
+		if (source == space) {
+			return color;
+		}
+
+		double r = red(color);
+		double g = green(color);
+		double b = blue(color);
+		if (source != SPACE_LINEAR_SRGB) {
+			r = toLinear(r);
+			g = toLinear(g);
+			b = toLinear(b);
+		}
+
+		// Both sRGB variants share the primaries.
+		double[] matrix = null;
+		if (source == SPACE_DISPLAY_P3) {
+			matrix = P3_TO_SRGB;
+		} else if (space == SPACE_DISPLAY_P3) {
+			matrix = SRGB_TO_P3;
+		}
+		if (matrix != null) {
+			double mr = matrix[0] * r + matrix[1] * g + matrix[2] * b;
+			double mg = matrix[3] * r + matrix[4] * g + matrix[5] * b;
+			double mb = matrix[6] * r + matrix[7] * g + matrix[8] * b;
+			r = mr;
+			g = mg;
+			b = mb;
+		}
+
+		if (space != SPACE_LINEAR_SRGB) {
+			r = fromLinear(r);
+			g = fromLinear(g);
+			b = fromLinear(b);
+		}
+		return pack((float) r, (float) g, (float) b, alpha(color), space);
+	}
+
+	/**
+	 * Create a color from its hue, saturation and value, like
+	 * {@code Color.HSVToColor} but without rounding the components to 8 bits.
+	 *
+	 * @param hue The hue, between 0 and 360.
+	 * @param saturation The saturation, between 0 and 1.
+	 * @param value The value, between 0 and 1.
+	 * @param alpha The alpha, between 0 and 1.
+	 * @param space The color space of the result.
+	 *
+	 * @return The color long.
+	 */
+	public static long HSVToColorLong(float hue, float saturation,
+			float value, float alpha, int space) {
+		float h = hue / 60f;
+		h -= 6 * (float) Math.floor(h / 6);
+		int sector = Math.min((int) h, 5);
+		float f = h - sector;
+		float p = value * (1 - saturation);
+		float q = value * (1 - saturation * f);
+		float t = value * (1 - saturation * (1 - f));
+
+		switch (sector) {
+		case 0:
+			return pack(value, t, p, alpha, space);
+		case 1:
+			return pack(q, value, p, alpha, space);
+		case 2:
+			return pack(p, value, t, alpha, space);
+		case 3:
+			return pack(p, q, value, alpha, space);
+		case 4:
+			return pack(t, p, value, alpha, space);
+		default:
+			return pack(value, p, q, alpha, space);
+		}
+	}
+
+	/**
+	 * Convert a color to its hue, saturation and value, in the color space
+	 * of the color.
+	 *
+	 * @param color The color long.
+	 * @param hsv Array receiving the hue (0 to 360), saturation and value.
+	 */
+	public static void colorLongToHSV(long color, float[] hsv) {
+		int r = red16(color);
+		int g = green16(color);
+		int b = blue16(color);
+		int max = Math.max(r, Math.max(g, b));
+		int delta = max - Math.min(r, Math.min(g, b));
+
+		float hue = 0;
+		if (delta != 0) {
+			if (max == r) {
+				hue = 60f * (g - b) / delta;
+			} else if (max == g) {
+				hue = 60f * (b - r) / delta + 120;
+			} else {
+				hue = 60f * (r - g) / delta + 240;
+			}
+			if (hue < 0) {
+				hue += 360;
+			}
+		}
+		hsv[0] = hue;
+		hsv[1] = max == 0 ? 0 : (float) delta / max;
+		hsv[2] = max / 65535f;
+	}
+
+	private static long unorm(float component, int max) {
+		if (!(component > 0)) {
+			return 0;
+		}
+		return component >= 1 ? max : (long) (component * max + 0.5f);
+	}
+
+	private static double toLinear(double c) {
+		return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+	}
+
+	private static double fromLinear(double c) {
+		return c <= 0.0031308 ? c * 12.92
+				: 1.055 * Math.pow(c, 1 / 2.4) - 0.055;
+	}
+
+	static void checkSpace(int space) {
+		if (space < 0 || space >= SPACE_COUNT) {
+			throw new IllegalArgumentException("Unknown color space " + space);
+		}
+	}
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Color math shared by the picker and the bars.
+ *
+ * <p>
+ * Everything in here works on packed ARGB ints and caller supplied arrays, is
+ * backed by precomputed tables instead of divisions and never allocates. It
+ * does not depend on the Android framework.
+ * </p>
+ */
+public final class ColorMath {
+
+	/**
+	 * {@code 1 / i} for every 8-bit channel difference {@code i}, {@code 0}
+	 * for {@code i == 0}.
+	 */
+	private static final float[] RECIPROCAL = new float[256];
+
+	/**
+	 * {@code i / 255} for every 8-bit channel value {@code i}.
+	 */
+	private static final float[] UNIT = new float[256];
+
+	/**
+	 * The linear intensity of every 8-bit sRGB channel value.
+	 */
+	private static final float[] LINEAR = new float[256];
+
+	static {
+		for (int i = 1; i < 256; i++) {
+			RECIPROCAL[i] = 1f / i;
+			UNIT[i] = i / 255f;
+		}
+		for (int i = 0; i < 256; i++) {
+			double c = i / 255.0;
+			LINEAR[i] = (float) (c <= 0.04045 ? c / 12.92 : Math.pow(
+					(c + 0.055) / 1.055, 2.4));
+		}
+	}
+
+	private ColorMath() {
+	}
+
+	/**
+	 * Convert a color to its HSV components.
+	 *
+	 * @param color The ARGB value of the color.
+	 * @param hsv Array of at least 3 floats receiving the hue (0..360), the
+	 *            saturation (0..1) and the value (0..1).
+	 */
+	public static void colorToHSV(int color, float[] hsv) {
+		colorToHSV(color, hsv, 0);
+	}
+
+	/**
+	 * Convert a color to its HSV components, stored at an offset.
+	 *
+	 * @param color The ARGB value of the color.
+	 * @param hsv Array receiving the hue (0..360), the saturation (0..1) and
+	 *            the value (0..1) at {@code offset} to {@code offset + 2}.
+	 * @param offset The index of the hue.
+	 */
+	public static void colorToHSV(int color, float[] hsv, int offset) {
+		int r = (color >> 16) & 0xFF;
+		int g = (color >> 8) & 0xFF;
+		int b = color & 0xFF;
+		int max = r > g ? (r > b ? r : b) : (g > b ? g : b);
+		int min = r < g ? (r < b ? r : b) : (g < b ? g : b);
+		int delta = max - min;
+
+		hsv[offset] = hue(r, g, b, max, delta);
+		hsv[offset + 1] = delta * RECIPROCAL[max];
+		hsv[offset + 2] = UNIT[max];
+	}
+
+	/**
+	 * Convert HSV components to a color, like {@code Color.HSVToColor}.
+	 *
+	 * @param alpha The alpha of the color (0..255).
+	 * @param hue The hue in degrees, any range.
+	 * @param saturation The saturation, clamped to 0..1.
+	 * @param value The value, clamped to 0..1.
+	 *
+	 * @return The ARGB value of the color.
+	 */
+	public static int HSVToColor(int alpha, float hue, float saturation,
+			float value) {
+		float s = saturation < 0 ? 0 : (saturation > 1 ? 1 : saturation);
+		float v = (value < 0 ? 0 : (value > 1 ? 1 : value)) * 255;
+		float h = hue * (1 / 60f);
+		h -= 6 * (float) Math.floor(h * (1 / 6f));
+		int sector = (int) h;
+		if (sector > 5) {
+			sector = 5;
+		}
+		float f = h - sector;
+
+		int max = (int) (v + 0.5f);
+		int p = (int) (v * (1 - s) + 0.5f);
+		int q = (int) (v * (1 - s * f) + 0.5f);
+		int t = (int) (v * (1 - s * (1 - f)) + 0.5f);
+
+		int rgb;
+		switch (sector) {
+		case 0:
+			rgb = (max << 16) | (t << 8) | p;
+			break;
+		case 1:
+			rgb = (q << 16) | (max << 8) | p;
+			break;
+		case 2:
+			rgb = (p << 16) | (max << 8) | t;
+			break;
+		case 3:
+			rgb = (p << 16) | (q << 8) | max;
+			break;
+		case 4:
+			rgb = (t << 16) | (p << 8) | max;
+			break;
+		default:
+			rgb = (max << 16) | (p << 8) | q;
+			break;
+		}
+		return (alpha << 24) | rgb;
+	}
+
+	/**
+	 * Get the hue of a color.
+	 *
+	 * @param color The ARGB value of the color.
+	 *
+	 * @return The hue in degrees (0..360), 0 for shades of grey.
+	 */
+	public static float colorToHue(int color) {
+		int r = (color >> 16) & 0xFF;
+		int g = (color >> 8) & 0xFF;
+		int b = color & 0xFF;
+		int max = r > g ? (r > b ? r : b) : (g > b ? g : b);
+		int min = r < g ? (r < b ? r : b) : (g < b ? g : b);
+
+		return hue(r, g, b, max, max - min);
+	}
+
+	/**
+	 * Convert a color to the angle its hue is displayed at on the color
+	 * wheel.
+	 *
+	 * @param color The ARGB value of the color.
+	 *
+	 * @return The angle (in rad).
+	 */
+	public static float colorToAngle(int color) {
+		return hueToAngle(colorToHue(color));
+	}
+
+	/**
+	 * Convert a hue to the angle it is displayed at on the color wheel.
+	 *
+	 * @param hue The hue in degrees.
+	 *
+	 * @return The angle (in rad).
+	 */
+	public static float hueToAngle(float hue) {
+		return (float) Math.toRadians(-hue);
+	}
+
+	/**
+	 * Interpolate a color on a gradient of evenly spaced colors.
+	 *
+	 * @param colors The ARGB values of the gradient stops.
+	 * @param unit Position on the gradient, 0 is the first and 1 the last
+	 *            stop.
+	 *
+	 * @return The ARGB value of the color at {@code unit}.
+	 */
+	public static int interpolate(int[] colors, float unit) {
+		if (unit <= 0) {
+			return colors[0];
+		}
+		if (unit >= 1) {
+			return colors[colors.length - 1];
+		}
+
+		float p = unit * (colors.length - 1);
+		int i = (int) p;
+		p -= i;
+
+		int c0 = colors[i];
+		int c1 = colors[i + 1];
+		int a = ave(c0 >>> 24, c1 >>> 24, p);
+		int r = ave((c0 >> 16) & 0xFF, (c1 >> 16) & 0xFF, p);
+		int g = ave((c0 >> 8) & 0xFF, (c1 >> 8) & 0xFF, p);
+		int b = ave(c0 & 0xFF, c1 & 0xFF, p);
+
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Lower the saturation of a fully saturated color with a value of 1, by
+	 * mixing it with white.
+	 *
+	 * @param color The ARGB value of the fully saturated color.
+	 * @param saturation The saturation between 0 (white) and 255 (unchanged).
+	 *
+	 * @return The ARGB value of the color with the given saturation.
+	 */
+	public static int saturate(int color, int saturation) {
+		int r = 255 - ((255 - ((color >> 16) & 0xFF)) * saturation + 127) / 255;
+		int g = 255 - ((255 - ((color >> 8) & 0xFF)) * saturation + 127) / 255;
+		int b = 255 - ((255 - (color & 0xFF)) * saturation + 127) / 255;
+
+		return (color & 0xFF000000) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Remove the sRGB transfer function from a channel.
+	 *
+	 * @param channel The 8-bit sRGB value of the channel.
+	 *
+	 * @return The linear intensity, between 0 and 1.
+	 */
+	public static float linear(int channel) {
+		return LINEAR[channel & 0xFF];
+	}
+
+	/**
+	 * Get the relative luminance of a color as defined by WCAG 2, ignoring
+	 * its alpha.
+	 *
+	 * @param color The ARGB value of the color.
+	 *
+	 * @return The luminance, 0 for black and 1 for white.
+	 */
+	public static float luminance(int color) {
+		return 0.2126f * LINEAR[(color >> 16) & 0xFF] + 0.7152f
+				* LINEAR[(color >> 8) & 0xFF] + 0.0722f * LINEAR[color & 0xFF];
+	}
+
+	private static int ave(int s, int d, float p) {
+		return s + Math.round(p * (d - s));
+	}
+
+	private static float hue(int r, int g, int b, int max, int delta) {
+		if (delta == 0) {
+			return 0f;
+		}
+
+		float hue;
+		if (max == r) {
+			hue = (g - b) * RECIPROCAL[delta];
+		} else if (max == g) {
+			hue = 2 + (b - r) * RECIPROCAL[delta];
+		} else {
+			hue = 4 + (r - g) * RECIPROCAL[delta];
+		}
+		hue *= 60;
+		if (hue < 0) {
+			hue += 360;
+		}
+		return hue;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A color that any thread can read and write without locking.
+ *
+ * <p>
+ * The hue, saturation, value and alpha are packed into a single
+ * {@code long} together with a sequence number that every write increments.
+ * Writes are compare-and-set loops on that {@code long}, so writers changing
+ * different components don't lose each other's changes, and a reader always
+ * sees a consistent state. Readers that only care about the latest color,
+ * like a {@link ColorPicker} bound with
+ * {@link ColorPicker#setColorModel(ColorModel)}, compare states and skip the
+ * writes they missed.
+ * </p>
+ *
+ * <p>
+ * State layout, from the high bits: a 16 bit sequence number, the hue in 16
+ * bits, the saturation and the value in 12 bits each and the alpha in 8 bits.
+ * </p>
+ */
+public class ColorModel {
+
+	private static final int SEQUENCE_SHIFT = 48;
+	private static final int HUE_SHIFT = 32;
+	private static final int SATURATION_SHIFT = 20;
+	private static final int VALUE_SHIFT = 8;
+
+	private static final long SEQUENCE_ONE = 1L << SEQUENCE_SHIFT;
+	private static final long HUE_MASK = 0xFFFFL << HUE_SHIFT;
+	private static final long SATURATION_MASK = 0xFFFL << SATURATION_SHIFT;
+	private static final long VALUE_MASK = 0xFFFL << VALUE_SHIFT;
+	private static final long ALPHA_MASK = 0xFFL;
+	private static final long COLOR_MASK = SEQUENCE_ONE - 1;
+
+	private static final float HUE_SCALE = 0x10000 / 360f;
+	private static final float UNIT_SCALE = 0xFFF;
+
+	/**
+	 * An interface that is called after every write, on the writing thread.
+	 */
+	public interface OnModelChangedListener {
+		public void onModelChanged(ColorModel model);
+	}
+
+	private final AtomicLong mState;
+
+	private final CopyOnWriteArrayList<OnModelChangedListener> mListeners = new CopyOnWriteArrayList<OnModelChangedListener>();
+
+	/**
+	 * @param color The ARGB value of the initial color.
+	 */
+	public ColorModel(int color) {
+		mState = new AtomicLong(pack(color));
+	}
+
+	public void addOnModelChangedListener(OnModelChangedListener listener) {
+		mListeners.addIfAbsent(listener);
+	}
+
+	public void removeOnModelChangedListener(OnModelChangedListener listener) {
+		mListeners.remove(listener);
+	}
+
+	/**
+	 * Get the current state, to be decoded with the static getters.
+	 *
+	 * @return The packed state.
+	 */
+	public long getState() {
+		return mState.get();
+	}
+
+	/**
+	 * Get the current color.
+	 *
+	 * @return The ARGB value of the color.
+	 */
+	public int getColor() {
+		return getColor(mState.get());
+	}
+
+	/**
+	 * Set the color. The hue is kept for greys, which don't have one.
+	 *
+	 * @param color The ARGB value of the color.
+	 *
+	 * @return The new state.
+	 */
+	public long setColor(int color) {
+		long packed = pack(color);
+		long mask = COLOR_MASK;
+		if (((packed & SATURATION_MASK) == 0) || ((packed & VALUE_MASK) == 0)) {
+			mask &= ~HUE_MASK;
+		}
+		return update(mask, packed);
+	}
+
+	/**
+	 * Set all components.
+	 *
+	 * @param alpha The alpha (0..255).
+	 * @param hue The hue in degrees, any range.
+	 * @param saturation The saturation, clamped to 0..1.
+	 * @param value The value, clamped to 0..1.
+	 *
+	 * @return The new state.
+	 */
+	public long setHSV(int alpha, float hue, float saturation, float value) {
+		return update(COLOR_MASK, packHue(hue)
+				| packUnit(saturation) << SATURATION_SHIFT
+				| packUnit(value) << VALUE_SHIFT | (alpha & ALPHA_MASK));
+	}
+
+	/**
+	 * @param hue The hue in degrees, any range.
+	 *
+	 * @return The new state.
+	 */
+	public long setHue(float hue) {
+		return update(HUE_MASK, packHue(hue));
+	}
+
+	/**
+	 * @param saturation The saturation, clamped to 0..1.
+	 *
+	 * @return The new state.
+	 */
+	public long setSaturation(float saturation) {
+		return update(SATURATION_MASK, packUnit(saturation) << SATURATION_SHIFT);
+	}
+
+	/**
+	 * @param value The value, clamped to 0..1.
+	 *
+	 * @return The new state.
+	 */
+	public long setValue(float value) {
+		return update(VALUE_MASK, packUnit(value) << VALUE_SHIFT);
+	}
+
+	/**
+	 * @param alpha The alpha (0..255).
+	 *
+	 * @return The new state.
+	 */
+	public long setAlpha(int alpha) {
+		return update(ALPHA_MASK, alpha & ALPHA_MASK);
+	}
+
+	/**
+	 * Get the sequence number of a state, which wraps after 65536 writes.
+	 */
+	public static int getSequence(long state) {
+		return (int) (state >>> SEQUENCE_SHIFT);
+	}
+
+	/**
+	 * Get the ARGB value of a state.
+	 */
+	public static int getColor(long state) {
+		return ColorMath.HSVToColor(getAlpha(state), getHue(state),
+				getSaturation(state), getValue(state));
+	}
+
+	/**
+	 * Get the HSV components of a state.
+	 *
+	 * @param state The packed state.
+	 * @param hsv Array of at least 3 floats receiving the hue (0..360), the
+	 *            saturation (0..1) and the value (0..1).
+	 */
+	public static void getHSV(long state, float[] hsv) {
+		hsv[0] = getHue(state);
+		hsv[1] = getSaturation(state);
+		hsv[2] = getValue(state);
+	}
+
+	public static float getHue(long state) {
+		return ((state & HUE_MASK) >>> HUE_SHIFT) / HUE_SCALE;
+	}
+
+	public static float getSaturation(long state) {
+		return ((state & SATURATION_MASK) >>> SATURATION_SHIFT) / UNIT_SCALE;
+	}
+
+	public static float getValue(long state) {
+		return ((state & VALUE_MASK) >>> VALUE_SHIFT) / UNIT_SCALE;
+	}
+
+	public static int getAlpha(long state) {
+		return (int) (state & ALPHA_MASK);
+	}
+
+	/**
+	 * Replace the bits in {@code mask} and bump the sequence number, then
+	 * notify the listeners.
+	 */
+	private long update(long mask, long bits) {
+		long current;
+		long next;
+		do {
+			current = mState.get();
+			next = ((current & ~COLOR_MASK) + SEQUENCE_ONE)
+					| (current & COLOR_MASK & ~mask) | (bits & mask);
+		} while (!mState.compareAndSet(current, next));
+
+		for (OnModelChangedListener listener : mListeners) {
+			listener.onModelChanged(this);
+		}
+		return next;
+	}
+
+	private static long pack(int color) {
+		int r = (color >> 16) & 0xFF;
+		int g = (color >> 8) & 0xFF;
+		int b = color & 0xFF;
+		int max = Math.max(r, Math.max(g, b));
+		int min = Math.min(r, Math.min(g, b));
+		float saturation = max == 0 ? 0 : (float) (max - min) / max;
+		return packHue(ColorMath.colorToHue(color))
+				| packUnit(saturation) << SATURATION_SHIFT
+				| packUnit(max / 255f) << VALUE_SHIFT | (color >>> 24);
+	}
+
+	private static long packHue(float hue) {
+		return ((long) Math.round(hue * HUE_SCALE) & 0xFFFF) << HUE_SHIFT;
+	}
+
+	private static long packUnit(float unit) {
+		return Math.round((unit < 0 ? 0 : (unit > 1 ? 1 : unit)) * UNIT_SCALE);
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import java.util.Arrays;
+
+/**
+ * A fixed set of colors the {@link ColorPicker} wheel snaps to.
+ *
+ * <p>
+ * Every color sits on the wheel at the angle of its hue. Colors sharing a
+ * hue are one entry, represented by the color closest (by CIE76
+ * &Delta;E) to the wheel color at that hue. An angle is resolved to the
+ * nearest entry through a bucket index over the sorted entries, so each
+ * lookup takes constant time even for palettes with thousands of colors.
+ * Angles exactly between two entries go to the one with the lower &Delta;E
+ * to the wheel color at that angle.
+ * </p>
+ */
+final class ColorPalette {
+
+	/**
+	 * The wheel position of every entry as a fraction of a full turn, sorted
+	 * ascending.
+	 */
+	private final float[] mUnits;
+
+	/**
+	 * The ARGB value of every entry.
+	 */
+	private final int[] mColors;
+
+	/**
+	 * The CIE L*a*b* values of every entry, three floats per entry.
+	 */
+	private final float[] mLab;
+
+	/**
+	 * For every bucket the last entry at or before the start of the bucket,
+	 * -1 if the bucket lies before the first entry.
+	 */
+	private final int[] mBuckets;
+
+	/**
+	 * Colors of the wheel, used as reference for the &Delta;E tie-breaks.
+	 */
+	private final int[] mWheelColors;
+
+	private final float[] mLabBuffer = new float[3];
+
+	/**
+	 * @param colors The ARGB values of the palette, at least one.
+	 * @param wheelColors The colors of the wheel, see
+	 *            {@link ColorMath#interpolate(int[], float)}.
+	 */
+	ColorPalette(int[] colors, int[] wheelColors) {
+		if (colors.length == 0) {
+			throw new IllegalArgumentException("Palette is empty");
+		}
+		mWheelColors = wheelColors;
+
+		// Sort by wheel position, packing the (positive) float bits with the
+		// index keeps the order without boxing.
+		long[] keys = new long[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			keys[i] = ((long) Float.floatToIntBits(unit(colors[i])) << 32) | i;
+		}
+		Arrays.sort(keys);
+
+		float[] units = new float[colors.length];
+		int[] entries = new int[colors.length];
+		float[] lab = new float[colors.length * 3];
+		float[] reference = new float[3];
+		float[] candidate = new float[3];
+		int count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			float unit = Float.intBitsToFloat((int) (keys[i] >>> 32));
+			int color = colors[(int) keys[i]];
+			toLab(color, candidate);
+
+			if (count > 0 && units[count - 1] == unit) {
+				// Same hue, keep the color closest to the wheel.
+				toLab(ColorMath.interpolate(wheelColors, unit), reference);
+				if (distance(candidate, 0, reference) >= distance(lab,
+						(count - 1) * 3, reference)) {
+					continue;
+				}
+				count--;
+			}
+			units[count] = unit;
+			entries[count] = color;
+			System.arraycopy(candidate, 0, lab, count * 3, 3);
+			count++;
+		}
+		mUnits = Arrays.copyOf(units, count);
+		mColors = Arrays.copyOf(entries, count);
+		mLab = Arrays.copyOf(lab, count * 3);
+
+		int buckets = 64;
+		while (buckets < count * 4 && buckets < (1 << 16)) {
+			buckets <<= 1;
+		}
+		mBuckets = new int[buckets];
+		int entry = -1;
+		for (int b = 0; b < buckets; b++) {
+			float start = (float) b / buckets;
+			while (entry + 1 < count && mUnits[entry + 1] <= start) {
+				entry++;
+			}
+			mBuckets[b] = entry;
+		}
+	}
+
+	/**
+	 * Get the number of entries, colors sharing a hue count once.
+	 */
+	int size() {
+		return mColors.length;
+	}
+
+	int getColor(int index) {
+		return mColors[index];
+	}
+
+	/**
+	 * Get the angle an entry is displayed at.
+	 *
+	 * @param index The index of the entry.
+	 *
+	 * @return The angle (in rad) between 0 and 2&pi;.
+	 */
+	float getAngle(int index) {
+		return (float) (mUnits[index] * 2 * Math.PI);
+	}
+
+	/**
+	 * Get the wheel position halfway between an entry and the next one.
+	 *
+	 * @param index The index of the entry.
+	 *
+	 * @return The position as fraction of a full turn, may exceed 1.
+	 */
+	float getUpperBound(int index) {
+		if (mUnits.length == 1) {
+			return mUnits[0] + 0.5f;
+		}
+		float next = index + 1 < mUnits.length ? mUnits[index + 1]
+				: mUnits[0] + 1;
+		return (mUnits[index] + next) / 2;
+	}
+
+	/**
+	 * Find the entry nearest to an angle.
+	 *
+	 * @param angle The angle (in rad), any range.
+	 *
+	 * @return The index of the nearest entry.
+	 */
+	int nearest(float angle) {
+		float unit = (float) (angle / (2 * Math.PI));
+		unit -= (float) Math.floor(unit);
+
+		int bucket = Math.min((int) (unit * mBuckets.length),
+				mBuckets.length - 1);
+		int entry = mBuckets[bucket];
+		while (entry + 1 < mUnits.length && mUnits[entry + 1] <= unit) {
+			entry++;
+		}
+
+		int previous = entry < 0 ? mUnits.length - 1 : entry;
+		int next = entry + 1 < mUnits.length ? entry + 1 : 0;
+		float toPrevious = circular(unit - mUnits[previous]);
+		float toNext = circular(mUnits[next] - unit);
+		if (toPrevious < toNext) {
+			return previous;
+		} else if (toNext < toPrevious) {
+			return next;
+		}
+
+		// Exactly in between, compare with the wheel color at this angle.
+		toLab(ColorMath.interpolate(mWheelColors, unit), mLabBuffer);
+		return distance(mLab, previous * 3, mLabBuffer) <= distance(mLab,
+				next * 3, mLabBuffer) ? previous : next;
+	}
+
+	/**
+	 * Get the wheel position of a color as a fraction of a full turn.
+	 */
+	private static float unit(int color) {
+		float unit = ColorMath.colorToHue(color) / -360f;
+		if (unit <= 0) {
+			unit += 1;
+		}
+		return unit >= 1 ? 0 : unit;
+	}
+
+	private static float circular(float distance) {
+		return distance < 0 ? distance + 1 : distance;
+	}
+
+	private static float distance(float[] lab, int offset, float[] reference) {
+		float l = lab[offset] - reference[0];
+		float a = lab[offset + 1] - reference[1];
+		float b = lab[offset + 2] - reference[2];
+		return l * l + a * a + b * b;
+	}
+
+	/**
+	 * Convert a color to CIE L*a*b* (D65).
+	 */
+	private static void toLab(int color, float[] lab) {
+		double r = ColorMath.linear(color >> 16);
+		double g = ColorMath.linear(color >> 8);
+		double b = ColorMath.linear(color);
+
+		double x = labF((0.4124 * r + 0.3576 * g + 0.1805 * b) / 0.95047);
+		double y = labF(0.2126 * r + 0.7152 * g + 0.0722 * b);
+		double z = labF((0.0193 * r + 0.1192 * g + 0.9505 * b) / 1.08883);
+
+		lab[0] = (float) (116 * y - 16);
+		lab[1] = (float) (500 * (x - y));
+		lab[2] = (float) (200 * (y - z));
+	}
+
+	private static double labF(double t) {
+		return t > 216.0 / 24389 ? Math.cbrt(t) : (24389.0 / 27 * t + 16) / 116;
+	}
+}
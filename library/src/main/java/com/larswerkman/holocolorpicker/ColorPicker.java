@@ -19,18 +19,29 @@ package com.larswerkman.holocolorpicker;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.RadialGradient;
 import android.graphics.RectF;
 import android.graphics.Shader;
 import android.graphics.SweepGradient;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import com.larswerkman.holocolorpicker.R;
 
 /**
@@ -39,7 +50,8 @@ import com.larswerkman.holocolorpicker.R;
  * <p>
  * Use {@link #getColor()} to retrieve the selected color. <br>
  * Use {@link #addSVBar(SVBar)} to add a Saturation/Value Bar. <br>
- * Use {@link #addOpacityBar(OpacityBar)} to add a Opacity Bar.
+ * Use {@link #addOpacityBar(OpacityBar)} to add a Opacity Bar. <br>
+ * Use {@link #addLinkedControl(LinkedControl)} to add any other control.
  * </p>
  */
 public class ColorPicker extends View {
@@ -50,11 +62,24 @@ public class ColorPicker extends View {
 	private static final String STATE_ANGLE = "angle";
 	private static final String STATE_OLD_COLOR = "color";
 	private static final String STATE_SHOW_OLD_COLOR = "showColor";
+	private static final String STATE_SATURATION = "saturation";
+
+	/*
+	 * Names of the traced sections.
+	 */
+	private static final String TRACE_MEASURE = "ColorPicker.onMeasure";
+	private static final String TRACE_DRAW = "ColorPicker.onDraw";
+	private static final String TRACE_TOUCH = "ColorPicker.onTouchEvent";
+	private static final String TRACE_COLOR_CHANGED = "ColorPicker.onColorChanged";
+	private static final String TRACE_COLOR_SELECTED = "ColorPicker.onColorSelected";
+	private static final String TRACE_COLOR_LONG_CHANGED = "ColorPicker.onColorLongChanged";
+	private static final String TRACE_COLOR_LONG_SELECTED = "ColorPicker.onColorLongSelected";
+	private static final String TRACE_MODEL_SYNC = "ColorPicker.syncColorModel";
 
 	/**
 	 * Colors to construct the color wheel using {@link android.graphics.SweepGradient}.
 	 */
-	private static final int[] COLORS = new int[] { 0xFFFF0000, 0xFFFF00FF,
+	static final int[] COLORS = new int[] { 0xFFFF0000, 0xFFFF00FF,
 			0xFF0000FF, 0xFF00FFFF, 0xFF00FF00, 0xFFFFFF00, 0xFFFF0000 };
 
 	/**
@@ -62,6 +87,52 @@ public class ColorPicker extends View {
 	 */
 	private Paint mColorWheelPaint;
 
+	/**
+	 * {@code Paint} instance used to draw the color disc in disc mode.
+	 */
+	private Paint mColorDiscPaint;
+
+	/**
+	 * {@code ColorDisc} instance holding the rendered disc and its polar
+	 * lookup grid. Created when disc mode is first drawn or touched.
+	 */
+	private ColorDisc mColorDisc;
+
+	/**
+	 * Whether the wheel is drawn as a full disc, where the saturation varies
+	 * with the distance to the center, instead of a ring.
+	 */
+	private boolean mDiscMode;
+
+	/**
+	 * The saturation selected on the disc in disc mode, between 0 and 1.
+	 */
+	private float mSaturation = 1f;
+
+	/**
+	 * {@code ColorPalette} instance the wheel snaps to, {@code null} if the
+	 * wheel is continuous.
+	 */
+	private ColorPalette mPalette;
+
+	/**
+	 * Number of discrete hue segments of the ring, 0 if the ring is
+	 * continuous. Ignored while a palette is set.
+	 */
+	private int mHueSteps;
+
+	/**
+	 * The segment of the ring the pointer is on in stepped mode.
+	 */
+	private int mHueStep;
+
+	/**
+	 * The ring rendered with the segments of the palette or the hue steps,
+	 * drawn centered. Recreated when the segments or the size change.
+	 */
+	private Bitmap mSegmentBitmap;
+	private int mSegmentBitmapRadius;
+
 	/**
 	 * {@code Paint} instance used to draw the pointer's "halo".
 	 */
@@ -72,6 +143,11 @@ public class ColorPicker extends View {
 	 */
 	private Paint mPointerColor;
 
+	/**
+	 * {@code PointerSprite} instance used to draw the pointer and its halo.
+	 */
+	private PointerSprite mPointerSprite;
+
 	/**
 	 * The width of the color wheel thickness.
 	 */
@@ -194,6 +270,26 @@ public class ColorPicker extends View {
 	 */
 	private Paint mCenterHaloPaint;
 
+	/**
+	 * Alpha of the halo of the center, raised while the center is pressed.
+	 */
+	private int mCenterHaloAlpha = 0x00;
+
+	/**
+	 * {@code Paint} instance used to draw the cached segments.
+	 */
+	private Paint mSegmentPaint;
+
+	/**
+	 * The simulated color vision deficiency, see {@link ColorVision}.
+	 */
+	private int mColorVisionMode = ColorVision.MODE_NONE;
+
+	/**
+	 * The filter simulating it, applied to every paint while drawing.
+	 */
+	private ColorFilter mColorVisionFilter;
+
 	/**
 	 * An array of floats that can be build into a {@code Color} <br>
 	 * Where we can extract the Saturation and Value from.
@@ -201,19 +297,29 @@ public class ColorPicker extends View {
 	private float[] mHSV = new float[3];
 
 	/**
-	 * {@code SVBar} instance used to control the Saturation/Value bar.
+	 * The color space of the high-precision colors, see {@link ColorLong}.
 	 */
-	private SVBar mSVbar = null;
+	private int mColorSpace = ColorLong.SPACE_SRGB;
 
 	/**
-	 * {@code OpacityBar} instance used to control the Opacity bar.
+	 * The color long last set with {@link #setColor(long)}, valid while
+	 * {@code mHasExactColorLong} is set, which is until the color changes
+	 * otherwise.
 	 */
-	private OpacityBar mOpacityBar = null;
+	private long mColorLong;
+	private boolean mHasExactColorLong;
 
 	/**
-	 * {@code SaturationBar} instance used to control the Saturation bar.
+	 * {@code true} while {@link #setColor(long)} updates the color.
 	 */
-	private SaturationBar mSaturationBar = null;
+	private boolean mSettingColorLong;
+
+	/**
+	 * The controls linked to the color wheel, sorted by their stage.
+	 * 
+	 * @see LinkedControl
+	 */
+	private final ArrayList<LinkedControl> mLinkedControls = new ArrayList<LinkedControl>();
 
         /**
          * {@code TouchAnywhereOnColorWheelEnabled} instance used to control <br>
@@ -223,9 +329,23 @@ public class ColorPicker extends View {
         private boolean mTouchAnywhereOnColorWheelEnabled = true;
 
 	/**
-	 * {@code ValueBar} instance used to control the Value bar.
+	 * Absorbs pointer moves within the touch hysteresis.
+	 * 
+	 * @see #setTouchHysteresis(float)
+	 */
+	private final TouchHysteresis mTouchHysteresis = new TouchHysteresis();
+
+	/**
+	 * Extrapolates the drag, see {@link #setTouchPrediction(int)}.
 	 */
-	private ValueBar mValueBar = null;
+	private final TouchPredictor mTouchPredictor = new TouchPredictor();
+
+	/**
+	 * {@code true} while the pointer is drawn at {@code mPredictedPointer}
+	 * instead of its committed position.
+	 */
+	private boolean mPredicting;
+	private final float[] mPredictedPointer = new float[2];
 
 	/**
 	 * {@code onColorChangedListener} instance of the onColorChangedListener
@@ -237,6 +357,72 @@ public class ColorPicker extends View {
 	 */
 	private OnColorSelectedListener onColorSelectedListener;
 
+	/**
+	 * {@code OnColorLongChangedListener} instance of the
+	 * OnColorLongChangedListener
+	 */
+	private OnColorLongChangedListener onColorLongChangedListener;
+
+	/**
+	 * {@code OnColorLongSelectedListener} instance of the
+	 * OnColorLongSelectedListener
+	 */
+	private OnColorLongSelectedListener onColorLongSelectedListener;
+
+	/**
+	 * The model bound with {@link #setColorModel(ColorModel)}, or
+	 * {@code null}.
+	 */
+	private ColorModel mColorModel;
+
+	/**
+	 * The model state the picker last showed or wrote. Only touched on the UI
+	 * thread.
+	 */
+	private long mColorModelState;
+
+	/**
+	 * {@code true} while a sync with the model is posted. Set by the writing
+	 * thread, cleared by the sync before it reads the state, so a write is
+	 * never missed and any number of writes cause a single sync.
+	 */
+	private final AtomicBoolean mColorModelSyncPending = new AtomicBoolean();
+
+	/**
+	 * {@code true} while the picker applies the state of the model.
+	 */
+	private boolean mSyncingColorModel;
+
+	/**
+	 * {@code true} between {@link #onAttachedToWindow()} and
+	 * {@link #onDetachedFromWindow()}, the picker only listens to the model
+	 * while attached so the model does not keep a detached picker alive.
+	 */
+	private boolean mAttached;
+
+	/**
+	 * Posts the syncs from the writing threads. Unlike {@link #post(Runnable)}
+	 * it does not drop runnables posted while the picker is detached.
+	 */
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	private final ColorModel.OnModelChangedListener mColorModelListener = new ColorModel.OnModelChangedListener() {
+		@Override
+		public void onModelChanged(ColorModel model) {
+			if (mColorModelSyncPending.compareAndSet(false, true)) {
+				mHandler.post(mColorModelSync);
+			}
+		}
+	};
+
+	private final Runnable mColorModelSync = new Runnable() {
+		@Override
+		public void run() {
+			mColorModelSyncPending.set(false);
+			syncColorModel();
+		}
+	};
+
 	public ColorPicker(Context context) {
 		super(context);
 		init(null, 0);
@@ -272,6 +458,22 @@ public class ColorPicker extends View {
 		public void onColorSelected(int color);
 	}
 
+	/**
+	 * Like {@link OnColorChangedListener}, but receives the color as a
+	 * {@link ColorLong color long} with 16 bits per channel.
+	 */
+	public interface OnColorLongChangedListener {
+		public void onColorLongChanged(long color);
+	}
+
+	/**
+	 * Like {@link OnColorSelectedListener}, but receives the color as a
+	 * {@link ColorLong color long} with 16 bits per channel.
+	 */
+	public interface OnColorLongSelectedListener {
+		public void onColorLongSelected(long color);
+	}
+
 	/**
 	 * Set a onColorChangedListener
 	 * 
@@ -281,6 +483,27 @@ public class ColorPicker extends View {
 		this.onColorChangedListener = listener;
 	}
 
+	/**
+	 * Set a onColorChangedListener that receives the colors on the supplied
+	 * {@code Executor} instead of the UI thread. <br>
+	 * Colors reported while the listener is still busy are conflated, only the
+	 * latest one is delivered.
+	 * 
+	 * @param listener {@code OnColorChangedListener}
+	 * @param executor {@code Executor} the colors are delivered on.
+	 * 
+	 * @see ConflatingColorListener
+	 */
+	public void setOnColorChangedListener(OnColorChangedListener listener,
+			Executor executor) {
+		if (listener == null) {
+			this.onColorChangedListener = null;
+		} else {
+			this.onColorChangedListener = new ConflatingColorListener(executor,
+					listener);
+		}
+	}
+
 	/**
 	 * Gets the onColorChangedListener
 	 * 
@@ -318,6 +541,30 @@ public class ColorPicker extends View {
 	 */
 	private int oldSelectedListenerColor;
 
+	/*
+	 * Colors of the latest entries of the color long listeners.
+	 */
+	private long oldChangedListenerColorLong;
+	private long oldSelectedListenerColorLong;
+
+	public void setOnColorLongChangedListener(
+			OnColorLongChangedListener listener) {
+		this.onColorLongChangedListener = listener;
+	}
+
+	public OnColorLongChangedListener getOnColorLongChangedListener() {
+		return this.onColorLongChangedListener;
+	}
+
+	public void setOnColorLongSelectedListener(
+			OnColorLongSelectedListener listener) {
+		this.onColorLongSelectedListener = listener;
+	}
+
+	public OnColorLongSelectedListener getOnColorLongSelectedListener() {
+		return this.onColorLongSelectedListener;
+	}
+
 	private void init(AttributeSet attrs, int defStyle) {
 		final TypedArray a = getContext().obtainStyledAttributes(attrs,
 				R.styleable.ColorPicker, defStyle, 0);
@@ -344,81 +591,158 @@ public class ColorPicker extends View {
 		mColorPointerHaloRadius = a.getDimensionPixelSize(
 				R.styleable.ColorPicker_color_pointer_halo_radius,
 				b.getDimensionPixelSize(R.dimen.color_pointer_halo_radius));
+		mDiscMode = a.getBoolean(R.styleable.ColorPicker_color_wheel_disc,
+				false);
+		mHueSteps = Math.max(
+				a.getInt(R.styleable.ColorPicker_color_wheel_steps, 0), 0);
+		mTouchHysteresis.setThreshold(Math.max(a.getDimension(
+				R.styleable.ColorPicker_color_touch_hysteresis, 0), 0));
+		mTouchPredictor.setHorizon(Math.max(
+				a.getInt(R.styleable.ColorPicker_color_touch_prediction, 0), 0));
 
 		a.recycle();
 
 		mAngle = (float) (-Math.PI / 2);
+		if (isStepped()) {
+			mAngle = snapToStep(mAngle);
+		}
+
+		mCenterNewColor = calculateColor(mAngle);
+		mCenterOldColor = calculateColor(mAngle);
+		mShowCenterOldColor = true;
+	}
+
+	/**
+	 * Create the paints on the first draw and apply the current colors.
+	 */
+	private void preparePaints() {
+		if (mPointerColor == null) {
+			mPointerHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG
+					| Paint.FILTER_BITMAP_FLAG);
+			mPointerHaloPaint.setColor(Color.BLACK);
+			mPointerHaloPaint.setAlpha(0x50);
 
-		Shader s = new SweepGradient(0, 0, COLORS, null);
+			mPointerColor = new Paint(Paint.ANTI_ALIAS_FLAG
+					| Paint.FILTER_BITMAP_FLAG);
 
-		mColorWheelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mColorWheelPaint.setShader(s);
-		mColorWheelPaint.setStyle(Paint.Style.STROKE);
-		mColorWheelPaint.setStrokeWidth(mColorWheelThickness);
+			mCenterNewPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mCenterNewPaint.setStyle(Paint.Style.FILL);
 
-		mPointerHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mPointerHaloPaint.setColor(Color.BLACK);
-		mPointerHaloPaint.setAlpha(0x50);
+			mCenterOldPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mCenterOldPaint.setStyle(Paint.Style.FILL);
 
-		mPointerColor = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mPointerColor.setColor(calculateColor(mAngle));
+			mCenterHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mCenterHaloPaint.setColor(Color.BLACK);
 
-		mCenterNewPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mCenterNewPaint.setColor(calculateColor(mAngle));
-		mCenterNewPaint.setStyle(Paint.Style.FILL);
+			mSegmentPaint = new Paint();
+		}
 
-		mCenterOldPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mCenterOldPaint.setColor(calculateColor(mAngle));
-		mCenterOldPaint.setStyle(Paint.Style.FILL);
+		mPointerColor.setColor(mColor);
+		mCenterNewPaint.setColor(mCenterNewColor);
+		mCenterOldPaint.setColor(mCenterOldColor);
+		mCenterHaloPaint.setAlpha(mCenterHaloAlpha);
+
+		ColorFilter filter = mColorVisionFilter;
+		mPointerHaloPaint.setColorFilter(filter);
+		mPointerColor.setColorFilter(filter);
+		mCenterNewPaint.setColorFilter(filter);
+		mCenterOldPaint.setColorFilter(filter);
+		mCenterHaloPaint.setColorFilter(filter);
+		mSegmentPaint.setColorFilter(filter);
+	}
 
-		mCenterHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mCenterHaloPaint.setColor(Color.BLACK);
-		mCenterHaloPaint.setAlpha(0x00);
-		
-		mCenterNewColor = calculateColor(mAngle);
-		mCenterOldColor = calculateColor(mAngle);
-		mShowCenterOldColor = true;
+	/**
+	 * @return Whether any of the paints was created, which happens on the
+	 *         first draw.
+	 */
+	boolean hasPaints() {
+		return mPointerColor != null || mColorWheelPaint != null;
+	}
+
+	/**
+	 * Create the paint of the color wheel, the first time the ring is drawn.
+	 */
+	private void prepareColorWheelPaint() {
+		if (mColorWheelPaint == null) {
+			mColorWheelPaint = WheelPainter.createWheelPaint(mColorWheelThickness);
+		}
+		mColorWheelPaint.setColorFilter(mColorVisionFilter);
 	}
 
 	@Override
 	protected void onDraw(Canvas canvas) {
+		Tracer tracer = Tracing.begin(TRACE_DRAW);
+		try {
+			drawPicker(canvas);
+		} finally {
+			Tracing.end(tracer, TRACE_DRAW);
+		}
+	}
+
+	private void drawPicker(Canvas canvas) {
+		preparePaints();
+
 		// All of our positions are using our internal coordinate system.
 		// Instead of translating
 		// them we let Canvas do the work for us.
 		canvas.translate(mTranslationOffset, mTranslationOffset);
 
-		// Draw the color wheel.
-		canvas.drawOval(mColorWheelRectangle, mColorWheelPaint);
+		if (mDiscMode && Rendering.isReferencePath()) {
+			drawReferenceDisc(canvas);
+		} else if (mDiscMode) {
+			// Draw the color disc from its cached bitmap.
+			updateColorDisc();
+			mColorDiscPaint.setColorFilter(mColorVisionFilter);
+			canvas.drawCircle(0, 0, mColorWheelRadius, mColorDiscPaint);
+		} else if (hasSegments() && Rendering.isReferencePath()) {
+			drawSegments(canvas, mColorVisionFilter);
+		} else if (hasSegments()) {
+			// Draw the palette or hue segments from their cached bitmap.
+			updateSegmentBitmap();
+			canvas.drawBitmap(mSegmentBitmap, -mSegmentBitmap.getWidth() / 2f,
+					-mSegmentBitmap.getHeight() / 2f, mSegmentPaint);
+		} else {
+			// Draw the color wheel.
+			prepareColorWheelPaint();
+			canvas.drawOval(mColorWheelRectangle, mColorWheelPaint);
+		}
 
-		float[] pointerPosition = calculatePointerPosition(mAngle);
+		float[] pointerPosition = mPredicting ? mPredictedPointer
+				: calculatePointerPosition(mAngle);
 
-		// Draw the pointer's "halo"
-		canvas.drawCircle(pointerPosition[0], pointerPosition[1],
-				mColorPointerHaloRadius, mPointerHaloPaint);
+		// Draw the pointer's "halo" and the pointer (the currently selected
+		// color) slightly smaller on top.
+		if (mPointerSprite == null) {
+			mPointerSprite = PointerSprite.obtain(mColorPointerHaloRadius,
+					mColorPointerRadius);
+		}
+		mPointerSprite.draw(canvas, pointerPosition[0], pointerPosition[1],
+				mPointerHaloPaint, mPointerColor);
 
-		// Draw the pointer (the currently selected color) slightly smaller on
-		// top.
-		canvas.drawCircle(pointerPosition[0], pointerPosition[1],
-				mColorPointerRadius, mPointerColor);
+		// The disc itself shows the colors around its center.
+		if (mDiscMode) {
+			return;
+		}
 
 		// Draw the halo of the center colors.
 		canvas.drawCircle(0, 0, mColorCenterHaloRadius, mCenterHaloPaint);
-		
-		if (mShowCenterOldColor) {
-			// Draw the old selected color in the center.
-			canvas.drawArc(mCenterRectangle, 90, 180, true, mCenterOldPaint);
 
-			// Draw the new selected color in the center.
-			canvas.drawArc(mCenterRectangle, 270, 180, true, mCenterNewPaint);
-		}
-		else {
-			// Draw the new selected color in the center.
-			canvas.drawArc(mCenterRectangle, 0, 360, true, mCenterNewPaint);
-		}
+		// Draw the new and the old selected color in the center.
+		WheelPainter.drawCenter(canvas, mCenterRectangle, mShowCenterOldColor,
+				mCenterOldPaint, mCenterNewPaint);
 	}
 
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		Tracer tracer = Tracing.begin(TRACE_MEASURE);
+		try {
+			measurePicker(widthMeasureSpec, heightMeasureSpec);
+		} finally {
+			Tracing.end(tracer, TRACE_MEASURE);
+		}
+	}
+
+	private void measurePicker(int widthMeasureSpec, int heightMeasureSpec) {
 		final int intrinsicSize = 2 * (mPreferredColorWheelRadius + mColorPointerHaloRadius);
 
 		int widthMode = MeasureSpec.getMode(widthMeasureSpec);
@@ -450,23 +774,26 @@ public class ColorPicker extends View {
 		mTranslationOffset = min * 0.5f;
 
 		// fill the rectangle instances.
-		mColorWheelRadius = min / 2 - mColorWheelThickness - mColorPointerHaloRadius;
-		mColorWheelRectangle.set(-mColorWheelRadius, -mColorWheelRadius,
-				mColorWheelRadius, mColorWheelRadius);
-
-		mColorCenterRadius = (int) ((float) mPreferredColorCenterRadius * ((float) mColorWheelRadius / (float) mPreferredColorWheelRadius));
-		mColorCenterHaloRadius = (int) ((float) mPreferredColorCenterHaloRadius * ((float) mColorWheelRadius / (float) mPreferredColorWheelRadius));
-		mCenterRectangle.set(-mColorCenterRadius, -mColorCenterRadius,
-				mColorCenterRadius, mColorCenterRadius);
-	}
-
-	private int ave(int s, int d, float p) {
-		return s + Math.round(p * (d - s));
+		mColorWheelRadius = WheelPainter.getWheelRadius(min,
+				mColorWheelThickness, mColorPointerHaloRadius);
+		WheelPainter.setCircle(mColorWheelRectangle, mColorWheelRadius);
+
+		mColorCenterRadius = WheelPainter.scaleRadius(
+				mPreferredColorCenterRadius, mColorWheelRadius,
+				mPreferredColorWheelRadius);
+		mColorCenterHaloRadius = WheelPainter.scaleRadius(
+				mPreferredColorCenterHaloRadius, mColorWheelRadius,
+				mPreferredColorWheelRadius);
+		WheelPainter.setCircle(mCenterRectangle, mColorCenterRadius);
 	}
 
 	/**
 	 * Calculate the color using the supplied angle.
 	 * 
+	 * <p>
+	 * In disc mode the color is desaturated to the selected saturation.
+	 * </p>
+	 * 
 	 * @param angle The selected color's position expressed as angle (in rad).
 	 * 
 	 * @return The ARGB value of the color on the color wheel at the specified
@@ -478,28 +805,11 @@ public class ColorPicker extends View {
 			unit += 1;
 		}
 
-		if (unit <= 0) {
-			mColor = COLORS[0];
-			return COLORS[0];
-		}
-		if (unit >= 1) {
-			mColor = COLORS[COLORS.length - 1];
-			return COLORS[COLORS.length - 1];
+		mColor = ColorMath.interpolate(COLORS, unit);
+		if (mDiscMode) {
+			mColor = ColorMath.saturate(mColor, Math.round(mSaturation * 255));
 		}
-
-		float p = unit * (COLORS.length - 1);
-		int i = (int) p;
-		p -= i;
-
-		int c0 = COLORS[i];
-		int c1 = COLORS[i + 1];
-		int a = ave(Color.alpha(c0), Color.alpha(c1), p);
-		int r = ave(Color.red(c0), Color.red(c1), p);
-		int g = ave(Color.green(c0), Color.green(c1), p);
-		int b = ave(Color.blue(c0), Color.blue(c1), p);
-
-		mColor = Color.argb(a, r, g, b);
-		return Color.argb(a, r, g, b);
+		return mColor;
 	}
 
 	/**
@@ -512,77 +822,258 @@ public class ColorPicker extends View {
 	}
 
 	/**
-	 * Set the color to be highlighted by the pointer. If the
-	 * instances {@code SVBar} and the {@code OpacityBar} aren't null the color
-	 * will also be set to them
+	 * Set the color to be highlighted by the pointer. The pointers of the
+	 * linked controls will also be moved to represent the color.
+	 * 
+	 * <p>
+	 * The wheel shows the hue of the color and every linked control the
+	 * component it controls. With a {@code SaturationBar}, {@code ValueBar}
+	 * and {@code OpacityBar} linked any ARGB color, including shades of grey,
+	 * is represented exactly. A {@code SVBar} can only show the saturation or
+	 * the value, so colors with both below their maximum are approximated.
+	 * </p>
+	 * 
+	 * <p>
+	 * The mapping is backed by the tables of {@link ColorMath} and doesn't
+	 * allocate, so it is cheap to sync many stored colors into the picker.
+	 * </p>
 	 * 
-	 * @param color The RGB value of the color to highlight. If this is not a
-	 *            color displayed on the color wheel a very simple algorithm is
-	 *            used to map it to the color wheel. The resulting color often
-	 *            won't look close to the original color. This is especially
-	 *            true for shades of grey. You have been warned!
+	 * @param color The ARGB value of the color to highlight.
 	 */
 	public void setColor(int color) {
-		mAngle = colorToAngle(color);
-		mPointerColor.setColor(calculateColor(mAngle));
-
-		// check of the instance isn't null
-		if (mOpacityBar != null) {
-			// set the value of the opacity
-			mOpacityBar.setColor(mColor);
-			mOpacityBar.setOpacity(Color.alpha(color));
-		}
-
-		// check if the instance isn't null
-		if (mSVbar != null) {
-			// the array mHSV will be filled with the HSV values of the color.
-			Color.colorToHSV(color, mHSV);
-			mSVbar.setColor(mColor);
-
-			// because of the design of the Saturation/Value bar,
-			// we can only use Saturation or Value every time.
-			// Here will be checked which we shall use.
-			if (mHSV[1] < mHSV[2]) {
-				mSVbar.setSaturation(mHSV[1]);
-			} else if(mHSV[1] > mHSV[2]){
-				mSVbar.setValue(mHSV[2]);
+		ColorMath.colorToHSV(color, mHSV);
+		setColor(color, mHSV);
+	}
+
+	/**
+	 * Set the color with its HSV components, which keep the hue of greys.
+	 */
+	private void setColor(int color, float[] hsv) {
+		mAngle = ColorMath.hueToAngle(hsv[0]);
+		if (isStepped()) {
+			mAngle = snapToStep(mAngle);
+		}
+		if (mDiscMode) {
+			mSaturation = hsv[1];
+		}
+		boolean snapped = snapToPalette();
+		if (!snapped) {
+			calculateColor(mAngle);
+		}
+
+		for (int i = 0; i < mLinkedControls.size(); i++) {
+			mLinkedControls.get(i).setPointerFromColor(color, hsv);
+		}
+		int output = updateLinkedControls(null);
+		// A palette or the hue steps replace the color, report it like
+		// dragging does.
+		setNewCenterColor(snapped || isStepped() ? output : color);
+	}
+
+	/**
+	 * Get the currently selected color with 16 bits per channel.
+	 * 
+	 * <p>
+	 * The hue comes from the exact angle of the pointer and every linked
+	 * {@link PreciseLinkedControl} computes its output without rounding to 8
+	 * bits, so the color is only limited by the resolution of the pointers.
+	 * After {@link #setColor(long)} the color that was set is returned until
+	 * the color changes. Doesn't allocate.
+	 * </p>
+	 * 
+	 * @return The color long, in the color space of the picker.
+	 * 
+	 * @see #setColorSpace(int)
+	 */
+	public long getColorLong() {
+		if (mHasExactColorLong) {
+			return mColorLong;
+		}
+
+		long output;
+		if (mPalette != null) {
+			output = ColorLong.fromArgb(mColor, mColorSpace);
+		} else {
+			float hue = (float) -Math.toDegrees(mAngle) % 360;
+			if (hue < 0) {
+				hue += 360;
 			}
+			output = ColorLong.HSVToColorLong(hue, mDiscMode ? mSaturation
+					: 1f, 1f, 1f, mColorSpace);
 		}
 
-		if (mSaturationBar != null) {
-			Color.colorToHSV(color, mHSV);
-			mSaturationBar.setColor(mColor);
-			mSaturationBar.setSaturation(mHSV[1]);
+		// Run the chain like updateLinkedControls(null) does.
+		long input = output;
+		int current = Integer.MIN_VALUE;
+		for (int i = 0; i < mLinkedControls.size(); i++) {
+			LinkedControl control = mLinkedControls.get(i);
+			if (control.getStage() != current) {
+				current = control.getStage();
+				input = output;
+			}
+			if (control instanceof PreciseLinkedControl) {
+				output = ((PreciseLinkedControl) control).getColorLong(input);
+			} else {
+				output = ColorLong.fromArgb(control.getColor(), mColorSpace);
+			}
 		}
+		return output;
+	}
 
-		if (mValueBar != null && mSaturationBar == null) {
-			Color.colorToHSV(color, mHSV);
-			mValueBar.setColor(mColor);
-			mValueBar.setValue(mHSV[2]);
-		} else if (mValueBar != null) {
-			Color.colorToHSV(color, mHSV);
-			mValueBar.setValue(mHSV[2]);
+	/**
+	 * Set the color with 16 bits per channel. The wheel and the linked
+	 * controls are moved like with {@link #setColor(int)} and
+	 * {@link #getColorLong()} returns {@code color} until the color changes.
+	 * 
+	 * @param color The color long, converted to the color space of the
+	 *            picker.
+	 */
+	public void setColor(long color) {
+		mColorLong = ColorLong.convert(color, mColorSpace);
+		mSettingColorLong = true;
+		try {
+			setColor(ColorLong.toArgb(mColorLong));
+		} finally {
+			mSettingColorLong = false;
 		}
-        setNewCenterColor(color);
 	}
 
 	/**
-	 * Convert a color to an angle.
+	 * Set the color space of the high-precision colors. The wheel and the
+	 * {@code int} colors keep their values, which are interpreted in this
+	 * space; with {@link ColorLong#SPACE_DISPLAY_P3} the red of the wheel is
+	 * the red primary of Display P3.
 	 * 
-	 * @param color The RGB value of the color to "find" on the color wheel.
+	 * @param space One of {@link ColorLong#SPACE_SRGB},
+	 *            {@link ColorLong#SPACE_LINEAR_SRGB} and
+	 *            {@link ColorLong#SPACE_DISPLAY_P3}.
+	 */
+	public void setColorSpace(int space) {
+		ColorLong.checkSpace(space);
+		mColorSpace = space;
+		if (mHasExactColorLong) {
+			mColorLong = ColorLong.convert(mColorLong, space);
+		}
+	}
+
+	public int getColorSpace() {
+		return mColorSpace;
+	}
+
+	/**
+	 * Bind the picker to a {@link ColorModel}, or unbind it with
+	 * {@code null}.
 	 * 
-	 * @return The angle (in rad) the "normalized" color is displayed on the
-	 *         color wheel.
+	 * <p>
+	 * Any thread can write to the model. The picker and its linked controls
+	 * pick up the latest state on the UI thread, intermediate states written
+	 * before that are skipped. Colors picked by the user are written back to
+	 * the model. The picker takes the color of the model right away, so this
+	 * has to be called on the UI thread.
+	 * </p>
+	 * 
+	 * <p>
+	 * The picker only listens to the model while it is attached to a window
+	 * and catches up with the model when it is attached again.
+	 * </p>
+	 * 
+	 * @param model {@code ColorModel} instance.
+	 */
+	public void setColorModel(ColorModel model) {
+		stopListeningToColorModel();
+		mColorModel = model;
+		if (model != null) {
+			mColorModelState = ~model.getState();
+			if (mAttached) {
+				model.addOnModelChangedListener(mColorModelListener);
+			}
+			syncColorModel();
+		}
+	}
+
+	public ColorModel getColorModel() {
+		return mColorModel;
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		mAttached = true;
+		if (mColorModel != null) {
+			mColorModel.addOnModelChangedListener(mColorModelListener);
+			syncColorModel();
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		stopListeningToColorModel();
+		mAttached = false;
+		super.onDetachedFromWindow();
+	}
+
+	private void stopListeningToColorModel() {
+		if (mColorModel != null) {
+			mColorModel.removeOnModelChangedListener(mColorModelListener);
+		}
+		mHandler.removeCallbacks(mColorModelSync);
+		mColorModelSyncPending.set(false);
+	}
+
+	/**
+	 * Show the latest state of the model if it changed since the last sync.
+	 */
+	private void syncColorModel() {
+		if (mColorModel == null) {
+			return;
+		}
+		long state = mColorModel.getState();
+		if (state == mColorModelState) {
+			return;
+		}
+
+		Tracer tracer = Tracing.begin(TRACE_MODEL_SYNC);
+		mColorModelState = state;
+		mSyncingColorModel = true;
+		try {
+			ColorModel.getHSV(state, mHSV);
+			setColor(ColorModel.getColor(state), mHSV);
+		} finally {
+			mSyncingColorModel = false;
+			Tracing.end(tracer, TRACE_MODEL_SYNC);
+		}
+	}
+
+	/**
+	 * Write a color the user picked to the model. The hue of greys is taken
+	 * from the wheel.
 	 */
-	private float colorToAngle(int color) {
-		float[] colors = new float[3];
-		Color.colorToHSV(color, colors);
-		
-		return (float) Math.toRadians(-colors[0]);
+	private void writeColorModel(int color) {
+		int max = Math.max(Color.red(color),
+				Math.max(Color.green(color), Color.blue(color)));
+		int min = Math.min(Color.red(color),
+				Math.min(Color.green(color), Color.blue(color)));
+		float hue;
+		if (max == min) {
+			hue = (float) -Math.toDegrees(mAngle);
+		} else {
+			hue = ColorMath.colorToHue(color);
+		}
+		mColorModelState = mColorModel.setHSV(Color.alpha(color), hue,
+				max == 0 ? 0 : (float) (max - min) / max, max / 255f);
 	}
 
 	@Override
 	public boolean onTouchEvent(MotionEvent event) {
+		Tracer tracer = Tracing.begin(TRACE_TOUCH);
+		try {
+			return handleTouchEvent(event);
+		} finally {
+			Tracing.end(tracer, TRACE_TOUCH);
+		}
+	}
+
+	private boolean handleTouchEvent(MotionEvent event) {
 		getParent().requestDisallowInterceptTouchEvent(true);
 
 		// Convert coordinates to our internal coordinate system
@@ -591,6 +1082,8 @@ public class ColorPicker extends View {
 
 		switch (event.getAction()) {
 		case MotionEvent.ACTION_DOWN:
+			mTouchHysteresis.reset();
+			mTouchPredictor.reset();
 			// Check whether the user pressed on the pointer.
 			float[] pointerPosition = calculatePointerPosition(mAngle);
 			if (x >= (pointerPosition[0] - mColorPointerHaloRadius)
@@ -600,13 +1093,31 @@ public class ColorPicker extends View {
 				mSlopX = x - pointerPosition[0];
 				mSlopY = y - pointerPosition[1];
 				mUserIsMovingPointer = true;
+				mTouchHysteresis.set(pointerPosition[0], pointerPosition[1]);
+				mTouchPredictor.add(event, -mTranslationOffset - mSlopX,
+						-mTranslationOffset - mSlopY);
 				invalidate();
 			}
+			// Check whether the user pressed anywhere on the disc.
+			else if (mDiscMode) {
+				float maxRadius = mColorWheelRadius + mColorPointerHaloRadius;
+				if (x * x + y * y > maxRadius * maxRadius) {
+					getParent().requestDisallowInterceptTouchEvent(false);
+					return false;
+				}
+				mSlopX = 0;
+				mSlopY = 0;
+				mUserIsMovingPointer = true;
+				mTouchHysteresis.set(x, y);
+				mTouchPredictor.add(event, -mTranslationOffset,
+						-mTranslationOffset);
+				moveDiscPointer(x, y);
+			}
 			// Check whether the user pressed on the center.
 			else if (x >= -mColorCenterRadius && x <= mColorCenterRadius
 					&& y >= -mColorCenterRadius && y <= mColorCenterRadius
 					&& mShowCenterOldColor) {
-				mCenterHaloPaint.setAlpha(0x50);
+				mCenterHaloAlpha = 0x50;
 				setColor(getOldCenterColor());
 				invalidate();
 			}
@@ -625,27 +1136,43 @@ public class ColorPicker extends View {
 			break;
 		case MotionEvent.ACTION_MOVE:
 			if (mUserIsMovingPointer) {
+				mTouchPredictor.add(event, -mTranslationOffset - mSlopX,
+						-mTranslationOffset - mSlopY);
+			}
+			if (mUserIsMovingPointer
+					&& !mTouchHysteresis.accept(x - mSlopX, y - mSlopY)) {
+				// Jitter, absorbed before any color is computed.
+				clearPrediction();
+				break;
+			}
+			if (mUserIsMovingPointer && mDiscMode) {
+				moveDiscPointer(x - mSlopX, y - mSlopY);
+			}
+			else if (mUserIsMovingPointer && mPalette != null) {
+				// Snap to the nearest color of the palette.
 				mAngle = (float) Math.atan2(y - mSlopY, x - mSlopX);
-				mPointerColor.setColor(calculateColor(mAngle));
-
-				setNewCenterColor(mCenterNewColor = calculateColor(mAngle));
-				
-				if (mOpacityBar != null) {
-					mOpacityBar.setColor(mColor);
-				}
-
-				if (mValueBar != null) {
-					mValueBar.setColor(mColor);
-				}
-
-				if (mSaturationBar != null) {
-					mSaturationBar.setColor(mColor);
-				}
+				snapToPalette();
 
-				if (mSVbar != null) {
-					mSVbar.setColor(mColor);
+				setNewCenterColor(updateLinkedControls(null));
+				invalidate();
+			}
+			else if (mUserIsMovingPointer && isStepped()) {
+				// Only a change of segment changes the color.
+				int step = stepAt((float) Math.atan2(y - mSlopY, x - mSlopX));
+				if (step != mHueStep) {
+					mHueStep = step;
+					mAngle = (float) (2 * Math.PI * step / mHueSteps);
+					calculateColor(mAngle);
+
+					setNewCenterColor(updateLinkedControls(null));
+					invalidate();
 				}
+			}
+			else if (mUserIsMovingPointer) {
+				mAngle = (float) Math.atan2(y - mSlopY, x - mSlopX);
+				calculateColor(mAngle);
 
+				setNewCenterColor(updateLinkedControls(null));
 				invalidate();
 			}
 			// If user did not press pointer or center, report event not handled
@@ -653,28 +1180,100 @@ public class ColorPicker extends View {
 				getParent().requestDisallowInterceptTouchEvent(false);
 				return false;
 			}
+			updatePrediction();
 			break;
 		case MotionEvent.ACTION_UP:
 			mUserIsMovingPointer = false;
-			mCenterHaloPaint.setAlpha(0x00);
+			mCenterHaloAlpha = 0x00;
+			mPredicting = false;
 			
 			if (onColorSelectedListener != null && mCenterNewColor != oldSelectedListenerColor) {
-				onColorSelectedListener.onColorSelected(mCenterNewColor);
+				Tracer listenerTracer = Tracing.begin(TRACE_COLOR_SELECTED);
+				try {
+					onColorSelectedListener.onColorSelected(mCenterNewColor);
+				} finally {
+					Tracing.end(listenerTracer, TRACE_COLOR_SELECTED);
+				}
 				oldSelectedListenerColor = mCenterNewColor;
 			}
+			notifyColorLongSelected();
 
 			invalidate();
 			break;
 		case MotionEvent.ACTION_CANCEL:
+			clearPrediction();
 			if (onColorSelectedListener != null && mCenterNewColor != oldSelectedListenerColor) {
-				onColorSelectedListener.onColorSelected(mCenterNewColor);
+				Tracer listenerTracer = Tracing.begin(TRACE_COLOR_SELECTED);
+				try {
+					onColorSelectedListener.onColorSelected(mCenterNewColor);
+				} finally {
+					Tracing.end(listenerTracer, TRACE_COLOR_SELECTED);
+				}
 				oldSelectedListenerColor = mCenterNewColor;
 			}
+			notifyColorLongSelected();
 			break;
 		}
 		return true;
 	}
 
+	/**
+	 * Extrapolate the drag from the committed samples. Only the position of
+	 * the pointer is predicted, its color and the listeners follow the
+	 * committed samples.
+	 */
+	private void updatePrediction() {
+		// Snapping to palette colors or hue steps would make the predicted
+		// pointer jump ahead of the color.
+		if (mPalette != null || isStepped()
+				|| !mTouchPredictor.predict(mPredictedPointer)) {
+			clearPrediction();
+			return;
+		}
+
+		float x = mPredictedPointer[0];
+		float y = mPredictedPointer[1];
+		float distance = (float) Math.sqrt(x * x + y * y);
+		if (!mDiscMode || distance > mColorWheelRadius) {
+			// Keep the pointer on the ring, or inside the disc.
+			float angle = (float) Math.atan2(y, x);
+			mPredictedPointer[0] = (float) (mColorWheelRadius * Math.cos(angle));
+			mPredictedPointer[1] = (float) (mColorWheelRadius * Math.sin(angle));
+		}
+		mPredicting = true;
+		invalidate();
+	}
+
+	/**
+	 * Draw the pointer at its committed position again.
+	 */
+	private void clearPrediction() {
+		if (mPredicting) {
+			mPredicting = false;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Report the selected color long if it differs from the last one
+	 * reported.
+	 */
+	private void notifyColorLongSelected() {
+		if (onColorLongSelectedListener == null) {
+			return;
+		}
+		long color = getColorLong();
+		if (color != oldSelectedListenerColorLong) {
+			Tracer tracer = Tracing.begin(TRACE_COLOR_LONG_SELECTED);
+			try {
+				onColorLongSelectedListener.onColorLongSelected(color);
+			} finally {
+				Tracing.end(tracer, TRACE_COLOR_LONG_SELECTED);
+			}
+			oldSelectedListenerColorLong = color;
+		}
+	}
+
 	/**
 	 * Calculate the pointer's coordinates on the color wheel using the supplied
 	 * angle.
@@ -685,22 +1284,314 @@ public class ColorPicker extends View {
 	 *         coordinate system.
 	 */
 	private float[] calculatePointerPosition(float angle) {
-		float x = (float) (mColorWheelRadius * Math.cos(angle));
-		float y = (float) (mColorWheelRadius * Math.sin(angle));
+		float radius = mDiscMode ? mColorWheelRadius * mSaturation
+				: mColorWheelRadius;
+		float x = (float) (radius * Math.cos(angle));
+		float y = (float) (radius * Math.sin(angle));
 
 		return new float[] { x, y };
 	}
 
+	/**
+	 * Move the pointer on the disc to the supplied point using the polar
+	 * lookup grid of the disc.
+	 * 
+	 * @param x X-coordinate in our internal coordinate system.
+	 * @param y Y-coordinate in our internal coordinate system.
+	 */
+	private void moveDiscPointer(float x, float y) {
+		updateColorDisc();
+		int polar = mColorDisc.polarAt(x, y);
+		mAngle = ColorDisc.angleForPolar(polar);
+		mSaturation = ColorDisc.saturationForPolar(polar);
+		mColor = mColorDisc.colorForPolar(polar);
+
+		setNewCenterColor(updateLinkedControls(null));
+		invalidate();
+	}
+
+	/**
+	 * (Re)build the disc for the current size if needed.
+	 */
+	private void updateColorDisc() {
+		if (mColorDisc == null) {
+			mColorDisc = new ColorDisc(COLORS);
+			mColorDiscPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		}
+
+		Bitmap previous = mColorDisc.getBitmap();
+		mColorDisc.setSize(mColorWheelRadius);
+		Bitmap bitmap = mColorDisc.getBitmap();
+		if (bitmap != null && bitmap != previous) {
+			BitmapShader shader = new BitmapShader(bitmap,
+					Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+			Matrix matrix = new Matrix();
+			matrix.setTranslate(-mColorDisc.getRadius() - 1,
+					-mColorDisc.getRadius() - 1);
+			shader.setLocalMatrix(matrix);
+			mColorDiscPaint.setShader(shader);
+		}
+	}
+
+	/**
+	 * Render the ring with its palette or hue segments if the cached bitmap is
+	 * missing or outdated.
+	 */
+	private void updateSegmentBitmap() {
+		int radius = mColorWheelRadius + mColorWheelThickness;
+		if (mSegmentBitmap != null && mSegmentBitmapRadius == radius) {
+			return;
+		}
+
+		if (mSegmentBitmap != null) {
+			mSegmentBitmap.recycle();
+		}
+		mSegmentBitmap = Bitmap.createBitmap(2 * radius, 2 * radius,
+				Bitmap.Config.ARGB_8888);
+		mSegmentBitmapRadius = radius;
+
+		Canvas canvas = new Canvas(mSegmentBitmap);
+		canvas.translate(radius, radius);
+		drawSegments(canvas, null);
+	}
+
+	/**
+	 * Drop the cached segments, they are rendered again on the next draw.
+	 */
+	private void clearSegmentBitmap() {
+		if (mSegmentBitmap != null) {
+			mSegmentBitmap.recycle();
+			mSegmentBitmap = null;
+		}
+	}
+
+	/**
+	 * Draw a segment of the ring for every palette entry, reaching halfway to
+	 * its neighbours, or for every hue step, centered on the origin.
+	 * 
+	 * @param filter The color filter of the segments, {@code null} for the
+	 *            cached bitmap which is filtered when it is drawn.
+	 */
+	private void drawSegments(Canvas canvas, ColorFilter filter) {
+		Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setColorFilter(filter);
+		paint.setStyle(Paint.Style.STROKE);
+		paint.setStrokeWidth(mColorWheelThickness);
+
+		if (mPalette == null) {
+			// Segment i is centered on the wheel color at i / steps.
+			float sweep = 360f / mHueSteps;
+			for (int i = 0; i < mHueSteps; i++) {
+				paint.setColor(ColorMath.interpolate(COLORS, (float) i
+						/ mHueSteps));
+				canvas.drawArc(mColorWheelRectangle, (i - 0.5f) * sweep,
+						sweep, false, paint);
+			}
+			return;
+		}
+
+		int size = mPalette.size();
+		float lower = mPalette.getUpperBound(size - 1) - 1;
+		for (int i = 0; i < size; i++) {
+			float upper = mPalette.getUpperBound(i);
+			paint.setColor(mPalette.getColor(i));
+			canvas.drawArc(mColorWheelRectangle, lower * 360,
+					(upper - lower) * 360, false, paint);
+			lower = upper;
+		}
+	}
+
+	/**
+	 * Draw the color disc without its cache, as a sweep of the wheel colors
+	 * faded to white towards the center. Used on the
+	 * {@link Rendering#isReferencePath() reference path}.
+	 */
+	private void drawReferenceDisc(Canvas canvas) {
+		Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setColorFilter(mColorVisionFilter);
+		paint.setShader(new SweepGradient(0, 0, COLORS, null));
+		canvas.drawCircle(0, 0, mColorWheelRadius, paint);
+		paint.setShader(new RadialGradient(0, 0, mColorWheelRadius,
+				Color.WHITE, 0x00FFFFFF, Shader.TileMode.CLAMP));
+		canvas.drawCircle(0, 0, mColorWheelRadius, paint);
+	}
+
+	/**
+	 * Make the wheel snap to the supplied colors. Each color sits at the
+	 * angle of its hue and dragging the pointer, {@link #setColor(int)} and
+	 * restoring the saved state select the nearest one. The ring shows the
+	 * palette instead of the continuous gradient. Only used in ring mode, see
+	 * {@link #setDiscMode(boolean)}.
+	 * 
+	 * <p>
+	 * Because colors are placed by hue, colors sharing a hue can't be told
+	 * apart on the ring: only the one closest to the wheel color at that hue
+	 * is kept, so tints and shades of one hue need a palette per shade.
+	 * Linked controls apply their own saturation, value or opacity to the
+	 * selected entry, so {@link #getColor()} only returns palette colors
+	 * when no such control is linked.
+	 * </p>
+	 * 
+	 * @param colors The ARGB values of the palette, {@code null} or empty for
+	 *            the continuous wheel.
+	 */
+	public void setPalette(int[] colors) {
+		mPalette = colors == null || colors.length == 0 ? null
+				: new ColorPalette(colors, COLORS);
+		clearSegmentBitmap();
+		if (!snapToPalette()) {
+			calculateColor(mAngle);
+		}
+		setNewCenterColor(updateLinkedControls(null));
+	}
+
+	/**
+	 * Checks if the wheel snaps to a palette.
+	 * 
+	 * @return true or false.
+	 */
+	public boolean hasPalette() {
+		return mPalette != null;
+	}
+
+	/**
+	 * Preview the picker as seen with a color vision deficiency. The
+	 * simulation is applied as a color filter while drawing, the colors
+	 * reported by the picker are not changed.
+	 * 
+	 * @param mode One of {@link ColorVision#MODE_NONE},
+	 *            {@link ColorVision#MODE_PROTANOPIA},
+	 *            {@link ColorVision#MODE_DEUTERANOPIA} and
+	 *            {@link ColorVision#MODE_TRITANOPIA}.
+	 */
+	public void setColorVisionMode(int mode) {
+		mColorVisionFilter = ColorVision.getColorFilter(mode);
+		mColorVisionMode = mode;
+		invalidate();
+	}
+
+	public int getColorVisionMode() {
+		return mColorVisionMode;
+	}
+
+	/**
+	 * Split the ring into discrete hue segments. Each segment shows the wheel
+	 * color at its center and dragging the pointer moves it from segment to
+	 * segment, so listeners only see a new color when the segment changes.
+	 * The segments are rendered once into a cached bitmap. Only used in ring
+	 * mode without a palette.
+	 * 
+	 * @param steps The number of segments, e.g. 12, 24 or 72. 0 for the
+	 *            continuous wheel.
+	 */
+	public void setHueSteps(int steps) {
+		if (steps < 0) {
+			throw new IllegalArgumentException("steps < 0");
+		}
+		if (mHueSteps == steps) {
+			return;
+		}
+		mHueSteps = steps;
+		clearSegmentBitmap();
+		if (isStepped()) {
+			mAngle = snapToStep(mAngle);
+		}
+		if (!snapToPalette()) {
+			calculateColor(mAngle);
+		}
+		setNewCenterColor(updateLinkedControls(null));
+	}
+
+	public int getHueSteps() {
+		return mHueSteps;
+	}
+
+	/**
+	 * Whether the ring is drawn with segments instead of the gradient.
+	 */
+	private boolean hasSegments() {
+		return mPalette != null || mHueSteps > 0;
+	}
+
+	/**
+	 * Move the pointer to the palette entry nearest to its angle and take
+	 * the color of the entry.
+	 * 
+	 * @return {@code false} if the wheel doesn't snap to a palette.
+	 */
+	private boolean snapToPalette() {
+		if (mPalette == null || mDiscMode) {
+			return false;
+		}
+		int index = mPalette.nearest(mAngle);
+		mAngle = mPalette.getAngle(index);
+		mColor = mPalette.getColor(index);
+		return true;
+	}
+
+	/**
+	 * Whether the pointer moves in hue steps.
+	 */
+	private boolean isStepped() {
+		return mHueSteps > 0 && mPalette == null && !mDiscMode;
+	}
+
+	/**
+	 * Get the hue segment an angle falls in.
+	 * 
+	 * @param angle The angle (in rad), any range.
+	 * 
+	 * @return The index of the segment, between 0 and the number of steps.
+	 */
+	private int stepAt(float angle) {
+		float unit = (float) (angle / (2 * Math.PI));
+		int step = Math.round(unit * mHueSteps) % mHueSteps;
+		return step < 0 ? step + mHueSteps : step;
+	}
+
+	/**
+	 * Move an angle to the center of its hue segment and remember the
+	 * segment.
+	 */
+	private float snapToStep(float angle) {
+		mHueStep = stepAt(angle);
+		return (float) (2 * Math.PI * mHueStep / mHueSteps);
+	}
+
+	/**
+	 * Set whether the wheel is drawn as a full disc. In disc mode the hue
+	 * varies with the angle and the saturation with the distance to the
+	 * center, so a {@code SaturationBar} should not be linked. The center
+	 * colors are not drawn over the disc but keep being tracked.
+	 * 
+	 * @param discMode true for a disc, false for the default ring.
+	 */
+	public void setDiscMode(boolean discMode) {
+		if (mDiscMode == discMode) {
+			return;
+		}
+		mDiscMode = discMode;
+		mSaturation = 1f;
+		if (isStepped()) {
+			mAngle = snapToStep(mAngle);
+		}
+		if (!snapToPalette()) {
+			calculateColor(mAngle);
+		}
+		setNewCenterColor(updateLinkedControls(null));
+	}
+
+	public boolean isDiscMode() {
+		return mDiscMode;
+	}
+
 	/**
 	 * Add a Saturation/Value bar to the color wheel.
 	 * 
 	 * @param bar The instance of the Saturation/Value bar.
 	 */
 	public void addSVBar(SVBar bar) {
-		mSVbar = bar;
-		// Give an instance of the color picker to the Saturation/Value bar.
-		mSVbar.setColorPicker(this);
-		mSVbar.setColor(mColor);
+		addLinkedControl(bar);
 	}
 
 	/**
@@ -709,22 +1600,101 @@ public class ColorPicker extends View {
 	 * @param bar The instance of the Opacity bar.
 	 */
 	public void addOpacityBar(OpacityBar bar) {
-		mOpacityBar = bar;
-		// Give an instance of the color picker to the Opacity bar.
-		mOpacityBar.setColorPicker(this);
-		mOpacityBar.setColor(mColor);
+		addLinkedControl(bar);
 	}
 
 	public void addSaturationBar(SaturationBar bar) {
-		mSaturationBar = bar;
-		mSaturationBar.setColorPicker(this);
-		mSaturationBar.setColor(mColor);
+		addLinkedControl(bar);
 	}
 
 	public void addValueBar(ValueBar bar) {
-		mValueBar = bar;
-		mValueBar.setColorPicker(this);
-		mValueBar.setColor(mColor);
+		addLinkedControl(bar);
+	}
+
+	/**
+	 * Link a control to the color wheel. The control is inserted in the chain
+	 * after all controls with a lower or equal stage.
+	 * 
+	 * @param control The instance of the control.
+	 */
+	public void addLinkedControl(LinkedControl control) {
+		if (mLinkedControls.contains(control)) {
+			return;
+		}
+
+		int index = mLinkedControls.size();
+		while (index > 0
+				&& mLinkedControls.get(index - 1).getStage() > control.getStage()) {
+			index--;
+		}
+		mLinkedControls.add(index, control);
+		// Give an instance of the color picker to the control.
+		control.setColorPicker(this);
+		setNewCenterColor(updateLinkedControls(null));
+	}
+
+	/**
+	 * Unlink a control from the color wheel.
+	 * 
+	 * @param control The instance of the control.
+	 */
+	public void removeLinkedControl(LinkedControl control) {
+		if (mLinkedControls.remove(control)) {
+			control.setColorPicker(null);
+			setNewCenterColor(updateLinkedControls(null));
+		}
+	}
+
+	/**
+	 * Called by a linked control when the user changed it. Every control with
+	 * a higher stage is recomputed once, in order, and the result becomes the
+	 * new center color.
+	 * 
+	 * @param control The control that changed.
+	 */
+	public void onLinkedControlChanged(LinkedControl control) {
+		setNewCenterColor(updateLinkedControls(control));
+	}
+
+	/**
+	 * Propagate a change through the linked controls following
+	 * {@code source}.
+	 * 
+	 * @param source The control that changed, {@code null} for the wheel.
+	 * 
+	 * @return The ARGB value of the output of the last stage.
+	 */
+	private int updateLinkedControls(LinkedControl source) {
+		int output = source == null ? mColor : source.getColor();
+		int input = output;
+		int stage = source == null ? Integer.MIN_VALUE : source.getStage();
+		int current = stage;
+
+		for (int i = 0; i < mLinkedControls.size(); i++) {
+			LinkedControl control = mLinkedControls.get(i);
+			if (control.getStage() <= stage) {
+				continue;
+			}
+			if (control.getStage() != current) {
+				// Controls sharing a stage receive the same input.
+				current = control.getStage();
+				input = output;
+			}
+			output = control.onInputColorChanged(input);
+		}
+		return output;
+	}
+
+	/**
+	 * Find the first linked control of the given type.
+	 */
+	private LinkedControl findLinkedControl(Class<? extends LinkedControl> type) {
+		for (int i = 0; i < mLinkedControls.size(); i++) {
+			if (type.isInstance(mLinkedControls.get(i))) {
+				return mLinkedControls.get(i);
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -734,15 +1704,35 @@ public class ColorPicker extends View {
 	 */
 	public void setNewCenterColor(int color) {
 		mCenterNewColor = color;
-		mCenterNewPaint.setColor(color);
+		mHasExactColorLong = mSettingColorLong
+				&& color == ColorLong.toArgb(mColorLong);
 		if (mCenterOldColor == 0) {
 			mCenterOldColor = color;
-			mCenterOldPaint.setColor(color);
+		}
+		if (mColorModel != null && !mSyncingColorModel) {
+			writeColorModel(color);
 		}
 		if (onColorChangedListener != null && color != oldChangedListenerColor ) {
-			onColorChangedListener.onColorChanged(color);
+			Tracer tracer = Tracing.begin(TRACE_COLOR_CHANGED);
+			try {
+				onColorChangedListener.onColorChanged(color);
+			} finally {
+				Tracing.end(tracer, TRACE_COLOR_CHANGED);
+			}
 			oldChangedListenerColor  = color;
 		}
+		if (onColorLongChangedListener != null) {
+			long colorLong = getColorLong();
+			if (colorLong != oldChangedListenerColorLong) {
+				Tracer tracer = Tracing.begin(TRACE_COLOR_LONG_CHANGED);
+				try {
+					onColorLongChangedListener.onColorLongChanged(colorLong);
+				} finally {
+					Tracing.end(tracer, TRACE_COLOR_LONG_CHANGED);
+				}
+				oldChangedListenerColorLong = colorLong;
+			}
+		}
 		invalidate();
 	}
 
@@ -753,7 +1743,6 @@ public class ColorPicker extends View {
 	 */
 	public void setOldCenterColor(int color) {
 		mCenterOldColor = color;
-		mCenterOldPaint.setColor(color);
 		invalidate();
 	}
 
@@ -780,11 +1769,13 @@ public class ColorPicker extends View {
 	 * {@code SVBar} if there is an change in color.
 	 * 
 	 * @param color int of the color used to change the opacity bar color.
+	 * 
+	 * @deprecated Linked controls propagate their changes through
+	 *             {@link #onLinkedControlChanged(LinkedControl)}.
 	 */
+	@Deprecated
 	public void changeOpacityBarColor(int color) {
-		if (mOpacityBar != null) {
-			mOpacityBar.setColor(color);
-		}
+		changeLinkedControlsColor(OpacityBar.class, color);
 	}
 
 	/**
@@ -792,21 +1783,34 @@ public class ColorPicker extends View {
 	 * 
 	 * @param color
 	 *            int of the color used to change the opacity bar color.
+	 * 
+	 * @deprecated Linked controls propagate their changes through
+	 *             {@link #onLinkedControlChanged(LinkedControl)}.
 	 */
+	@Deprecated
 	public void changeSaturationBarColor(int color) {
-		if (mSaturationBar != null) {
-			mSaturationBar.setColor(color);
-		}
+		changeLinkedControlsColor(SaturationBar.class, color);
 	}
 
 	/**
 	 * Used to change the color of the {@code ValueBar}.
 	 * 
 	 * @param color int of the color used to change the opacity bar color.
+	 * 
+	 * @deprecated Linked controls propagate their changes through
+	 *             {@link #onLinkedControlChanged(LinkedControl)}.
 	 */
+	@Deprecated
 	public void changeValueBarColor(int color) {
-		if (mValueBar != null) {
-			mValueBar.setColor(color);
+		changeLinkedControlsColor(ValueBar.class, color);
+	}
+
+	private void changeLinkedControlsColor(
+			Class<? extends LinkedControl> type, int color) {
+		for (int i = 0; i < mLinkedControls.size(); i++) {
+			if (type.isInstance(mLinkedControls.get(i))) {
+				mLinkedControls.get(i).onInputColorChanged(color);
+			}
 		}
 	}
 	
@@ -816,7 +1820,7 @@ public class ColorPicker extends View {
 	 * @return true or false.
 	 */
 	public boolean hasOpacityBar(){
-		return mOpacityBar != null;
+		return findLinkedControl(OpacityBar.class) != null;
 	}
 	
 	/**
@@ -825,7 +1829,7 @@ public class ColorPicker extends View {
 	 * @return true or false.
 	 */
 	public boolean hasValueBar(){
-		return mValueBar != null;
+		return findLinkedControl(ValueBar.class) != null;
 	}
 	
 	/**
@@ -834,7 +1838,7 @@ public class ColorPicker extends View {
 	 * @return true or false.
 	 */
 	public boolean hasSaturationBar(){
-		return mSaturationBar != null;
+		return findLinkedControl(SaturationBar.class) != null;
 	}
 	
 	/**
@@ -843,7 +1847,7 @@ public class ColorPicker extends View {
 	 * @return true or false.
 	 */
 	public boolean hasSVBar(){
-		return mSVbar != null;
+		return findLinkedControl(SVBar.class) != null;
 	}
 
 	@Override
@@ -855,6 +1859,7 @@ public class ColorPicker extends View {
 		state.putFloat(STATE_ANGLE, mAngle);
 		state.putInt(STATE_OLD_COLOR, mCenterOldColor);
 		state.putBoolean(STATE_SHOW_OLD_COLOR, mShowCenterOldColor);
+		state.putFloat(STATE_SATURATION, mSaturation);
 
 		return state;
 	}
@@ -869,9 +1874,14 @@ public class ColorPicker extends View {
 		mAngle = savedState.getFloat(STATE_ANGLE);
 		setOldCenterColor(savedState.getInt(STATE_OLD_COLOR));
 		mShowCenterOldColor = savedState.getBoolean(STATE_SHOW_OLD_COLOR);
-		int currentColor = calculateColor(mAngle);
-		mPointerColor.setColor(currentColor);
-		setNewCenterColor(currentColor);
+		mSaturation = savedState.getFloat(STATE_SATURATION, 1f);
+		if (isStepped()) {
+			mAngle = snapToStep(mAngle);
+		}
+		if (!snapToPalette()) {
+			calculateColor(mAngle);
+		}
+		setNewCenterColor(updateLinkedControls(null));
 	}
 
         public void setTouchAnywhereOnColorWheelEnabled(boolean TouchAnywhereOnColorWheelEnabled){
@@ -881,4 +1891,43 @@ public class ColorPicker extends View {
         public boolean getTouchAnywhereOnColorWheel(){
                 return mTouchAnywhereOnColorWheelEnabled;
         }
+
+	/**
+	 * Set the touch hysteresis. While dragging, the pointer only follows
+	 * the finger once it moved more than this distance from where the
+	 * pointer last followed it, so the jitter of a held finger doesn't
+	 * recompute the color, the linked controls and the listeners. With 0,
+	 * the default, only moves to the same position are ignored.
+	 * 
+	 * @param pixels The distance in pixels.
+	 */
+	public void setTouchHysteresis(float pixels) {
+		mTouchHysteresis.setThreshold(pixels);
+	}
+
+	public float getTouchHysteresis() {
+		return mTouchHysteresis.getThreshold();
+	}
+
+	/**
+	 * Set the touch prediction. While dragging, the pointer is drawn where
+	 * the finger is expected to be this far ahead, extrapolated from its
+	 * recent velocity, which hides part of the input and display latency.
+	 * Every real sample replaces the prediction. The color, the linked
+	 * controls and the listeners only ever follow the real samples. Not used
+	 * with a palette or hue steps.
+	 * 
+	 * @param millis How far ahead to predict, 0 (the default) disables the
+	 *            prediction.
+	 */
+	public void setTouchPrediction(int millis) {
+		mTouchPredictor.setHorizon(millis);
+		if (millis == 0) {
+			clearPrediction();
+		}
+	}
+
+	public int getTouchPrediction() {
+		return mTouchPredictor.getHorizon();
+	}
 }
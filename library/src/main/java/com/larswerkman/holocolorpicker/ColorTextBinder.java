@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.EditText;
+import android.widget.TextView;
+
+/**
+ * Binds a text field to a {@link ColorPicker} in both directions.
+ *
+ * <p>
+ * Colors picked on the wheel are written to the field and valid colors typed
+ * into the field are set on the picker. Text is parsed and formatted by a
+ * {@link ColorFormat}, so neither direction allocates strings. Changes caused
+ * by the binder itself are not fed back, and the field is left alone while
+ * its text already shows the picked color.
+ * </p>
+ *
+ * <p>
+ * The binder becomes the {@code OnColorChangedListener} of the picker and
+ * forwards every color to the listener that was set before.
+ * </p>
+ */
+public class ColorTextBinder implements TextWatcher,
+		ColorPicker.OnColorChangedListener {
+
+	private final ColorPicker mPicker;
+
+	private final TextView mTextView;
+
+	/**
+	 * The listener of the picker before it was bound.
+	 */
+	private final ColorPicker.OnColorChangedListener mListener;
+
+	private final ColorFormat mFormat = new ColorFormat();
+
+	/**
+	 * The style colors are written in, see {@link ColorFormat}.
+	 */
+	private int mStyle = ColorFormat.STYLE_HEX;
+
+	/**
+	 * {@code true} while the binder itself updates the picker or the field.
+	 */
+	private boolean mUpdating;
+
+	/**
+	 * Bind a text field to a picker and fill it with the current color.
+	 *
+	 * @param picker {@code ColorPicker} instance.
+	 * @param textView {@code TextView} instance, usually an {@code EditText}.
+	 */
+	public ColorTextBinder(ColorPicker picker, TextView textView) {
+		mPicker = picker;
+		mTextView = textView;
+		mListener = picker.getOnColorChangedListener();
+
+		picker.setOnColorChangedListener(this);
+		textView.addTextChangedListener(this);
+		writeColor(picker.getColor());
+	}
+
+	/**
+	 * Release the text field and restore the previous listener of the picker.
+	 */
+	public void unbind() {
+		mTextView.removeTextChangedListener(this);
+		if (mPicker.getOnColorChangedListener() == this) {
+			mPicker.setOnColorChangedListener(mListener);
+		}
+	}
+
+	/**
+	 * Set the style colors are written in.
+	 *
+	 * @param style One of {@link ColorFormat#STYLE_HEX},
+	 *            {@link ColorFormat#STYLE_RGB} and
+	 *            {@link ColorFormat#STYLE_HSL}.
+	 */
+	public void setStyle(int style) {
+		mStyle = style;
+		writeColor(mPicker.getColor());
+	}
+
+	public int getStyle() {
+		return mStyle;
+	}
+
+	@Override
+	public void onColorChanged(int color) {
+		if (!mUpdating) {
+			writeColor(color);
+		}
+		if (mListener != null) {
+			mListener.onColorChanged(color);
+		}
+	}
+
+	@Override
+	public void beforeTextChanged(CharSequence s, int start, int count,
+			int after) {
+	}
+
+	@Override
+	public void onTextChanged(CharSequence s, int start, int before, int count) {
+	}
+
+	@Override
+	public void afterTextChanged(Editable s) {
+		if (mUpdating || !mFormat.parse(s)) {
+			return;
+		}
+
+		int color = mFormat.getColor();
+		if (color != mPicker.getColor()) {
+			mUpdating = true;
+			try {
+				mPicker.setColor(color);
+			} finally {
+				mUpdating = false;
+			}
+		}
+	}
+
+	private void writeColor(int color) {
+		int length = mFormat.format(color, mStyle);
+		if (mFormat.contentEquals(mTextView.getText(), length)) {
+			return;
+		}
+
+		mUpdating = true;
+		try {
+			mTextView.setText(mFormat.getBuffer(), 0, length);
+			if (mTextView instanceof EditText) {
+				((EditText) mTextView).setSelection(length);
+			}
+		} finally {
+			mUpdating = false;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import android.graphics.ColorFilter;
+import android.graphics.ColorMatrixColorFilter;
+
+/**
+ * Simulation of color vision deficiencies, to preview how the picker and the
+ * bars look to people with protanopia, deuteranopia or tritanopia.
+ *
+ * <p>
+ * Each deficiency is a 3x3 matrix (Machado, Oliveira and Fernandes 2009,
+ * full severity) applied to the red, green and blue values. Views apply it
+ * as a {@code ColorMatrixColorFilter} on their paints while drawing, so
+ * cached gradients and bitmaps are not rendered again. The filters are
+ * created once and shared. {@link #simulate(int, int[], int, int)} applies
+ * the same matrices in fixed point, so reports match what the preview shows.
+ * </p>
+ */
+public final class ColorVision {
+
+	/**
+	 * Modes of simulation.
+	 */
+	public static final int MODE_NONE = 0;
+	public static final int MODE_PROTANOPIA = 1;
+	public static final int MODE_DEUTERANOPIA = 2;
+	public static final int MODE_TRITANOPIA = 3;
+
+	/**
+	 * The matrices by mode, row major, {@code null} for none.
+	 */
+	private static final float[][] MATRICES = {
+			null,
+			{ 0.152286f, 1.052583f, -0.204868f,
+					0.114503f, 0.786281f, 0.099216f,
+					-0.003882f, -0.048116f, 1.051998f },
+			{ 0.367322f, 0.860646f, -0.227968f,
+					0.280085f, 0.672501f, 0.047413f,
+					-0.011820f, 0.042940f, 0.968881f },
+			{ 1.255528f, -0.076749f, -0.178779f,
+					-0.078411f, 0.930809f, 0.147602f,
+					0.004733f, 0.691367f, 0.303900f } };
+
+	/**
+	 * The matrices in 16.16 fixed point.
+	 */
+	private static final int[][] FIXED = new int[MATRICES.length][];
+
+	/**
+	 * The filters by mode, created on first use.
+	 */
+	private static final ColorFilter[] sFilters = new ColorFilter[MATRICES.length];
+
+	static {
+		for (int mode = 1; mode < MATRICES.length; mode++) {
+			FIXED[mode] = new int[9];
+			for (int i = 0; i < 9; i++) {
+				FIXED[mode][i] = Math.round(MATRICES[mode][i] * 65536);
+			}
+		}
+	}
+
+	private ColorVision() {
+	}
+
+	/**
+	 * Get the shared filter simulating a mode.
+	 *
+	 * @param mode One of {@link #MODE_NONE}, {@link #MODE_PROTANOPIA},
+	 *            {@link #MODE_DEUTERANOPIA} and {@link #MODE_TRITANOPIA}.
+	 *
+	 * @return The {@code ColorFilter}, {@code null} for {@link #MODE_NONE}.
+	 */
+	public static ColorFilter getColorFilter(int mode) {
+		checkMode(mode);
+		if (mode == MODE_NONE) {
+			return null;
+		}
+		synchronized (sFilters) {
+			if (sFilters[mode] == null) {
+				float[] m = MATRICES[mode];
+				sFilters[mode] = new ColorMatrixColorFilter(new float[] {
+						m[0], m[1], m[2], 0, 0,
+						m[3], m[4], m[5], 0, 0,
+						m[6], m[7], m[8], 0, 0,
+						0, 0, 0, 1, 0 });
+			}
+			return sFilters[mode];
+		}
+	}
+
+	/**
+	 * Simulate a mode for a single color.
+	 *
+	 * @param mode The mode, see {@link #getColorFilter(int)}.
+	 * @param color The ARGB value of the color.
+	 *
+	 * @return The ARGB value of the color as seen with the deficiency.
+	 */
+	public static int simulate(int mode, int color) {
+		checkMode(mode);
+		return mode == MODE_NONE ? color : apply(FIXED[mode], color);
+	}
+
+	/**
+	 * Simulate a mode for all colors of an array, in place.
+	 *
+	 * @param mode The mode, see {@link #getColorFilter(int)}.
+	 * @param colors The ARGB values of the colors.
+	 */
+	public static void simulate(int mode, int[] colors) {
+		simulate(mode, colors, 0, colors.length);
+	}
+
+	/**
+	 * Simulate a mode for a range of colors, in place. Doesn't allocate.
+	 *
+	 * @param mode The mode, see {@link #getColorFilter(int)}.
+	 * @param colors The ARGB values of the colors.
+	 * @param offset The index of the first color.
+	 * @param count The number of colors.
+	 */
+	public static void simulate(int mode, int[] colors, int offset, int count) {
+		checkMode(mode);
+		if (offset < 0 || count < 0 || offset + count > colors.length) {
+			throw new ArrayIndexOutOfBoundsException("offset " + offset
+					+ ", count " + count + ", length " + colors.length);
+		}
+		if (mode == MODE_NONE) {
+			return;
+		}
+		int[] m = FIXED[mode];
+		for (int i = offset, end = offset + count; i < end; i++) {
+			colors[i] = apply(m, colors[i]);
+		}
+	}
+
+	private static int apply(int[] m, int color) {
+		int r = (color >> 16) & 0xFF;
+		int g = (color >> 8) & 0xFF;
+		int b = color & 0xFF;
+		int sr = clamp((m[0] * r + m[1] * g + m[2] * b + 0x8000) >> 16);
+		int sg = clamp((m[3] * r + m[4] * g + m[5] * b + 0x8000) >> 16);
+		int sb = clamp((m[6] * r + m[7] * g + m[8] * b + 0x8000) >> 16);
+		return (color & 0xFF000000) | (sr << 16) | (sg << 8) | sb;
+	}
+
+	private static int clamp(int channel) {
+		return channel < 0 ? 0 : (channel > 0xFF ? 0xFF : channel);
+	}
+
+	static void checkMode(int mode) {
+		if (mode < MODE_NONE || mode > MODE_TRITANOPIA) {
+			throw new IllegalArgumentException("Unknown mode " + mode);
+		}
+	}
+}
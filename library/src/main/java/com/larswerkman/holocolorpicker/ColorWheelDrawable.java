@@ -0,0 +1,366 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Draws the wheel of a {@link ColorPicker} without a View.
+ *
+ * <p>
+ * The drawable renders the ring, the pointer and the center with the same
+ * colors, dimensions and pointer sprites as the picker, but has no touch
+ * handling and no saved state. Use it to show a color in list items,
+ * notifications or compound drawables. It scales with its bounds like the
+ * picker scales with its measured size.
+ * </p>
+ *
+ * <p>
+ * Paints, the gradient and the geometry are shared by all drawables created
+ * with {@code getConstantState().newDrawable()}; each of them starts with a
+ * copy of the colors, the pointer position and the alpha of the original and
+ * changes them independently. The level moves the pointer around the wheel,
+ * 0 to 10000 is a full turn, which makes the drawable easy to animate. Only
+ * use it from the UI thread.
+ * </p>
+ *
+ * @see ColorBarDrawable
+ */
+public class ColorWheelDrawable extends Drawable {
+
+	private final WheelState mState;
+
+	/**
+	 * Create a wheel with the default dimensions of the picker.
+	 *
+	 * @param res {@code Resources} to read the dimensions from.
+	 */
+	public ColorWheelDrawable(Resources res) {
+		this(new WheelState(new WheelPaints(res)));
+	}
+
+	private ColorWheelDrawable(WheelState state) {
+		mState = state;
+	}
+
+	/**
+	 * Show a color: the pointer moves to its hue and the center shows it.
+	 *
+	 * @param color The ARGB value of the color.
+	 */
+	public void setColor(int color) {
+		mState.setAngle(ColorMath.colorToAngle(color));
+		mState.mCenterNewColor = color;
+		invalidateSelf();
+	}
+
+	public int getColor() {
+		return mState.mCenterNewColor;
+	}
+
+	/**
+	 * Show an old color in the left half of the center, like
+	 * {@link ColorPicker#setOldCenterColor(int)}.
+	 *
+	 * @param color The ARGB value of the old color.
+	 */
+	public void setOldCenterColor(int color) {
+		mState.mCenterOldColor = color;
+		mState.mShowCenterOldColor = true;
+		invalidateSelf();
+	}
+
+	public void setShowOldCenterColor(boolean show) {
+		mState.mShowCenterOldColor = show;
+		invalidateSelf();
+	}
+
+	@Override
+	protected boolean onLevelChange(int level) {
+		mState.setAngle((float) (-2 * Math.PI * level / 10000));
+		mState.mCenterNewColor = mState.mPointerColor;
+		return true;
+	}
+
+	@Override
+	public void draw(Canvas canvas) {
+		Rect bounds = getBounds();
+		int size = Math.min(bounds.width(), bounds.height());
+		WheelState state = mState;
+		WheelPaints paints = state.mPaints;
+		paints.prepare(size);
+
+		int alpha = state.mAlpha;
+		ColorFilter filter = state.mColorFilter;
+		paints.mWheelPaint.setAlpha(alpha);
+		paints.mWheelPaint.setColorFilter(filter);
+		paints.mPointerHaloPaint.setAlpha(0x50 * alpha / 0xFF);
+		paints.mPointerHaloPaint.setColorFilter(filter);
+		paints.mColorPaint.setColorFilter(filter);
+		paints.mOldColorPaint.setColorFilter(filter);
+
+		int count = canvas.save();
+		canvas.translate(bounds.exactCenterX(), bounds.exactCenterY());
+
+		canvas.drawOval(paints.mWheelRectangle, paints.mWheelPaint);
+
+		float x = (float) (paints.mWheelRadius * Math.cos(state.mAngle));
+		float y = (float) (paints.mWheelRadius * Math.sin(state.mAngle));
+		applyColor(paints.mColorPaint, state.mPointerColor, alpha);
+		paints.mPointerSprite.draw(canvas, x, y, paints.mPointerHaloPaint,
+				paints.mColorPaint);
+
+		applyColor(paints.mOldColorPaint, state.mCenterOldColor, alpha);
+		applyColor(paints.mColorPaint, state.mCenterNewColor, alpha);
+		WheelPainter.drawCenter(canvas, paints.mCenterRectangle,
+				state.mShowCenterOldColor, paints.mOldColorPaint,
+				paints.mColorPaint);
+		canvas.restoreToCount(count);
+	}
+
+	@Override
+	public void setAlpha(int alpha) {
+		mState.mAlpha = alpha;
+		invalidateSelf();
+	}
+
+	@Override
+	public int getAlpha() {
+		return mState.mAlpha;
+	}
+
+	@Override
+	public void setColorFilter(ColorFilter colorFilter) {
+		mState.mColorFilter = colorFilter;
+		invalidateSelf();
+	}
+
+	@Override
+	public int getOpacity() {
+		return PixelFormat.TRANSLUCENT;
+	}
+
+	@Override
+	public int getIntrinsicWidth() {
+		return mState.mPaints.mIntrinsicSize;
+	}
+
+	@Override
+	public int getIntrinsicHeight() {
+		return mState.mPaints.mIntrinsicSize;
+	}
+
+	/**
+	 * Every drawable already has a state of its own, {@code newDrawable()}
+	 * copies it, so there is nothing left to copy.
+	 */
+	@Override
+	public Drawable mutate() {
+		return this;
+	}
+
+	@Override
+	public ConstantState getConstantState() {
+		return mState;
+	}
+
+	/**
+	 * Set the color of a paint, scaling its alpha by the alpha of the
+	 * drawable.
+	 */
+	static void applyColor(Paint paint, int color, int alpha) {
+		paint.setColor(color);
+		if (alpha != 0xFF) {
+			paint.setAlpha(Color.alpha(color) * alpha / 0xFF);
+		}
+	}
+
+	/**
+	 * Get the position on the wheel as fraction of a full turn.
+	 */
+	private static float unit(float angle) {
+		float unit = (float) (angle / (2 * Math.PI));
+		return unit < 0 ? unit + 1 : unit;
+	}
+
+	/**
+	 * The colors, the pointer position and the alpha of a drawable.
+	 * {@link #newDrawable()} gives the new drawable a copy, sharing only the
+	 * paints.
+	 */
+	static final class WheelState extends ConstantState {
+
+		final WheelPaints mPaints;
+
+		/**
+		 * The pointer's position expressed as angle (in rad).
+		 */
+		float mAngle;
+
+		/**
+		 * The ARGB value of the color on the wheel at the pointer.
+		 */
+		int mPointerColor;
+
+		/**
+		 * The ARGB value of the center with the new selected color.
+		 */
+		int mCenterNewColor;
+
+		/**
+		 * The ARGB value of the center with the old selected color.
+		 */
+		int mCenterOldColor;
+
+		boolean mShowCenterOldColor;
+
+		int mAlpha = 0xFF;
+
+		ColorFilter mColorFilter;
+
+		WheelState(WheelPaints paints) {
+			mPaints = paints;
+			setAngle((float) (-Math.PI / 2));
+			mCenterNewColor = mPointerColor;
+			mCenterOldColor = mPointerColor;
+		}
+
+		WheelState(WheelState state) {
+			mPaints = state.mPaints;
+			mAngle = state.mAngle;
+			mPointerColor = state.mPointerColor;
+			mCenterNewColor = state.mCenterNewColor;
+			mCenterOldColor = state.mCenterOldColor;
+			mShowCenterOldColor = state.mShowCenterOldColor;
+			mAlpha = state.mAlpha;
+			mColorFilter = state.mColorFilter;
+		}
+
+		/**
+		 * Move the pointer, taking the color of the wheel at the angle.
+		 */
+		void setAngle(float angle) {
+			mAngle = angle;
+			mPointerColor = ColorMath.interpolate(ColorPicker.COLORS,
+					unit(angle));
+		}
+
+		@Override
+		public Drawable newDrawable() {
+			return new ColorWheelDrawable(new WheelState(this));
+		}
+
+		@Override
+		public int getChangingConfigurations() {
+			return 0;
+		}
+	}
+
+	/**
+	 * The paints and the geometry shared by all drawables created from one
+	 * another. The geometry is recomputed when a drawable of another size is
+	 * drawn, which never happens for the usual list of equally sized items.
+	 */
+	static final class WheelPaints {
+
+		final Paint mWheelPaint;
+		final Paint mPointerHaloPaint;
+
+		/**
+		 * Paint for the pointer and the new center color, its color is set
+		 * before every use.
+		 */
+		final Paint mColorPaint;
+
+		/**
+		 * Paint for the old center color.
+		 */
+		final Paint mOldColorPaint;
+
+		final PointerSprite mPointerSprite;
+
+		private final int mWheelThickness;
+		private final int mPointerHaloRadius;
+		private final int mPreferredWheelRadius;
+		private final int mPreferredCenterRadius;
+		final int mIntrinsicSize;
+
+		/**
+		 * The size the geometry was computed for, -1 if none yet.
+		 */
+		private int mSize = -1;
+		int mWheelRadius;
+		final RectF mWheelRectangle = new RectF();
+		final RectF mCenterRectangle = new RectF();
+
+		WheelPaints(Resources res) {
+			mWheelThickness = res
+					.getDimensionPixelSize(R.dimen.color_wheel_thickness);
+			mPreferredWheelRadius = res
+					.getDimensionPixelSize(R.dimen.color_wheel_radius);
+			mPreferredCenterRadius = res
+					.getDimensionPixelSize(R.dimen.color_center_radius);
+			mPointerHaloRadius = res
+					.getDimensionPixelSize(R.dimen.color_pointer_halo_radius);
+			int pointerRadius = res
+					.getDimensionPixelSize(R.dimen.color_pointer_radius);
+			mIntrinsicSize = 2 * (mPreferredWheelRadius + mPointerHaloRadius);
+
+			mWheelPaint = WheelPainter.createWheelPaint(mWheelThickness);
+
+			mPointerHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG
+					| Paint.FILTER_BITMAP_FLAG);
+			mPointerHaloPaint.setColor(Color.BLACK);
+
+			mColorPaint = new Paint(Paint.ANTI_ALIAS_FLAG
+					| Paint.FILTER_BITMAP_FLAG);
+			mColorPaint.setStyle(Paint.Style.FILL);
+
+			mOldColorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mOldColorPaint.setStyle(Paint.Style.FILL);
+
+			mPointerSprite = PointerSprite.obtain(mPointerHaloRadius,
+					pointerRadius);
+		}
+
+		/**
+		 * Compute the geometry for a size, the same way
+		 * {@link ColorPicker#onMeasure(int, int)} does.
+		 */
+		void prepare(int size) {
+			if (size == mSize) {
+				return;
+			}
+			mSize = size;
+			mWheelRadius = WheelPainter.getWheelRadius(size, mWheelThickness,
+					mPointerHaloRadius);
+			WheelPainter.setCircle(mWheelRectangle, mWheelRadius);
+			WheelPainter.setCircle(mCenterRectangle, WheelPainter.scaleRadius(
+					mPreferredCenterRadius, mWheelRadius,
+					mPreferredWheelRadius));
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers color changes to a slow consumer on a caller-supplied
+ * {@code Executor}.
+ *
+ * <p>
+ * Colors are conflated: while the consumer is still busy with a color, any
+ * newer colors only replace the pending one, so at most one delivery task is
+ * queued on the executor at any time. The last color that was reported is
+ * always delivered.
+ * </p>
+ *
+ * @see ColorPicker#setOnColorChangedListener(ColorPicker.OnColorChangedListener,
+ *      Executor)
+ */
+public class ConflatingColorListener implements
+		ColorPicker.OnColorChangedListener {
+
+	/**
+	 * {@code Executor} instance the colors are delivered on.
+	 */
+	private final Executor mExecutor;
+
+	/**
+	 * The listener receiving the conflated colors.
+	 */
+	private final ColorPicker.OnColorChangedListener mListener;
+
+	/**
+	 * The ARGB value of the most recently reported color.
+	 */
+	private volatile int mLatestColor;
+
+	/**
+	 * Number of colors reported since the delivery task last caught up. The
+	 * task is only scheduled on the transition from zero.
+	 */
+	private final AtomicInteger mPending = new AtomicInteger();
+
+	/**
+	 * Number of colors that were dropped because a newer one replaced them.
+	 */
+	private final AtomicInteger mDropped = new AtomicInteger();
+
+	/**
+	 * The ARGB value of the last color handed to the listener. Only touched
+	 * by the delivery task, of which at most one runs at a time.
+	 */
+	private int mDeliveredColor;
+	private boolean mHasDelivered;
+
+	private final Runnable mDeliver = new Runnable() {
+		@Override
+		public void run() {
+			int missed = mPending.get();
+			try {
+				do {
+					int color = mLatestColor;
+					if (!mHasDelivered || color != mDeliveredColor) {
+						mDeliveredColor = color;
+						mHasDelivered = true;
+						mDropped.addAndGet(missed - 1);
+						mListener.onColorChanged(color);
+					} else {
+						mDropped.addAndGet(missed);
+					}
+					missed = mPending.addAndGet(-missed);
+				} while (missed != 0);
+			} catch (RuntimeException e) {
+				// Don't leave the stream stuck, the next color reschedules.
+				mPending.set(0);
+				throw e;
+			}
+		}
+	};
+
+	/**
+	 * @param executor {@code Executor} the colors are delivered on.
+	 * @param listener {@code OnColorChangedListener} receiving the colors.
+	 */
+	public ConflatingColorListener(Executor executor,
+			ColorPicker.OnColorChangedListener listener) {
+		if (executor == null || listener == null) {
+			throw new NullPointerException();
+		}
+		mExecutor = executor;
+		mListener = listener;
+	}
+
+	@Override
+	public void onColorChanged(int color) {
+		mLatestColor = color;
+		if (mPending.getAndIncrement() == 0) {
+			try {
+				mExecutor.execute(mDeliver);
+			} catch (RejectedExecutionException e) {
+				mPending.set(0);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Gets the listener receiving the conflated colors.
+	 *
+	 * @return {@code OnColorChangedListener}
+	 */
+	public ColorPicker.OnColorChangedListener getListener() {
+		return mListener;
+	}
+
+	/**
+	 * Checks if a delivery is queued or running on the executor.
+	 *
+	 * @return true or false.
+	 */
+	public boolean isPending() {
+		return mPending.get() != 0;
+	}
+
+	/**
+	 * Get the number of colors that were replaced by a newer color before
+	 * they could be delivered.
+	 *
+	 * @return The number of dropped colors.
+	 */
+	public int getDroppedCount() {
+		return mDropped.get();
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import android.graphics.Bitmap;
+
+/**
+ * Picks averaged colors from a {@code Bitmap} for a {@link ColorPicker}.
+ *
+ * <p>
+ * A summed-area table of the bitmap is built once, so every sample costs the
+ * same few lookups whatever the radius and dragging the eyedropper over a
+ * large photo stays smooth. Samples average the square of
+ * {@code 2 * radius + 1} pixels around the point, clipped to the bitmap.
+ * Colors are weighted by their alpha, so transparent pixels don't tint the
+ * average.
+ * </p>
+ *
+ * <p>
+ * The table takes 12 bytes per pixel, 16 if the bitmap has alpha; sample a
+ * scaled down copy of very large photos. The sums wrap around in 32 bits,
+ * which keeps sample results exact for areas up to 16 million pixels.
+ * </p>
+ */
+public class Eyedropper {
+
+	private final int mWidth;
+	private final int mHeight;
+
+	/**
+	 * Row length of the tables, one column of zeros precedes each row and
+	 * one row of zeros the table.
+	 */
+	private final int mStride;
+
+	/*
+	 * Summed-area tables of the alpha weighted channels and of the alpha,
+	 * mAlpha is null for opaque bitmaps.
+	 */
+	private final int[] mRed;
+	private final int[] mGreen;
+	private final int[] mBlue;
+	private final int[] mAlpha;
+
+	/**
+	 * Radius of the sampled square, 0 for single pixels.
+	 */
+	private int mRadius;
+
+	/**
+	 * Build the summed-area table of a bitmap. The bitmap isn't used
+	 * afterwards.
+	 *
+	 * @param bitmap The bitmap to pick from.
+	 */
+	public Eyedropper(Bitmap bitmap) {
+		mWidth = bitmap.getWidth();
+		mHeight = bitmap.getHeight();
+		mStride = mWidth + 1;
+
+		int size = mStride * (mHeight + 1);
+		mRed = new int[size];
+		mGreen = new int[size];
+		mBlue = new int[size];
+		mAlpha = bitmap.hasAlpha() ? new int[size] : null;
+
+		int[] row = new int[mWidth];
+		for (int y = 0; y < mHeight; y++) {
+			bitmap.getPixels(row, 0, mWidth, 0, y, mWidth, 1);
+			int r = 0, g = 0, b = 0, a = 0;
+			int above = y * mStride + 1;
+			int index = above + mStride;
+			for (int x = 0; x < mWidth; x++, above++, index++) {
+				int color = row[x];
+				int alpha = color >>> 24;
+				if (mAlpha == null || alpha == 0xFF) {
+					r += (color >> 16) & 0xFF;
+					g += (color >> 8) & 0xFF;
+					b += color & 0xFF;
+				} else {
+					r += (((color >> 16) & 0xFF) * alpha + 127) / 255;
+					g += (((color >> 8) & 0xFF) * alpha + 127) / 255;
+					b += ((color & 0xFF) * alpha + 127) / 255;
+				}
+				mRed[index] = mRed[above] + r;
+				mGreen[index] = mGreen[above] + g;
+				mBlue[index] = mBlue[above] + b;
+				if (mAlpha != null) {
+					a += alpha;
+					mAlpha[index] = mAlpha[above] + a;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set the radius samples are averaged over.
+	 *
+	 * @param radius The radius in pixels, 0 for single pixels.
+	 */
+	public void setRadius(int radius) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("radius < 0");
+		}
+		mRadius = radius;
+	}
+
+	public int getRadius() {
+		return mRadius;
+	}
+
+	/**
+	 * Get the average color around a point.
+	 *
+	 * @param x X-coordinate in the bitmap, clamped to its bounds.
+	 * @param y Y-coordinate in the bitmap, clamped to its bounds.
+	 *
+	 * @return The ARGB value of the average color.
+	 */
+	public int sample(float x, float y) {
+		return sample((int) Math.floor(x), (int) Math.floor(y));
+	}
+
+	/**
+	 * Get the average color around a pixel.
+	 *
+	 * @param x Column of the pixel, clamped to the bitmap.
+	 * @param y Row of the pixel, clamped to the bitmap.
+	 *
+	 * @return The ARGB value of the average color.
+	 */
+	public int sample(int x, int y) {
+		x = Math.max(0, Math.min(x, mWidth - 1));
+		y = Math.max(0, Math.min(y, mHeight - 1));
+		int left = Math.max(x - mRadius, 0);
+		int top = Math.max(y - mRadius, 0);
+		int right = Math.min(x + mRadius + 1, mWidth);
+		int bottom = Math.min(y + mRadius + 1, mHeight);
+
+		// Corners of the area in the tables.
+		int topLeft = top * mStride + left;
+		int topRight = top * mStride + right;
+		int bottomLeft = bottom * mStride + left;
+		int bottomRight = bottom * mStride + right;
+
+		long r = sum(mRed, topLeft, topRight, bottomLeft, bottomRight);
+		long g = sum(mGreen, topLeft, topRight, bottomLeft, bottomRight);
+		long b = sum(mBlue, topLeft, topRight, bottomLeft, bottomRight);
+		long weight;
+		int alpha;
+		if (mAlpha == null) {
+			weight = (long) (right - left) * (bottom - top);
+			alpha = 0xFF;
+		} else {
+			long a = sum(mAlpha, topLeft, topRight, bottomLeft, bottomRight);
+			if (a == 0) {
+				return 0;
+			}
+			long area = (long) (right - left) * (bottom - top);
+			alpha = (int) ((a + area / 2) / area);
+			// Undo the alpha weighting.
+			weight = a;
+			r *= 255;
+			g *= 255;
+			b *= 255;
+		}
+
+		return (alpha << 24) | (channel(r, weight) << 16)
+				| (channel(g, weight) << 8) | channel(b, weight);
+	}
+
+	/**
+	 * Sample a point and set the color on a picker.
+	 *
+	 * @param picker {@code ColorPicker} instance.
+	 * @param x X-coordinate in the bitmap.
+	 * @param y Y-coordinate in the bitmap.
+	 *
+	 * @return The ARGB value of the picked color.
+	 */
+	public int pick(ColorPicker picker, float x, float y) {
+		int color = sample(x, y);
+		picker.setColor(color);
+		return color;
+	}
+
+	private static long sum(int[] table, int topLeft, int topRight,
+			int bottomLeft, int bottomRight) {
+		// Differences are exact modulo 2^32 even if the sums wrapped.
+		return (table[bottomRight] - table[bottomLeft] - table[topRight]
+				+ table[topLeft]) & 0xFFFFFFFFL;
+	}
+
+	private static int channel(long sum, long weight) {
+		return (int) Math.min((sum + weight / 2) / weight, 0xFF);
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Records the touches of a picker session, like a drag on the
+ * {@link ColorPicker} followed by adjustments on its bars, into a
+ * {@link GestureRecording}.
+ *
+ * <p>
+ * The recorder becomes the {@code OnTouchListener} of the recorded views and
+ * lets every event through to them. Only the first pointer is recorded;
+ * historical samples of batched moves are kept with their own timestamps.
+ * </p>
+ *
+ * <pre>
+ * GestureRecorder recorder = new GestureRecorder();
+ * recorder.start(picker, svBar, opacityBar);
+ * // ... use the picker ...
+ * recorder.stop();
+ * recorder.getRecording().writeTo(stream);
+ * </pre>
+ */
+public class GestureRecorder implements View.OnTouchListener {
+
+	private View[] mViews = new View[0];
+
+	private GestureRecording mRecording = new GestureRecording();
+
+	/**
+	 * Event time of the first sample, -1 until it is recorded.
+	 */
+	private long mStartTime = -1;
+
+	/**
+	 * Start recording, replacing the previous recording.
+	 *
+	 * @param views The views to record, their index is the track of their
+	 *            samples.
+	 */
+	public void start(View... views) {
+		if (views.length > GestureRecording.MAX_TRACKS) {
+			throw new IllegalArgumentException("More than "
+					+ GestureRecording.MAX_TRACKS + " views");
+		}
+		stop();
+		mViews = views.clone();
+		mRecording = new GestureRecording();
+		mStartTime = -1;
+		for (View view : mViews) {
+			view.setOnTouchListener(this);
+		}
+	}
+
+	/**
+	 * Stop recording and release the views.
+	 */
+	public void stop() {
+		for (View view : mViews) {
+			view.setOnTouchListener(null);
+		}
+		mViews = new View[0];
+	}
+
+	/**
+	 * Get the samples recorded so far.
+	 *
+	 * @return The {@code GestureRecording} instance.
+	 */
+	public GestureRecording getRecording() {
+		return mRecording;
+	}
+
+	@Override
+	public boolean onTouch(View view, MotionEvent event) {
+		int track = indexOf(view);
+		int action = event.getActionMasked();
+		if (track < 0 || action > MotionEvent.ACTION_CANCEL) {
+			return false;
+		}
+		if (mStartTime < 0) {
+			mStartTime = event.getEventTime();
+		}
+
+		for (int i = 0; i < event.getHistorySize(); i++) {
+			mRecording.add(track, GestureRecording.ACTION_MOVE,
+					(int) (event.getHistoricalEventTime(i) - mStartTime),
+					event.getHistoricalX(i), event.getHistoricalY(i));
+		}
+		mRecording.add(track, action,
+				(int) (event.getEventTime() - mStartTime), event.getX(),
+				event.getY());
+
+		// Let the view handle the event.
+		return false;
+	}
+
+	private int indexOf(View view) {
+		for (int i = 0; i < mViews.length; i++) {
+			if (mViews[i] == view) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Touch samples recorded by a {@link GestureRecorder}, replayed by a
+ * {@link GestureReplayer}.
+ *
+ * <p>
+ * Every sample has a track (the index of the view it was recorded on), an
+ * action, a time in milliseconds since the first sample and a position in
+ * the coordinates of its view. Historical samples of a batched move are
+ * stored as separate moves.
+ * </p>
+ *
+ * <p>
+ * The file format is a header followed by the samples as variable length
+ * deltas to the previous sample of the same track, with positions rounded to
+ * 1/16 pixel; a typical drag takes 3 to 5 bytes per sample.
+ * </p>
+ */
+public final class GestureRecording {
+
+	/*
+	 * Actions of the samples, the same values as those of MotionEvent.
+	 */
+	public static final int ACTION_DOWN = 0;
+	public static final int ACTION_UP = 1;
+	public static final int ACTION_MOVE = 2;
+	public static final int ACTION_CANCEL = 3;
+
+	/**
+	 * Maximum number of tracks, the track shares a byte with the action.
+	 */
+	public static final int MAX_TRACKS = 16;
+
+	private static final int MAGIC = 0x48435047;
+	private static final int VERSION = 1;
+
+	/**
+	 * Positions are stored in 1/16 pixel.
+	 */
+	private static final float POSITION_SCALE = 16f;
+
+	/**
+	 * The track and action of every sample, packed as
+	 * {@code track << 4 | action}.
+	 */
+	private byte[] mHeaders = new byte[256];
+	private int[] mTimes = new int[256];
+	private float[] mX = new float[256];
+	private float[] mY = new float[256];
+	private int mSize;
+	private int mTrackCount;
+
+	/**
+	 * Add a sample. Samples are added in time order.
+	 *
+	 * @param track The index of the view, less than {@link #MAX_TRACKS}.
+	 * @param action One of the {@code ACTION_} constants.
+	 * @param time Milliseconds since the first sample.
+	 * @param x X-coordinate in the view.
+	 * @param y Y-coordinate in the view.
+	 */
+	void add(int track, int action, int time, float x, float y) {
+		if (track < 0 || track >= MAX_TRACKS) {
+			throw new IllegalArgumentException("Track " + track);
+		}
+		if (mSize == mHeaders.length) {
+			int capacity = mSize * 2;
+			mHeaders = Arrays.copyOf(mHeaders, capacity);
+			mTimes = Arrays.copyOf(mTimes, capacity);
+			mX = Arrays.copyOf(mX, capacity);
+			mY = Arrays.copyOf(mY, capacity);
+		}
+		mHeaders[mSize] = (byte) ((track << 4) | (action & 0x0F));
+		mTimes[mSize] = time;
+		mX[mSize] = x;
+		mY[mSize] = y;
+		mSize++;
+		mTrackCount = Math.max(mTrackCount, track + 1);
+	}
+
+	/**
+	 * Get the number of samples.
+	 */
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * Get the number of tracks, one more than the highest track of a sample.
+	 */
+	public int getTrackCount() {
+		return mTrackCount;
+	}
+
+	public int getTrack(int index) {
+		return (mHeaders[index] & 0xFF) >> 4;
+	}
+
+	public int getAction(int index) {
+		return mHeaders[index] & 0x0F;
+	}
+
+	/**
+	 * Get the time of a sample in milliseconds since the first sample.
+	 */
+	public int getTime(int index) {
+		return mTimes[index];
+	}
+
+	public float getX(int index) {
+		return mX[index];
+	}
+
+	public float getY(int index) {
+		return mY[index];
+	}
+
+	/**
+	 * Write the samples. The stream is not closed.
+	 *
+	 * @param stream The {@code OutputStream} to write to.
+	 *
+	 * @throws IOException If writing fails.
+	 */
+	public void writeTo(OutputStream stream) throws IOException {
+		OutputStream out = new BufferedOutputStream(stream);
+		writeInt(out, MAGIC);
+		out.write(VERSION);
+		writeVarint(out, mSize);
+
+		int time = 0;
+		int[] x = new int[MAX_TRACKS];
+		int[] y = new int[MAX_TRACKS];
+		for (int i = 0; i < mSize; i++) {
+			int track = getTrack(i);
+			int qx = Math.round(mX[i] * POSITION_SCALE);
+			int qy = Math.round(mY[i] * POSITION_SCALE);
+
+			out.write(mHeaders[i]);
+			writeVarint(out, zigzag(mTimes[i] - time));
+			writeVarint(out, zigzag(qx - x[track]));
+			writeVarint(out, zigzag(qy - y[track]));
+			time = mTimes[i];
+			x[track] = qx;
+			y[track] = qy;
+		}
+		out.flush();
+	}
+
+	/**
+	 * Read samples written by {@link #writeTo(OutputStream)}. The stream is
+	 * read byte by byte and not closed, pass a buffered stream.
+	 *
+	 * @param in The {@code InputStream} to read from.
+	 *
+	 * @return The {@code GestureRecording} instance.
+	 *
+	 * @throws IOException If reading fails or the data is not a recording.
+	 */
+	public static GestureRecording readFrom(InputStream in) throws IOException {
+		if (readInt(in) != MAGIC) {
+			throw new IOException("Not a gesture recording");
+		}
+		int version = read(in);
+		if (version != VERSION) {
+			throw new IOException("Unsupported version " + version);
+		}
+
+		GestureRecording recording = new GestureRecording();
+		int size = readVarint(in);
+		int time = 0;
+		int[] x = new int[MAX_TRACKS];
+		int[] y = new int[MAX_TRACKS];
+		for (int i = 0; i < size; i++) {
+			int header = read(in);
+			int track = header >> 4;
+			time += unzigzag(readVarint(in));
+			x[track] += unzigzag(readVarint(in));
+			y[track] += unzigzag(readVarint(in));
+			recording.add(track, header & 0x0F, time, x[track]
+					/ POSITION_SCALE, y[track] / POSITION_SCALE);
+		}
+		return recording;
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarint(OutputStream out, int value)
+			throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(InputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = read(in);
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static void writeInt(OutputStream out, int value)
+			throws IOException {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	private static int readInt(InputStream in) throws IOException {
+		return (read(in) << 24) | (read(in) << 16) | (read(in) << 8) | read(in);
+	}
+
+	private static int read(InputStream in) throws IOException {
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException();
+		}
+		return b;
+	}
+}
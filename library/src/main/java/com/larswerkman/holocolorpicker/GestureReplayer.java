@@ -0,0 +1,328 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Replays a {@link GestureRecording} against the picker and its bars to
+ * measure the end-to-end cost of real drags.
+ *
+ * <p>
+ * The samples are delivered the way the framework delivers input at a given
+ * display rate: moves of the same frame are batched into one
+ * {@code MotionEvent} with history, downs and ups are delivered on their own.
+ * After every frame each invalidated view is drawn into an offscreen bitmap.
+ * The replay runs as fast as possible on the calling thread, which must be
+ * the thread of the views, so it also works in Robolectric tests.
+ * </p>
+ *
+ * <p>
+ * While replaying, a {@link HistogramTracer} is installed to count the
+ * listener calls and time the traced sections of every view.
+ * </p>
+ */
+public class GestureReplayer {
+
+	/**
+	 * Source of the per-thread counters of a replay.
+	 */
+	public interface Meter {
+		/**
+		 * Get the CPU time of the calling thread.
+		 *
+		 * @return The time in ns.
+		 */
+		public long threadCpuTimeNanos();
+
+		/**
+		 * Get the bytes allocated by the calling thread so far.
+		 *
+		 * @return The number of bytes, -1 if unknown.
+		 */
+		public long threadAllocatedBytes();
+	}
+
+	/**
+	 * {@code Meter} instance used unless another one is set. Allocations are
+	 * not available on Android; on the JVM a meter backed by
+	 * {@code com.sun.management.ThreadMXBean} provides them.
+	 */
+	private static final Meter DEFAULT_METER = new Meter() {
+		@Override
+		public long threadCpuTimeNanos() {
+			return Debug.threadCpuTimeNanos();
+		}
+
+		@Override
+		public long threadAllocatedBytes() {
+			return -1;
+		}
+	};
+
+	private final GestureRecording mRecording;
+
+	/**
+	 * The views to replay on, by track.
+	 */
+	private final View[] mViews;
+
+	private Meter mMeter = DEFAULT_METER;
+
+	/**
+	 * @param recording The samples to replay.
+	 * @param views The views to replay on, in the order they were recorded.
+	 *            They must be laid out.
+	 */
+	public GestureReplayer(GestureRecording recording, View... views) {
+		if (views.length < recording.getTrackCount()) {
+			throw new IllegalArgumentException("The recording has "
+					+ recording.getTrackCount() + " tracks");
+		}
+		mRecording = recording;
+		mViews = views.clone();
+	}
+
+	public void setMeter(Meter meter) {
+		mMeter = meter;
+	}
+
+	public Meter getMeter() {
+		return mMeter;
+	}
+
+	/**
+	 * Replay the recording once.
+	 *
+	 * @param rate The display rate in Hz, e.g. 60, 120 or 240.
+	 *
+	 * @return The {@code Report} of the replay.
+	 */
+	public Report replay(int rate) {
+		float frameMillis = 1000f / rate;
+		long baseTime = SystemClock.uptimeMillis();
+		long[] downTimes = new long[mViews.length];
+
+		// Offscreen canvases, created before measuring.
+		Canvas[] canvases = new Canvas[mViews.length];
+		for (int i = 0; i < mViews.length; i++) {
+			if (mViews[i].getWidth() > 0 && mViews[i].getHeight() > 0) {
+				canvases[i] = new Canvas(Bitmap.createBitmap(
+						mViews[i].getWidth(), mViews[i].getHeight(),
+						Bitmap.Config.ARGB_8888));
+			}
+		}
+
+		Report report = new Report(rate);
+		Tracer previousTracer = Tracing.getTracer();
+		Tracing.setTracer(report.mTracer);
+		long startCpu = mMeter.threadCpuTimeNanos();
+		long startAllocated = mMeter.threadAllocatedBytes();
+		try {
+			MotionEvent batch = null;
+			int batchTrack = -1;
+			int frame = 0;
+			for (int i = 0; i < mRecording.size(); i++) {
+				int track = mRecording.getTrack(i);
+				int action = mRecording.getAction(i);
+				int time = mRecording.getTime(i);
+				long eventTime = baseTime + time;
+
+				int sampleFrame = (int) (time / frameMillis);
+				if (sampleFrame > frame) {
+					if (batch != null) {
+						dispatch(batchTrack, batch, report);
+						batch = null;
+					}
+					render(canvases, report);
+					frame = sampleFrame;
+				}
+
+				if (action == GestureRecording.ACTION_MOVE) {
+					if (batch != null && batchTrack != track) {
+						dispatch(batchTrack, batch, report);
+						batch = null;
+					}
+					if (batch == null) {
+						batch = MotionEvent.obtain(downTimes[track], eventTime,
+								MotionEvent.ACTION_MOVE, mRecording.getX(i),
+								mRecording.getY(i), 0);
+						batchTrack = track;
+					} else {
+						batch.addBatch(eventTime, mRecording.getX(i),
+								mRecording.getY(i), 1, 1, 0);
+					}
+					continue;
+				}
+
+				if (batch != null) {
+					dispatch(batchTrack, batch, report);
+					batch = null;
+				}
+				if (action == GestureRecording.ACTION_DOWN) {
+					downTimes[track] = eventTime;
+				}
+				dispatch(track, MotionEvent.obtain(downTimes[track], eventTime,
+						action, mRecording.getX(i), mRecording.getY(i), 0),
+						report);
+			}
+			if (batch != null) {
+				dispatch(batchTrack, batch, report);
+			}
+			render(canvases, report);
+
+			report.mCpuNanos = mMeter.threadCpuTimeNanos() - startCpu;
+			long allocated = mMeter.threadAllocatedBytes();
+			report.mAllocatedBytes = startAllocated < 0 || allocated < 0 ? -1
+					: allocated - startAllocated;
+		} finally {
+			Tracing.setTracer(previousTracer);
+		}
+		return report;
+	}
+
+	private void dispatch(int track, MotionEvent event, Report report) {
+		mViews[track].dispatchTouchEvent(event);
+		event.recycle();
+		report.mEvents++;
+	}
+
+	/**
+	 * Draw every invalidated view, like a frame would.
+	 */
+	private void render(Canvas[] canvases, Report report) {
+		report.mFrames++;
+		for (int i = 0; i < mViews.length; i++) {
+			if (canvases[i] == null) {
+				continue;
+			}
+			if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB
+					|| mViews[i].isDirty()) {
+				report.mInvalidations++;
+				mViews[i].draw(canvases[i]);
+			}
+		}
+	}
+
+	/**
+	 * The outcome of a replay.
+	 */
+	public static final class Report {
+
+		private final int mRate;
+		private final HistogramTracer mTracer = new HistogramTracer();
+		private int mEvents;
+		private int mFrames;
+		private int mInvalidations;
+		private long mCpuNanos;
+		private long mAllocatedBytes;
+
+		Report(int rate) {
+			mRate = rate;
+		}
+
+		/**
+		 * Get the display rate of the replay in Hz.
+		 */
+		public int getRate() {
+			return mRate;
+		}
+
+		/**
+		 * Get the number of dispatched {@code MotionEvent}s.
+		 */
+		public int getEventCount() {
+			return mEvents;
+		}
+
+		/**
+		 * Get the number of replayed frames.
+		 */
+		public int getFrameCount() {
+			return mFrames;
+		}
+
+		/**
+		 * Get the number of times a view was invalidated in a frame and
+		 * redrawn.
+		 */
+		public int getInvalidationCount() {
+			return mInvalidations;
+		}
+
+		/**
+		 * Get the number of calls to the listeners of the picker and the
+		 * bars.
+		 */
+		public long getListenerCallCount() {
+			long calls = 0;
+			for (String section : mTracer.getSections()) {
+				if (section.endsWith("Changed") || section.endsWith("Selected")) {
+					calls += mTracer.getHistogram(section).getCount();
+				}
+			}
+			return calls;
+		}
+
+		/**
+		 * Get the CPU time of the replay, dispatching and drawing.
+		 *
+		 * @return The time in ns.
+		 */
+		public long getCpuNanos() {
+			return mCpuNanos;
+		}
+
+		public long getCpuNanosPerEvent() {
+			return mEvents == 0 ? 0 : mCpuNanos / mEvents;
+		}
+
+		/**
+		 * Get the bytes allocated during the replay, including the
+		 * {@code MotionEvent}s of the replay itself.
+		 *
+		 * @return The number of bytes, -1 if the meter does not know.
+		 */
+		public long getAllocatedBytes() {
+			return mAllocatedBytes;
+		}
+
+		/**
+		 * Get the durations of the traced sections of the views.
+		 *
+		 * @return The {@code HistogramTracer} used during the replay.
+		 */
+		public HistogramTracer getTracer() {
+			return mTracer;
+		}
+
+		@Override
+		public String toString() {
+			return mRate + " Hz: " + mEvents + " events, " + mFrames
+					+ " frames, " + getCpuNanosPerEvent() + " ns/event, "
+					+ mInvalidations + " invalidations, "
+					+ getListenerCallCount() + " listener calls, "
+					+ mAllocatedBytes + " bytes allocated";
+		}
+	}
+}
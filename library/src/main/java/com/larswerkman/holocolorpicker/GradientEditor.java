@@ -0,0 +1,625 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.larswerkman.holocolorpicker.R;
+
+/**
+ * Editor for a multi-stop gradient whose stops are colored with a linked
+ * {@link ColorPicker}.
+ *
+ * <p>
+ * The editor shows a preview of the gradient with the stops below it. Touch
+ * a stop to select and drag it, touch the preview to add a stop there. Link
+ * the editor with {@link ColorPicker#addLinkedControl(LinkedControl)}; it is
+ * the last stage of the chain, so the selected stop takes the color produced
+ * by the wheel and the bars, and selecting a stop moves the wheel and the
+ * bars to its color.
+ * </p>
+ *
+ * <p>
+ * The gradient is sampled into a {@link GradientLut}. Editing a stop only
+ * recomputes the entries between its neighbours, and only those entries are
+ * copied into the bitmap behind the preview shader, which is never rebuilt.
+ * </p>
+ */
+public class GradientEditor extends View implements PreciseLinkedControl {
+
+	/*
+	 * Constants used to save/restore the instance state.
+	 */
+	private static final String STATE_PARENT = "parent";
+	private static final String STATE_POSITIONS = "positions";
+	private static final String STATE_COLORS = "colors";
+	private static final String STATE_SELECTED = "selected";
+
+	/**
+	 * Default number of entries of the lookup table.
+	 */
+	private static final int LUT_SIZE_DEFAULT = 256;
+
+	/**
+	 * The length of the preview.
+	 */
+	private int mBarLength;
+	private int mPreferredBarLength;
+
+	/**
+	 * The radius of the stop pointers.
+	 */
+	private int mBarPointerRadius;
+
+	/**
+	 * The radius of the halo of the stop pointers.
+	 */
+	private int mBarPointerHaloRadius;
+
+	/**
+	 * The sampled gradient.
+	 */
+	private GradientLut mGradient;
+
+	/**
+	 * One pixel high bitmap holding the lookup table, the source of the
+	 * preview shader.
+	 */
+	private Bitmap mLutBitmap;
+
+	/**
+	 * {@code Paint} instance used to draw the preview.
+	 */
+	private Paint mBarPaint;
+
+	/**
+	 * {@code Shader} instance filling the preview with the lookup table.
+	 */
+	private BitmapShader mBarShader;
+
+	/**
+	 * {@code Matrix} stretching the lookup table bitmap over the preview.
+	 */
+	private Matrix mShaderMatrix = new Matrix();
+
+	/**
+	 * {@code Paint} instance used to draw the stop pointers.
+	 */
+	private Paint mBarPointerPaint;
+
+	/**
+	 * {@code Paint} instances used to draw the halo of the selected and the
+	 * other stop pointers.
+	 */
+	private Paint mSelectedHaloPaint;
+	private Paint mBarPointerHaloPaint;
+
+	/**
+	 * {@code PointerSprite} instance used to draw the stop pointers.
+	 */
+	private PointerSprite mPointerSprite;
+
+	/**
+	 * The rectangle enclosing the preview.
+	 */
+	private RectF mBarRect = new RectF();
+
+	/**
+	 * The index of the selected stop, -1 if there are no stops.
+	 */
+	private int mSelected = -1;
+
+	/**
+	 * {@code true} if the user is dragging the selected stop.
+	 */
+	private boolean mIsMovingPointer;
+
+	/**
+	 * {@code true} while the editor moves the picker to the color of the
+	 * selected stop, the colors fed back meanwhile are ignored.
+	 */
+	private boolean mIsSelecting;
+
+	/**
+	 * {@code ColorPicker} instance used to color the stops.
+	 */
+	private ColorPicker mPicker = null;
+
+	/**
+	 * Interface and listener so that changes of the gradient are sent to the
+	 * host activity/fragment
+	 */
+	private OnGradientChangedListener onGradientChangedListener;
+
+	public interface OnGradientChangedListener {
+		/**
+		 * Called after entries of the lookup table changed.
+		 *
+		 * @param lut The lookup table, see {@link GradientLut#getLut()}.
+		 * @param start The first changed entry.
+		 * @param end The entry after the last changed entry.
+		 */
+		public void onGradientChanged(int[] lut, int start, int end);
+	}
+
+	public void setOnGradientChangedListener(OnGradientChangedListener listener) {
+		this.onGradientChangedListener = listener;
+	}
+
+	public OnGradientChangedListener getOnGradientChangedListener() {
+		return this.onGradientChangedListener;
+	}
+
+	public GradientEditor(Context context) {
+		super(context);
+		init(null, 0);
+	}
+
+	public GradientEditor(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		init(attrs, 0);
+	}
+
+	public GradientEditor(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+		init(attrs, defStyle);
+	}
+
+	private void init(AttributeSet attrs, int defStyle) {
+		final TypedArray a = getContext().obtainStyledAttributes(attrs,
+				R.styleable.ColorBars, defStyle, 0);
+		final Resources b = getContext().getResources();
+
+		mBarLength = a.getDimensionPixelSize(R.styleable.ColorBars_bar_length,
+				b.getDimensionPixelSize(R.dimen.bar_length));
+		mPreferredBarLength = mBarLength;
+		mBarPointerRadius = a.getDimensionPixelSize(
+				R.styleable.ColorBars_bar_pointer_radius,
+				b.getDimensionPixelSize(R.dimen.bar_pointer_radius));
+		mBarPointerHaloRadius = a.getDimensionPixelSize(
+				R.styleable.ColorBars_bar_pointer_halo_radius,
+				b.getDimensionPixelSize(R.dimen.bar_pointer_halo_radius));
+
+		a.recycle();
+
+		final TypedArray g = getContext().obtainStyledAttributes(attrs,
+				R.styleable.GradientEditor, defStyle, 0);
+		int lutSize = g.getInt(R.styleable.GradientEditor_gradient_lut_size,
+				LUT_SIZE_DEFAULT);
+		g.recycle();
+
+		mGradient = new GradientLut(lutSize);
+		mLutBitmap = Bitmap.createBitmap(lutSize, 1, Bitmap.Config.ARGB_8888);
+
+		mBarShader = new BitmapShader(mLutBitmap, Shader.TileMode.CLAMP,
+				Shader.TileMode.CLAMP);
+		mBarPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		mBarPaint.setShader(mBarShader);
+
+		mSelectedHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG
+				| Paint.FILTER_BITMAP_FLAG);
+		mSelectedHaloPaint.setColor(Color.BLACK);
+		mSelectedHaloPaint.setAlpha(0x50);
+
+		mBarPointerHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG
+				| Paint.FILTER_BITMAP_FLAG);
+		mBarPointerHaloPaint.setColor(Color.BLACK);
+		mBarPointerHaloPaint.setAlpha(0x20);
+
+		mBarPointerPaint = new Paint(Paint.ANTI_ALIAS_FLAG
+				| Paint.FILTER_BITMAP_FLAG);
+
+		addStop(0, Color.BLACK);
+		addStop(1, Color.WHITE);
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		final int intrinsicSize = mPreferredBarLength
+				+ (mBarPointerHaloRadius * 2);
+
+		int lengthMode = MeasureSpec.getMode(widthMeasureSpec);
+		int lengthSize = MeasureSpec.getSize(widthMeasureSpec);
+
+		int length;
+		if (lengthMode == MeasureSpec.EXACTLY) {
+			length = lengthSize;
+		}
+		else if (lengthMode == MeasureSpec.AT_MOST) {
+			length = Math.min(intrinsicSize, lengthSize);
+		}
+		else {
+			length = intrinsicSize;
+		}
+
+		// The preview and, below it, the row of stops.
+		int barPointerHaloRadiusx2 = mBarPointerHaloRadius * 2;
+		mBarLength = length - barPointerHaloRadiusx2;
+		setMeasuredDimension((mBarLength + barPointerHaloRadiusx2),
+				barPointerHaloRadiusx2 * 2);
+	}
+
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+
+		mBarLength = w - (mBarPointerHaloRadius * 2);
+		mBarRect.set(mBarPointerHaloRadius, 0,
+				(mBarLength + mBarPointerHaloRadius),
+				(mBarPointerHaloRadius * 2));
+
+		// Stretch the table over the preview, only the matrix depends on the
+		// size.
+		mShaderMatrix.setScale(((float) mBarLength) / mGradient.getSize(),
+				mBarRect.height());
+		mShaderMatrix.postTranslate(mBarRect.left, mBarRect.top);
+		mBarShader.setLocalMatrix(mShaderMatrix);
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		// Draw the preview.
+		if (Rendering.isReferencePath()) {
+			drawReferencePreview(canvas);
+		} else {
+			canvas.drawRect(mBarRect, mBarPaint);
+		}
+
+		// Draw the stops, the selected one on top.
+		if (mPointerSprite == null) {
+			mPointerSprite = PointerSprite.obtain(mBarPointerHaloRadius,
+					mBarPointerRadius);
+		}
+		float cY = mBarPointerHaloRadius * 3;
+		for (int i = 0; i < mGradient.getStopCount(); i++) {
+			if (i != mSelected) {
+				mBarPointerPaint.setColor(mGradient.getStopColor(i));
+				mPointerSprite.draw(canvas, positionToCoord(i), cY,
+						mBarPointerHaloPaint, mBarPointerPaint);
+			}
+		}
+		if (mSelected >= 0) {
+			mBarPointerPaint.setColor(mGradient.getStopColor(mSelected));
+			mPointerSprite.draw(canvas, positionToCoord(mSelected), cY,
+					mSelectedHaloPaint, mBarPointerPaint);
+		}
+	}
+
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		getParent().requestDisallowInterceptTouchEvent(true);
+
+		float x = event.getX();
+		float position = (x - mBarPointerHaloRadius) / mBarLength;
+
+		switch (event.getAction()) {
+		case MotionEvent.ACTION_DOWN:
+			// Check whether the user pressed on (or near) a stop.
+			int nearest = -1;
+			float distance = mBarPointerHaloRadius;
+			for (int i = 0; i < mGradient.getStopCount(); i++) {
+				float d = Math.abs(x - positionToCoord(i));
+				if (d <= distance) {
+					nearest = i;
+					distance = d;
+				}
+			}
+
+			if (nearest >= 0) {
+				selectStop(nearest);
+				mIsMovingPointer = true;
+			} else if (mBarRect.contains(x, event.getY())) {
+				int color = mGradient.getLut()[Math.round(position
+						* (mGradient.getSize() - 1))];
+				selectStop(addStop(position, color));
+				mIsMovingPointer = true;
+			}
+			break;
+		case MotionEvent.ACTION_MOVE:
+			if (mIsMovingPointer) {
+				setStopPosition(mSelected, position);
+			}
+			break;
+		case MotionEvent.ACTION_UP:
+		case MotionEvent.ACTION_CANCEL:
+			mIsMovingPointer = false;
+			break;
+		}
+		return true;
+	}
+
+	/**
+	 * Add a stop. The selection stays on the same stop.
+	 *
+	 * @param position Position between 0 and 1.
+	 * @param color The ARGB value of the stop.
+	 *
+	 * @return The index of the new stop.
+	 */
+	public int addStop(float position, int color) {
+		int index = mGradient.addStop(position, color);
+		if (mSelected >= index) {
+			mSelected++;
+		} else if (mSelected < 0) {
+			mSelected = index;
+		}
+		publish();
+		return index;
+	}
+
+	/**
+	 * Remove a stop. If it was selected the next stop, or the previous one if
+	 * there is none, is selected.
+	 *
+	 * @param index The index of the stop.
+	 */
+	public void removeStop(int index) {
+		mGradient.removeStop(index);
+		if (mSelected > index || mSelected == mGradient.getStopCount()) {
+			mSelected--;
+		}
+		publish();
+	}
+
+	/**
+	 * Move a stop. Stops stay sorted, so the stop may get a new index.
+	 *
+	 * @param index The index of the stop.
+	 * @param position Position between 0 and 1.
+	 *
+	 * @return The new index of the stop.
+	 */
+	public int setStopPosition(int index, float position) {
+		int newIndex = mGradient.setStopPosition(index, position);
+		if (mSelected == index) {
+			mSelected = newIndex;
+		} else if (index < mSelected && newIndex >= mSelected) {
+			mSelected--;
+		} else if (index > mSelected && newIndex <= mSelected) {
+			mSelected++;
+		}
+		publish();
+		return newIndex;
+	}
+
+	/**
+	 * Change the color of a stop. Selected stops are better colored through
+	 * the linked {@code ColorPicker}.
+	 *
+	 * @param index The index of the stop.
+	 * @param color The ARGB value of the stop.
+	 */
+	public void setStopColor(int index, int color) {
+		mGradient.setStopColor(index, color);
+		publish();
+	}
+
+	public int getStopCount() {
+		return mGradient.getStopCount();
+	}
+
+	public float getStopPosition(int index) {
+		return mGradient.getStopPosition(index);
+	}
+
+	public int getStopColor(int index) {
+		return mGradient.getStopColor(index);
+	}
+
+	/**
+	 * Select a stop and move the linked {@code ColorPicker} to its color.
+	 *
+	 * @param index The index of the stop.
+	 */
+	public void selectStop(int index) {
+		int color = mGradient.getStopColor(index);
+		mSelected = index;
+		if (mPicker != null) {
+			mIsSelecting = true;
+			try {
+				mPicker.setColor(color);
+			} finally {
+				mIsSelecting = false;
+			}
+		}
+		invalidate();
+	}
+
+	/**
+	 * Get the index of the selected stop.
+	 *
+	 * @return The index, -1 if there are no stops.
+	 */
+	public int getSelectedStop() {
+		return mSelected;
+	}
+
+	/**
+	 * Get the lookup table of the gradient. The array is updated in place and
+	 * should not be modified.
+	 *
+	 * @return The ARGB values of the entries.
+	 */
+	public int[] getLut() {
+		return mGradient.getLut();
+	}
+
+	public int getLutSize() {
+		return mGradient.getSize();
+	}
+
+	/**
+	 * Copy the entries changed since the last call into the preview bitmap and
+	 * notify the listener.
+	 */
+	private void publish() {
+		int start = mGradient.getDirtyStart();
+		int end = mGradient.getDirtyEnd();
+		if (start >= end) {
+			return;
+		}
+		mGradient.clearDirty();
+
+		mLutBitmap.setPixels(mGradient.getLut(), start, mGradient.getSize(),
+				start, 0, end - start, 1);
+		if (onGradientChangedListener != null) {
+			onGradientChangedListener.onGradientChanged(mGradient.getLut(),
+					start, end);
+		}
+		invalidate();
+	}
+
+	/**
+	 * Draw the preview with a gradient built from the stops instead of the
+	 * lookup table. Used on the {@link Rendering#isReferencePath() reference
+	 * path}.
+	 */
+	private void drawReferencePreview(Canvas canvas) {
+		int count = mGradient.getStopCount();
+		if (count < 2) {
+			Paint paint = new Paint();
+			paint.setColor(count == 0 ? 0 : mGradient.getStopColor(0));
+			canvas.drawRect(mBarRect, paint);
+			return;
+		}
+
+		int[] colors = new int[count];
+		float[] positions = new float[count];
+		for (int i = 0; i < count; i++) {
+			colors[i] = mGradient.getStopColor(i);
+			positions[i] = mGradient.getStopPosition(i);
+		}
+		Paint paint = new Paint();
+		paint.setShader(new LinearGradient(mBarRect.left, 0, mBarRect.right,
+				0, colors, positions, Shader.TileMode.CLAMP));
+		canvas.drawRect(mBarRect, paint);
+	}
+
+	private float positionToCoord(int index) {
+		return mBarPointerHaloRadius + mGradient.getStopPosition(index)
+				* mBarLength;
+	}
+
+	/**
+	 * Get the color of the selected stop.
+	 *
+	 * @return The ARGB value of the selected stop.
+	 */
+	@Override
+	public int getColor() {
+		return mSelected >= 0 ? mGradient.getStopColor(mSelected) : 0;
+	}
+
+	/**
+	 * Adds a {@code ColorPicker} instance to the editor. <br>
+	 * <br>
+	 * WARNING: Don't change the color picker. it is done already when the
+	 * editor is added to the ColorPicker
+	 *
+	 * @see com.larswerkman.holocolorpicker.ColorPicker#addLinkedControl(LinkedControl)
+	 * @param picker
+	 */
+	@Override
+	public void setColorPicker(ColorPicker picker) {
+		mPicker = picker;
+	}
+
+	@Override
+	public int getStage() {
+		return STAGE_GRADIENT;
+	}
+
+	/**
+	 * The output of the chain colors the selected stop and is passed on
+	 * unchanged.
+	 */
+	@Override
+	public int onInputColorChanged(int color) {
+		if (!mIsSelecting && mSelected >= 0) {
+			setStopColor(mSelected, color);
+		}
+		return color;
+	}
+
+	@Override
+	public void setPointerFromColor(int color, float[] hsv) {
+	}
+
+	/**
+	 * The editor passes its input on unchanged.
+	 */
+	@Override
+	public long getColorLong(long color) {
+		return color;
+	}
+
+	@Override
+	protected Parcelable onSaveInstanceState() {
+		Parcelable superState = super.onSaveInstanceState();
+
+		int count = mGradient.getStopCount();
+		float[] positions = new float[count];
+		int[] colors = new int[count];
+		for (int i = 0; i < count; i++) {
+			positions[i] = mGradient.getStopPosition(i);
+			colors[i] = mGradient.getStopColor(i);
+		}
+
+		Bundle state = new Bundle();
+		state.putParcelable(STATE_PARENT, superState);
+		state.putFloatArray(STATE_POSITIONS, positions);
+		state.putIntArray(STATE_COLORS, colors);
+		state.putInt(STATE_SELECTED, mSelected);
+
+		return state;
+	}
+
+	@Override
+	protected void onRestoreInstanceState(Parcelable state) {
+		Bundle savedState = (Bundle) state;
+
+		Parcelable superState = savedState.getParcelable(STATE_PARENT);
+		super.onRestoreInstanceState(superState);
+
+		while (mGradient.getStopCount() > 0) {
+			mGradient.removeStop(mGradient.getStopCount() - 1);
+		}
+		float[] positions = savedState.getFloatArray(STATE_POSITIONS);
+		int[] colors = savedState.getIntArray(STATE_COLORS);
+		for (int i = 0; i < positions.length; i++) {
+			mGradient.addStop(positions[i], colors[i]);
+		}
+		mSelected = savedState.getInt(STATE_SELECTED);
+		publish();
+	}
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import java.util.Arrays;
+
+/**
+ * A multi-stop gradient sampled into a color lookup table.
+ *
+ * <p>
+ * Stops are kept sorted by position. Changing a stop only recomputes the
+ * entries between its neighbours; the range of entries changed since the
+ * last {@link #clearDirty()} is available from {@link #getDirtyStart()} and
+ * {@link #getDirtyEnd()}, so consumers can upload just that part.
+ * </p>
+ *
+ * @see GradientEditor
+ */
+public class GradientLut {
+
+	/**
+	 * The sampled gradient, entry {@code i} is the color at position
+	 * {@code i / (size - 1)}.
+	 */
+	private final int[] mLut;
+
+	private float[] mPositions = new float[4];
+	private int[] mColors = new int[4];
+	private int mStopCount;
+
+	/**
+	 * Range of entries changed since the last clearDirty(), inclusive start
+	 * and exclusive end. Empty if start >= end.
+	 */
+	private int mDirtyStart;
+	private int mDirtyEnd;
+
+	/**
+	 * @param size Number of entries of the lookup table, e.g. 256 or 1024.
+	 */
+	public GradientLut(int size) {
+		if (size < 2) {
+			throw new IllegalArgumentException("size < 2");
+		}
+		mLut = new int[size];
+		clearDirty();
+	}
+
+	/**
+	 * Get the lookup table. The array is updated in place.
+	 *
+	 * @return The ARGB values of the entries.
+	 */
+	public int[] getLut() {
+		return mLut;
+	}
+
+	public int getSize() {
+		return mLut.length;
+	}
+
+	public int getStopCount() {
+		return mStopCount;
+	}
+
+	public float getStopPosition(int index) {
+		return mPositions[index];
+	}
+
+	public int getStopColor(int index) {
+		return mColors[index];
+	}
+
+	/**
+	 * Add a stop.
+	 *
+	 * @param position Position between 0 and 1.
+	 * @param color The ARGB value of the stop.
+	 *
+	 * @return The index of the new stop.
+	 */
+	public int addStop(float position, int color) {
+		position = clamp(position);
+		if (mStopCount == mPositions.length) {
+			mPositions = Arrays.copyOf(mPositions, mStopCount * 2);
+			mColors = Arrays.copyOf(mColors, mStopCount * 2);
+		}
+
+		int index = mStopCount;
+		while (index > 0 && mPositions[index - 1] > position) {
+			mPositions[index] = mPositions[index - 1];
+			mColors[index] = mColors[index - 1];
+			index--;
+		}
+		mPositions[index] = position;
+		mColors[index] = color;
+		mStopCount++;
+
+		if (mStopCount == 1) {
+			update(0, mLut.length);
+		} else {
+			updateAround(index);
+		}
+		return index;
+	}
+
+	/**
+	 * Remove a stop.
+	 *
+	 * @param index The index of the stop.
+	 */
+	public void removeStop(int index) {
+		checkIndex(index);
+		int start = lowerEntry(index - 1);
+		int end = upperEntry(index + 1);
+
+		mStopCount--;
+		System.arraycopy(mPositions, index + 1, mPositions, index, mStopCount
+				- index);
+		System.arraycopy(mColors, index + 1, mColors, index, mStopCount - index);
+		update(start, end);
+	}
+
+	/**
+	 * Change the color of a stop.
+	 *
+	 * @param index The index of the stop.
+	 * @param color The ARGB value of the stop.
+	 */
+	public void setStopColor(int index, int color) {
+		checkIndex(index);
+		if (mColors[index] != color) {
+			mColors[index] = color;
+			updateAround(index);
+		}
+	}
+
+	/**
+	 * Move a stop. Stops stay sorted, so the stop may get a new index.
+	 *
+	 * @param index The index of the stop.
+	 * @param position Position between 0 and 1.
+	 *
+	 * @return The new index of the stop.
+	 */
+	public int setStopPosition(int index, float position) {
+		checkIndex(index);
+		position = clamp(position);
+		if (mPositions[index] == position) {
+			return index;
+		}
+
+		int start = lowerEntry(index - 1);
+		int end = upperEntry(index + 1);
+		int color = mColors[index];
+		while (index > 0 && mPositions[index - 1] > position) {
+			mPositions[index] = mPositions[index - 1];
+			mColors[index] = mColors[index - 1];
+			index--;
+		}
+		while (index < mStopCount - 1 && mPositions[index + 1] < position) {
+			mPositions[index] = mPositions[index + 1];
+			mColors[index] = mColors[index + 1];
+			index++;
+		}
+		mPositions[index] = position;
+		mColors[index] = color;
+
+		update(Math.min(start, lowerEntry(index - 1)),
+				Math.max(end, upperEntry(index + 1)));
+		return index;
+	}
+
+	/**
+	 * Get the first entry changed since the last {@link #clearDirty()}.
+	 */
+	public int getDirtyStart() {
+		return mDirtyStart;
+	}
+
+	/**
+	 * Get the entry after the last one changed since the last
+	 * {@link #clearDirty()}, not larger than {@link #getDirtyStart()} if
+	 * nothing changed.
+	 */
+	public int getDirtyEnd() {
+		return mDirtyEnd;
+	}
+
+	public void clearDirty() {
+		mDirtyStart = mLut.length;
+		mDirtyEnd = 0;
+	}
+
+	/**
+	 * Recompute the entries influenced by a stop, from its previous to its
+	 * next neighbour.
+	 */
+	private void updateAround(int index) {
+		update(lowerEntry(index - 1), upperEntry(index + 1));
+	}
+
+	/**
+	 * Get the first entry at or after a stop, 0 for the stop before the
+	 * first.
+	 */
+	private int lowerEntry(int index) {
+		if (index < 0) {
+			return 0;
+		}
+		return (int) Math.ceil(mPositions[index] * (mLut.length - 1));
+	}
+
+	/**
+	 * Get the entry after the last one at or before a stop, the size of the
+	 * table for the stop after the last.
+	 */
+	private int upperEntry(int index) {
+		if (index >= mStopCount) {
+			return mLut.length;
+		}
+		return (int) Math.floor(mPositions[index] * (mLut.length - 1)) + 1;
+	}
+
+	/**
+	 * Recompute entries {@code start} (inclusive) to {@code end} (exclusive).
+	 */
+	private void update(int start, int end) {
+		start = Math.max(start, 0);
+		end = Math.min(end, mLut.length);
+		if (start >= end) {
+			return;
+		}
+		mDirtyStart = Math.min(mDirtyStart, start);
+		mDirtyEnd = Math.max(mDirtyEnd, end);
+
+		if (mStopCount == 0) {
+			Arrays.fill(mLut, start, end, 0);
+			return;
+		}
+
+		float scale = 1f / (mLut.length - 1);
+		int stop = 0;
+		for (int i = start; i < end; i++) {
+			float position = i * scale;
+			while (stop < mStopCount && mPositions[stop] <= position) {
+				stop++;
+			}
+
+			if (stop == 0) {
+				mLut[i] = mColors[0];
+			} else if (stop == mStopCount) {
+				mLut[i] = mColors[mStopCount - 1];
+			} else {
+				float from = mPositions[stop - 1];
+				float p = (position - from) / (mPositions[stop] - from);
+				mLut[i] = mix(mColors[stop - 1], mColors[stop], p);
+			}
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= mStopCount) {
+			throw new IndexOutOfBoundsException("Stop " + index + ", count "
+					+ mStopCount);
+		}
+	}
+
+	private static float clamp(float position) {
+		return position < 0 ? 0 : (position > 1 ? 1 : position);
+	}
+
+	/**
+	 * Interpolate the premultiplied components, like {@code LinearGradient}
+	 * does, so a translucent stop does not tint its neighbour with the color
+	 * it barely shows.
+	 */
+	private static int mix(int c0, int c1, float p) {
+		int a0 = c0 >>> 24;
+		int a1 = c1 >>> 24;
+		float a = a0 + p * (a1 - a0);
+		if (a < 0.5f) {
+			return 0;
+		}
+		int r = ave(((c0 >> 16) & 0xFF) * a0, ((c1 >> 16) & 0xFF) * a1, p, a);
+		int g = ave(((c0 >> 8) & 0xFF) * a0, ((c1 >> 8) & 0xFF) * a1, p, a);
+		int b = ave((c0 & 0xFF) * a0, (c1 & 0xFF) * a1, p, a);
+		return (Math.round(a) << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Interpolate two premultiplied components and divide by the alpha.
+	 */
+	private static int ave(int s, int d, float p, float alpha) {
+		return Math.min(Math.round((s + p * (d - s)) / alpha), 0xFF);
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link Tracer} recording the duration of every section into a histogram per
+ * section name. Does not depend on Android, so tests on a plain JVM can
+ * assert on the time spent in the picker and the bars.
+ *
+ * <p>
+ * Durations include nested sections. The tracer is meant for the sections of
+ * a single thread, the UI thread; reading the histograms from another thread
+ * is safe.
+ * </p>
+ */
+public class HistogramTracer implements Tracer {
+
+	/**
+	 * Histograms by section name.
+	 */
+	private final Map<String, Histogram> mHistograms = new HashMap<String, Histogram>();
+
+	/**
+	 * Names and start times of the open sections.
+	 */
+	private String[] mOpenSections = new String[8];
+	private long[] mStartTimes = new long[8];
+	private int mDepth;
+
+	@Override
+	public synchronized void beginSection(String section) {
+		if (mDepth == mOpenSections.length) {
+			mOpenSections = Arrays.copyOf(mOpenSections, mDepth * 2);
+			mStartTimes = Arrays.copyOf(mStartTimes, mDepth * 2);
+		}
+		mOpenSections[mDepth] = section;
+		mStartTimes[mDepth] = System.nanoTime();
+		mDepth++;
+	}
+
+	@Override
+	public synchronized void endSection(String section) {
+		long end = System.nanoTime();
+		if (mDepth == 0) {
+			throw new IllegalStateException("No open section: " + section);
+		}
+		mDepth--;
+		String open = mOpenSections[mDepth];
+		mOpenSections[mDepth] = null;
+		if (!open.equals(section)) {
+			throw new IllegalStateException("Ending " + section + " inside "
+					+ open);
+		}
+
+		Histogram histogram = mHistograms.get(section);
+		if (histogram == null) {
+			histogram = new Histogram();
+			mHistograms.put(section, histogram);
+		}
+		histogram.record(end - mStartTimes[mDepth]);
+	}
+
+	/**
+	 * Get the histogram of a section.
+	 *
+	 * @param section The name of the section.
+	 *
+	 * @return A copy of the histogram, empty if the section never ended.
+	 */
+	public synchronized Histogram getHistogram(String section) {
+		Histogram histogram = mHistograms.get(section);
+		return histogram == null ? new Histogram() : new Histogram(histogram);
+	}
+
+	/**
+	 * Get the names of all sections that ended at least once.
+	 */
+	public synchronized Set<String> getSections() {
+		return new HashSet<String>(mHistograms.keySet());
+	}
+
+	/**
+	 * Discard all recorded durations. Open sections stay open.
+	 */
+	public synchronized void reset() {
+		mHistograms.clear();
+	}
+
+	/**
+	 * Durations of a section, in power of two buckets.
+	 */
+	public static final class Histogram {
+
+		/**
+		 * Bucket {@code i} counts durations below 2<sup>i</sup> ns and at
+		 * least 2<sup>i - 1</sup> ns.
+		 */
+		private final long[] mBuckets;
+		private long mCount;
+		private long mTotal;
+		private long mMin = Long.MAX_VALUE;
+		private long mMax;
+
+		Histogram() {
+			mBuckets = new long[64];
+		}
+
+		Histogram(Histogram other) {
+			mBuckets = other.mBuckets.clone();
+			mCount = other.mCount;
+			mTotal = other.mTotal;
+			mMin = other.mMin;
+			mMax = other.mMax;
+		}
+
+		void record(long nanos) {
+			if (nanos < 0) {
+				nanos = 0;
+			}
+			mBuckets[64 - Long.numberOfLeadingZeros(nanos)]++;
+			mCount++;
+			mTotal += nanos;
+			mMin = Math.min(mMin, nanos);
+			mMax = Math.max(mMax, nanos);
+		}
+
+		public long getCount() {
+			return mCount;
+		}
+
+		public long getTotalNanos() {
+			return mTotal;
+		}
+
+		public long getMinNanos() {
+			return mCount == 0 ? 0 : mMin;
+		}
+
+		public long getMaxNanos() {
+			return mMax;
+		}
+
+		public long getMeanNanos() {
+			return mCount == 0 ? 0 : mTotal / mCount;
+		}
+
+		/**
+		 * Get an upper bound of a percentile, accurate to a factor of two.
+		 *
+		 * @param percentile The percentile between 0 and 100.
+		 *
+		 * @return The duration in ns, at most the largest recorded one.
+		 */
+		public long getPercentileNanos(double percentile) {
+			if (mCount == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100 * mCount));
+			long seen = 0;
+			for (int i = 0; i < mBuckets.length; i++) {
+				seen += mBuckets[i];
+				if (seen >= rank) {
+					return i == 0 ? 0 : Math.min(mMax, (1L << i) - 1);
+				}
+			}
+			return mMax;
+		}
+	}
+}
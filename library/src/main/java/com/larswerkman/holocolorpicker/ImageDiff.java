@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Compares rendered images, as ARGB pixel arrays like those of
+ * {@code Bitmap.getPixels}, within a per-channel tolerance.
+ *
+ * <p>
+ * Does not depend on the Android framework, so golden images stored as
+ * pixel arrays can be checked in plain JVM tests.
+ * </p>
+ */
+public final class ImageDiff {
+
+	/**
+	 * Number of pixels differing by more than the tolerance.
+	 */
+	private int mMismatches;
+
+	/**
+	 * Largest difference of a channel over all pixels.
+	 */
+	private int mMaxDifference;
+
+	/**
+	 * Index of the first mismatching pixel, -1 if none.
+	 */
+	private int mFirstMismatch = -1;
+
+	private ImageDiff() {
+	}
+
+	/**
+	 * Compare two images of the same size.
+	 *
+	 * @param expected The ARGB values of the golden image.
+	 * @param actual The ARGB values of the rendered image.
+	 * @param tolerance The largest difference allowed per channel (0..255).
+	 *
+	 * @return The {@code ImageDiff} instance describing the differences.
+	 */
+	public static ImageDiff compare(int[] expected, int[] actual, int tolerance) {
+		if (expected.length != actual.length) {
+			throw new IllegalArgumentException("Size " + actual.length
+					+ " instead of " + expected.length);
+		}
+
+		ImageDiff diff = new ImageDiff();
+		for (int i = 0; i < expected.length; i++) {
+			int e = expected[i];
+			int a = actual[i];
+			if (e == a) {
+				continue;
+			}
+
+			int difference = 0;
+			for (int shift = 0; shift < 32; shift += 8) {
+				difference = Math.max(difference,
+						Math.abs(((e >>> shift) & 0xFF) - ((a >>> shift) & 0xFF)));
+			}
+			diff.mMaxDifference = Math.max(diff.mMaxDifference, difference);
+			if (difference > tolerance) {
+				if (diff.mFirstMismatch < 0) {
+					diff.mFirstMismatch = i;
+				}
+				diff.mMismatches++;
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * @return {@code true} if every pixel is within the tolerance.
+	 */
+	public boolean matches() {
+		return mMismatches == 0;
+	}
+
+	public int getMismatchCount() {
+		return mMismatches;
+	}
+
+	public int getMaxDifference() {
+		return mMaxDifference;
+	}
+
+	/**
+	 * Get the index of the first pixel exceeding the tolerance.
+	 *
+	 * @return The index, -1 if every pixel is within the tolerance.
+	 */
+	public int getFirstMismatch() {
+		return mFirstMismatch;
+	}
+
+	@Override
+	public String toString() {
+		return mMismatches + " pixels differ, max channel difference "
+				+ mMaxDifference
+				+ (mFirstMismatch < 0 ? "" : ", first at index " + mFirstMismatch);
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * A control that is linked to a {@link ColorPicker} and refines the color
+ * coming from the color wheel, like the Saturation, Value and Opacity bars.
+ *
+ * <p>
+ * The linked controls of a picker form a chain ordered by their
+ * {@link #getStage() stage}. The color of the wheel is the input of the
+ * lowest stage, the output of each stage is the input of the next one and the
+ * output of the last stage is the new color of the picker. Controls sharing a
+ * stage receive the same input.
+ * </p>
+ *
+ * <p>
+ * Implementations never call back into the picker from
+ * {@link #onInputColorChanged(int)} or
+ * {@link #setPointerFromColor(int, float[])}. When the user changes the
+ * control it calls {@link ColorPicker#onLinkedControlChanged(LinkedControl)}
+ * once, which recomputes every later stage exactly once.
+ * </p>
+ *
+ * @see ColorPicker#addLinkedControl(LinkedControl)
+ */
+public interface LinkedControl {
+	/*
+	 * Stages of the controls shipped with this library.
+	 */
+	public static final int STAGE_SV = 100;
+	public static final int STAGE_SATURATION = 200;
+	public static final int STAGE_VALUE = 300;
+	public static final int STAGE_OPACITY = 400;
+	public static final int STAGE_GRADIENT = 1000;
+
+	/**
+	 * Get the position of this control in the chain. Lower stages feed
+	 * higher ones.
+	 *
+	 * @return The stage of this control.
+	 */
+	public int getStage();
+
+	/**
+	 * Adds a {@code ColorPicker} instance to the control. Called by the
+	 * picker when the control is linked or unlinked.
+	 *
+	 * @param picker The picker, or {@code null} when unlinked.
+	 */
+	public void setColorPicker(ColorPicker picker);
+
+	/**
+	 * Get the color currently produced by this control.
+	 *
+	 * @return The ARGB value of the output color.
+	 */
+	public int getColor();
+
+	/**
+	 * Use {@code color} as the new input of this control and recompute the
+	 * output from the current pointer position.
+	 *
+	 * @param color The ARGB value of the output of the previous stage.
+	 *
+	 * @return The ARGB value of the new output color.
+	 */
+	public int onInputColorChanged(int color);
+
+	/**
+	 * Move the pointer to the position representing {@code color}. The output
+	 * is recomputed by the following {@link #onInputColorChanged(int)}.
+	 *
+	 * @param color The ARGB value of the color to represent.
+	 * @param hsv The HSV values of {@code color}.
+	 */
+	public void setPointerFromColor(int color, float[] hsv);
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.SparseArray;
+
+/**
+ * Pre-rendered pointer shared by the picker and the bars.
+ *
+ * <p>
+ * The halo and the pointer are rasterized once, anti-aliased, into
+ * {@code ALPHA_8} masks. Drawing a mask uses the color of the supplied
+ * {@code Paint}, so the halo and pointer paints keep working as before while
+ * each frame only blits two small bitmaps.
+ * </p>
+ *
+ * <p>
+ * Sprites only depend on the two radii and are shared between all views
+ * through {@link #obtain(int, int)}. Only use them from the UI thread.
+ * </p>
+ */
+final class PointerSprite {
+
+	/**
+	 * Sprites by their packed halo and pointer radius.
+	 */
+	private static final SparseArray<PointerSprite> sCache = new SparseArray<PointerSprite>();
+
+	/**
+	 * Mask of the halo.
+	 */
+	private final Bitmap mHalo;
+
+	/**
+	 * Mask of the pointer, the same size as the halo mask.
+	 */
+	private final Bitmap mPointer;
+
+	/**
+	 * Distance between the top left corner of the masks and their center.
+	 */
+	private final float mOffset;
+
+	/*
+	 * The radii the masks were rendered with, for the reference path.
+	 */
+	private final int mHaloRadius;
+	private final int mPointerRadius;
+
+	private PointerSprite(int haloRadius, int pointerRadius) {
+		// Leave a pixel for the anti-aliased edge.
+		int size = 2 * Math.max(haloRadius, pointerRadius) + 2;
+		float center = size / 2f;
+		Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+		mHalo = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+		new Canvas(mHalo).drawCircle(center, center, haloRadius, paint);
+
+		mPointer = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+		new Canvas(mPointer).drawCircle(center, center, pointerRadius, paint);
+
+		mOffset = center;
+		mHaloRadius = haloRadius;
+		mPointerRadius = pointerRadius;
+	}
+
+	/**
+	 * Get the shared sprite for the supplied radii.
+	 *
+	 * @param haloRadius The radius of the halo of the pointer.
+	 * @param pointerRadius The radius of the pointer.
+	 *
+	 * @return The {@code PointerSprite} instance.
+	 */
+	static PointerSprite obtain(int haloRadius, int pointerRadius) {
+		int key = (haloRadius << 16) | (pointerRadius & 0xFFFF);
+		PointerSprite sprite = sCache.get(key);
+		if (sprite == null) {
+			sprite = new PointerSprite(haloRadius, pointerRadius);
+			sCache.put(key, sprite);
+		}
+		return sprite;
+	}
+
+	/**
+	 * Draw the halo and, on top of it, the pointer. On the
+	 * {@link Rendering#isReferencePath() reference path} they are drawn as
+	 * circles instead. Both snap the center to whole pixels, the masks are
+	 * rasterized around a pixel corner and only match the circles there.
+	 *
+	 * @param canvas The {@code Canvas} to draw on.
+	 * @param cx X-coordinate of the center of the pointer.
+	 * @param cy Y-coordinate of the center of the pointer.
+	 * @param haloPaint {@code Paint} whose color is used for the halo.
+	 * @param pointerPaint {@code Paint} whose color is used for the pointer.
+	 */
+	void draw(Canvas canvas, float cx, float cy, Paint haloPaint,
+			Paint pointerPaint) {
+		cx = Math.round(cx);
+		cy = Math.round(cy);
+		if (Rendering.isReferencePath()) {
+			canvas.drawCircle(cx, cy, mHaloRadius, haloPaint);
+			canvas.drawCircle(cx, cy, mPointerRadius, pointerPaint);
+			return;
+		}
+		canvas.drawBitmap(mHalo, cx - mOffset, cy - mOffset, haloPaint);
+		canvas.drawBitmap(mPointer, cx - mOffset, cy - mOffset, pointerPaint);
+	}
+}
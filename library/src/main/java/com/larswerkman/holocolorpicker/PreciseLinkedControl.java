@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * A {@link LinkedControl} that can also compute its output as a
+ * {@link ColorLong color long}, so the high-precision colors of
+ * {@link ColorPicker#getColorLong()} are not rounded to 8 bits at this
+ * stage.
+ *
+ * <p>
+ * Controls that don't implement this interface still work in the
+ * high-precision chain, their {@code int} output is expanded with
+ * {@link ColorLong#fromArgb(int, int)}.
+ * </p>
+ */
+public interface PreciseLinkedControl extends LinkedControl {
+
+	/**
+	 * Compute the output of this control for an input at the current pointer
+	 * position. Doesn't change the control.
+	 *
+	 * @param color The color long output of the previous stage.
+	 *
+	 * @return The color long output, in the color space of the input.
+	 */
+	public long getColorLong(long color);
+}
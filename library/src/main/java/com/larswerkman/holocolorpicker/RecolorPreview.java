@@ -0,0 +1,339 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Recolors an image with the color picked on a {@link ColorPicker} while the
+ * user drags.
+ *
+ * <p>
+ * The picked color is compared with a reference color, by default the color
+ * of the picker when the preview was bound, and the difference in hue,
+ * saturation and value is applied to every pixel of the image. Every color
+ * change first recolors a downsampled copy on the UI thread for immediate
+ * feedback. Once the color has not changed for {@link #SETTLE_DELAY} ms, the
+ * full image is recolored in tiles on the supplied {@code Executor} and
+ * delivered when all tiles are done. A new color cancels the tiles of the
+ * previous one, they stop at the next row.
+ * </p>
+ *
+ * <p>
+ * The preview becomes the {@code OnColorChangedListener} of the picker and
+ * forwards every color to the listener that was set before. Use it from the
+ * UI thread only; {@link OnPreviewListener} is called on the UI thread.
+ * </p>
+ */
+public class RecolorPreview implements ColorPicker.OnColorChangedListener {
+
+	/**
+	 * Longest side of the downsampled copy, in pixels.
+	 */
+	public static final int PREVIEW_SIZE = 256;
+
+	/**
+	 * Time (in ms) the color has to stay unchanged before the full image is
+	 * recolored.
+	 */
+	public static final long SETTLE_DELAY = 150;
+
+	/**
+	 * Pixels per tile of the full image, at least one row.
+	 */
+	private static final int TILE_PIXELS = 1 << 16;
+
+	/**
+	 * Receives the recolored images.
+	 */
+	public interface OnPreviewListener {
+		/**
+		 * @param bitmap The recolored image. The same instances are updated
+		 *            for later colors.
+		 * @param refined {@code false} for the downsampled copy,
+		 *            {@code true} for the full image.
+		 */
+		public void onPreview(Bitmap bitmap, boolean refined);
+	}
+
+	private final ColorPicker mPicker;
+
+	/**
+	 * The listener of the picker before it was bound.
+	 */
+	private final ColorPicker.OnColorChangedListener mListener;
+
+	private final OnPreviewListener mPreviewListener;
+
+	private final Executor mExecutor;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	/*
+	 * The pixels of the full image, never modified.
+	 */
+	private final int[] mSource;
+	private final int mWidth;
+	private final int mHeight;
+
+	/*
+	 * The downsampled copy: its original pixels, the recolored pixels and the
+	 * bitmap showing them.
+	 */
+	private final int[] mSmallSource;
+	private final int[] mSmallPixels;
+	private final Bitmap mSmallBitmap;
+
+	/**
+	 * The recolored full image, created on the first refinement.
+	 */
+	private Bitmap mFullBitmap;
+
+	/**
+	 * A pixel buffer of the size of the full image, not in use by any
+	 * refinement.
+	 */
+	private final AtomicReference<int[]> mSpareBuffer = new AtomicReference<int[]>();
+
+	/**
+	 * Incremented for every color, refinements of older colors are stale.
+	 */
+	private final AtomicInteger mGeneration = new AtomicInteger();
+
+	private final float[] mReferenceHSV = new float[3];
+	private final float[] mHSV = new float[3];
+
+	/*
+	 * The shift of the latest color.
+	 */
+	private float mHueShift;
+	private float mSaturationShift;
+	private float mValueShift;
+
+	private final Runnable mSettle = new Runnable() {
+		@Override
+		public void run() {
+			refine();
+		}
+	};
+
+	/**
+	 * Bind a preview of an image to a picker.
+	 *
+	 * @param picker {@code ColorPicker} instance.
+	 * @param source The image to recolor, not modified.
+	 * @param executor {@code Executor} the tiles of the full image run on.
+	 * @param listener {@code OnPreviewListener} receiving the images.
+	 */
+	public RecolorPreview(ColorPicker picker, Bitmap source, Executor executor,
+			OnPreviewListener listener) {
+		mPicker = picker;
+		mExecutor = executor;
+		mPreviewListener = listener;
+
+		mWidth = source.getWidth();
+		mHeight = source.getHeight();
+		mSource = new int[mWidth * mHeight];
+		source.getPixels(mSource, 0, mWidth, 0, 0, mWidth, mHeight);
+
+		float scale = Math.min(1f, (float) PREVIEW_SIZE
+				/ Math.max(mWidth, mHeight));
+		int width = Math.max(1, Math.round(mWidth * scale));
+		int height = Math.max(1, Math.round(mHeight * scale));
+		Bitmap small = Bitmap.createScaledBitmap(source, width, height, true);
+		mSmallSource = new int[width * height];
+		small.getPixels(mSmallSource, 0, width, 0, 0, width, height);
+		if (small != source) {
+			small.recycle();
+		}
+		mSmallPixels = new int[mSmallSource.length];
+		mSmallBitmap = Bitmap.createBitmap(width, height,
+				Bitmap.Config.ARGB_8888);
+
+		setReferenceColor(picker.getColor());
+		mListener = picker.getOnColorChangedListener();
+		picker.setOnColorChangedListener(this);
+	}
+
+	/**
+	 * Release the picker, restore its previous listener and cancel pending
+	 * work.
+	 */
+	public void unbind() {
+		mGeneration.incrementAndGet();
+		mHandler.removeCallbacks(mSettle);
+		if (mPicker.getOnColorChangedListener() == this) {
+			mPicker.setOnColorChangedListener(mListener);
+		}
+	}
+
+	/**
+	 * Set the color the picked color is compared with. Picking the reference
+	 * color shows the image unchanged.
+	 *
+	 * @param color The ARGB value of the reference color.
+	 */
+	public void setReferenceColor(int color) {
+		ColorMath.colorToHSV(color, mReferenceHSV);
+	}
+
+	@Override
+	public void onColorChanged(int color) {
+		mGeneration.incrementAndGet();
+
+		ColorMath.colorToHSV(color, mHSV);
+		mHueShift = mHSV[0] - mReferenceHSV[0];
+		mSaturationShift = mHSV[1] - mReferenceHSV[1];
+		mValueShift = mHSV[2] - mReferenceHSV[2];
+
+		// Recolor the downsampled copy right away.
+		int width = mSmallBitmap.getWidth();
+		System.arraycopy(mSmallSource, 0, mSmallPixels, 0, mSmallPixels.length);
+		ColorArrays.shiftHSV(mSmallPixels, 0, mSmallPixels.length, mHueShift,
+				mSaturationShift, mValueShift);
+		mSmallBitmap.setPixels(mSmallPixels, 0, width, 0, 0, width,
+				mSmallBitmap.getHeight());
+		mPreviewListener.onPreview(mSmallBitmap, false);
+
+		// Refine once the pointer settles.
+		mHandler.removeCallbacks(mSettle);
+		mHandler.postDelayed(mSettle, SETTLE_DELAY);
+
+		if (mListener != null) {
+			mListener.onColorChanged(color);
+		}
+	}
+
+	/**
+	 * Start recoloring the full image with the latest shift.
+	 */
+	private void refine() {
+		int[] buffer = mSpareBuffer.getAndSet(null);
+		if (buffer == null) {
+			buffer = new int[mSource.length];
+		}
+
+		int rows = Math.max(1, TILE_PIXELS / mWidth);
+		int tiles = (mHeight + rows - 1) / rows;
+		Refinement refinement = new Refinement(mGeneration.get(), buffer,
+				tiles, mHueShift, mSaturationShift, mValueShift);
+		for (int tile = 0; tile < tiles; tile++) {
+			int top = tile * rows;
+			Runnable task = refinement.tile(top, Math.min(top + rows, mHeight));
+			try {
+				mExecutor.execute(task);
+			} catch (RejectedExecutionException e) {
+				// Give up on this color, the buffer returns once the
+				// submitted tiles are done.
+				refinement.cancel();
+				for (; tile < tiles; tile++) {
+					refinement.tileDone();
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The recoloring of the full image for one color.
+	 */
+	private final class Refinement {
+
+		private final int mGeneration;
+		private final int[] mBuffer;
+		private final AtomicInteger mRemaining;
+		private final float mHue;
+		private final float mSaturation;
+		private final float mValue;
+		private volatile boolean mCancelled;
+
+		Refinement(int generation, int[] buffer, int tiles, float hue,
+				float saturation, float value) {
+			mGeneration = generation;
+			mBuffer = buffer;
+			mRemaining = new AtomicInteger(tiles);
+			mHue = hue;
+			mSaturation = saturation;
+			mValue = value;
+		}
+
+		boolean isStale() {
+			return mCancelled
+					|| mGeneration != RecolorPreview.this.mGeneration.get();
+		}
+
+		void cancel() {
+			mCancelled = true;
+		}
+
+		/**
+		 * Get the task recoloring the rows {@code top} (inclusive) to
+		 * {@code bottom} (exclusive).
+		 */
+		Runnable tile(final int top, final int bottom) {
+			return new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int row = top; row < bottom && !isStale(); row++) {
+							int offset = row * mWidth;
+							System.arraycopy(mSource, offset, mBuffer, offset,
+									mWidth);
+							ColorArrays.shiftHSV(mBuffer, offset, mWidth, mHue,
+									mSaturation, mValue);
+						}
+					} finally {
+						tileDone();
+					}
+				}
+			};
+		}
+
+		/**
+		 * Count a finished tile, the last one hands the buffer to the UI
+		 * thread.
+		 */
+		void tileDone() {
+			if (mRemaining.decrementAndGet() != 0) {
+				return;
+			}
+			mHandler.post(new Runnable() {
+				@Override
+				public void run() {
+					if (!isStale()) {
+						if (mFullBitmap == null) {
+							mFullBitmap = Bitmap.createBitmap(mWidth, mHeight,
+									Bitmap.Config.ARGB_8888);
+						}
+						mFullBitmap.setPixels(mBuffer, 0, mWidth, 0, 0, mWidth,
+								mHeight);
+						mPreviewListener.onPreview(mFullBitmap, true);
+					}
+					mSpareBuffer.set(mBuffer);
+				}
+			});
+		}
+	}
+}
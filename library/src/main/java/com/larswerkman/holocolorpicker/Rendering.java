@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Selects between the cached and the reference rendering of the picker and
+ * the bars.
+ *
+ * <p>
+ * By default the views draw from their caches: pre-rendered pointer sprites,
+ * the polar grid bitmap of the color disc, the palette ring bitmap and the
+ * lookup table bitmap of the gradient editor. The reference path draws the
+ * same content directly with circles, arcs and gradients on every frame. It
+ * is slower and only meant for comparing the two, e.g. with
+ * {@link ImageDiff}, to prove a rendering optimization does not change the
+ * output. Only the tests switch it.
+ * </p>
+ */
+final class Rendering {
+
+	private static volatile boolean sReferencePath;
+
+	private Rendering() {
+	}
+
+	/**
+	 * Switch all views to the reference or the cached rendering. Views
+	 * already on screen pick it up when they are drawn next.
+	 *
+	 * @param reference {@code true} to draw without caches.
+	 */
+	static void setReferencePath(boolean reference) {
+		sReferencePath = reference;
+	}
+
+	static boolean isReferencePath() {
+		return sReferencePath;
+	}
+}
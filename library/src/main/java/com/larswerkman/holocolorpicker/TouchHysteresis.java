@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Absorbs touch movements smaller than a threshold, so jitter of a held
+ * finger doesn't recompute the color and the linked controls on every
+ * {@code ACTION_MOVE}.
+ *
+ * <p>
+ * A move is accepted once it is more than the threshold away from the last
+ * accepted position. With a threshold of 0 only moves to the exact same
+ * position are absorbed.
+ * </p>
+ */
+final class TouchHysteresis {
+
+	/**
+	 * The threshold in pixels.
+	 */
+	private float mThreshold;
+
+	/**
+	 * The last accepted position, {@code NaN} after {@link #reset()}.
+	 */
+	private float mX = Float.NaN;
+	private float mY = Float.NaN;
+
+	public void setThreshold(float threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("threshold < 0");
+		}
+		mThreshold = threshold;
+	}
+
+	public float getThreshold() {
+		return mThreshold;
+	}
+
+	/**
+	 * Forget the last accepted position, the next move is always accepted.
+	 */
+	public void reset() {
+		mX = Float.NaN;
+		mY = Float.NaN;
+	}
+
+	/**
+	 * Set the last accepted position without testing it, e.g. on
+	 * {@code ACTION_DOWN}.
+	 */
+	public void set(float x, float y) {
+		mX = x;
+		mY = y;
+	}
+
+	/**
+	 * Test a move along a bar.
+	 *
+	 * @param position The position along the bar.
+	 *
+	 * @return {@code true} if the move is accepted and becomes the last
+	 *         accepted position.
+	 */
+	public boolean accept(float position) {
+		return accept(position, 0);
+	}
+
+	/**
+	 * Test a move in two dimensions.
+	 *
+	 * @return {@code true} if the move is accepted and becomes the last
+	 *         accepted position.
+	 */
+	public boolean accept(float x, float y) {
+		float dx = x - mX;
+		float dy = y - mY;
+		// NaN after a reset fails the comparison, so the move is accepted.
+		if (dx * dx + dy * dy <= mThreshold * mThreshold) {
+			return false;
+		}
+		mX = x;
+		mY = y;
+		return true;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import android.view.MotionEvent;
+
+/**
+ * Extrapolates a drag from its recent velocity, so the pointer can be drawn
+ * where the finger will be when the frame reaches the screen.
+ *
+ * <p>
+ * The velocity is taken from the samples of the last {@link #WINDOW}
+ * milliseconds, including the batched history of every
+ * {@code MotionEvent}. Predictions are only for drawing; the views commit
+ * the real samples and recompute the prediction on each of them.
+ * </p>
+ */
+final class TouchPredictor {
+
+	/**
+	 * Age in ms of the oldest sample used for the velocity.
+	 */
+	static final int WINDOW = 40;
+
+	/**
+	 * Number of samples kept, a power of two.
+	 */
+	private static final int CAPACITY = 8;
+
+	private final long[] mTimes = new long[CAPACITY];
+	private final float[] mX = new float[CAPACITY];
+	private final float[] mY = new float[CAPACITY];
+
+	/**
+	 * Total number of samples added since the last {@link #reset()}.
+	 */
+	private int mCount;
+
+	/**
+	 * How far ahead to predict, in ms. 0 disables the prediction.
+	 */
+	private int mHorizon;
+
+	public void setHorizon(int horizon) {
+		if (horizon < 0) {
+			throw new IllegalArgumentException("horizon < 0");
+		}
+		mHorizon = horizon;
+	}
+
+	public int getHorizon() {
+		return mHorizon;
+	}
+
+	public boolean isEnabled() {
+		return mHorizon > 0;
+	}
+
+	/**
+	 * Forget the samples of the previous drag.
+	 */
+	public void reset() {
+		mCount = 0;
+	}
+
+	/**
+	 * Add the samples of an event, its history first.
+	 *
+	 * @param event The {@code MotionEvent}.
+	 * @param dx Offset added to the X-coordinates.
+	 * @param dy Offset added to the Y-coordinates.
+	 */
+	public void add(MotionEvent event, float dx, float dy) {
+		if (mHorizon == 0) {
+			return;
+		}
+		for (int i = 0; i < event.getHistorySize(); i++) {
+			add(event.getHistoricalEventTime(i), event.getHistoricalX(i) + dx,
+					event.getHistoricalY(i) + dy);
+		}
+		add(event.getEventTime(), event.getX() + dx, event.getY() + dy);
+	}
+
+	/**
+	 * Add a single sample.
+	 *
+	 * @param time The event time in ms.
+	 * @param x The X-coordinate.
+	 * @param y The Y-coordinate.
+	 */
+	void add(long time, float x, float y) {
+		int index = mCount & (CAPACITY - 1);
+		mTimes[index] = time;
+		mX[index] = x;
+		mY[index] = y;
+		mCount++;
+	}
+
+	/**
+	 * Predict the position {@link #getHorizon()} ms after the last sample.
+	 *
+	 * @param out Array receiving the predicted X- and Y-coordinate.
+	 *
+	 * @return {@code false} if the prediction is disabled or there are not
+	 *         enough samples, {@code out} is untouched then.
+	 */
+	public boolean predict(float[] out) {
+		if (mHorizon == 0 || mCount < 2) {
+			return false;
+		}
+
+		int last = (mCount - 1) & (CAPACITY - 1);
+		long time = mTimes[last];
+		int first = last;
+		int available = Math.min(mCount, CAPACITY);
+		for (int i = 1; i < available; i++) {
+			int index = (mCount - 1 - i) & (CAPACITY - 1);
+			if (time - mTimes[index] > WINDOW) {
+				break;
+			}
+			first = index;
+		}
+
+		long elapsed = time - mTimes[first];
+		if (elapsed <= 0) {
+			return false;
+		}
+		float scale = (float) mHorizon / elapsed;
+		out[0] = mX[last] + (mX[last] - mX[first]) * scale;
+		out[1] = mY[last] + (mY[last] - mY[first]) * scale;
+		return true;
+	}
+}
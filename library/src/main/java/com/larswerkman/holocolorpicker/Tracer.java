@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Receives the sections the picker and the bars measure, lay out, draw,
+ * handle touch events and dispatch to their listeners in.
+ *
+ * <p>
+ * Install an implementation with {@link Tracing#setTracer(Tracer)}. Section
+ * names are constants like {@code "ColorPicker.onDraw"}, so they can be
+ * compared by identity and passing them does not allocate. Sections nest and
+ * are always ended on the thread that began them, in reverse order.
+ * </p>
+ *
+ * @see AndroidTracer
+ * @see HistogramTracer
+ */
+public interface Tracer {
+
+	/**
+	 * Called when a section starts.
+	 *
+	 * @param section The name of the section.
+	 */
+	public void beginSection(String section);
+
+	/**
+	 * Called when the last section that was started ends.
+	 *
+	 * @param section The name of the section.
+	 */
+	public void endSection(String section);
+}
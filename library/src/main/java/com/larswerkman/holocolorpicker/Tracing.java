@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+/**
+ * Holds the {@link Tracer} of the picker and the bars.
+ *
+ * <p>
+ * Tracing is disabled until a tracer is set; each traced section then costs
+ * a field read and a null check, so it can stay compiled into release builds
+ * and be turned on in the field.
+ * </p>
+ */
+public final class Tracing {
+
+	private static volatile Tracer sTracer;
+
+	private Tracing() {
+	}
+
+	/**
+	 * Set the tracer, {@code null} disables tracing. Sections that already
+	 * began are ended on the tracer that began them.
+	 *
+	 * @param tracer The {@code Tracer} instance.
+	 */
+	public static void setTracer(Tracer tracer) {
+		sTracer = tracer;
+	}
+
+	public static Tracer getTracer() {
+		return sTracer;
+	}
+
+	/**
+	 * Begin a section on the current tracer.
+	 *
+	 * @param section The name of the section.
+	 *
+	 * @return The tracer to end the section on, {@code null} if tracing is
+	 *         disabled.
+	 */
+	static Tracer begin(String section) {
+		Tracer tracer = sTracer;
+		if (tracer != null) {
+			tracer.beginSection(section);
+		}
+		return tracer;
+	}
+
+	/**
+	 * End a section begun by {@link #begin(String)}.
+	 *
+	 * @param tracer The tracer returned by {@code begin}.
+	 * @param section The name of the section.
+	 */
+	static void end(Tracer tracer, String section) {
+		if (tracer != null) {
+			tracer.endSection(section);
+		}
+	}
+}
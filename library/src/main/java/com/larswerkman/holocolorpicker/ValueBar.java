@@ -21,7 +21,7 @@ import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.LinearGradient;
+import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.RectF;
 import android.graphics.Shader;
@@ -33,7 +33,7 @@ import android.view.View;
 
 import com.larswerkman.holocolorpicker.R;
 
-public class ValueBar extends View {
+public class ValueBar extends View implements PreciseLinkedControl {
 
 	/*
 	 * Constants used to save/restore the instance state.
@@ -42,6 +42,15 @@ public class ValueBar extends View {
 	private static final String STATE_COLOR = "color";
 	private static final String STATE_VALUE = "value";
 	private static final String STATE_ORIENTATION = "orientation";
+
+	/*
+	 * Names of the traced sections.
+	 */
+	private static final String TRACE_MEASURE = "ValueBar.onMeasure";
+	private static final String TRACE_SIZE_CHANGED = "ValueBar.onSizeChanged";
+	private static final String TRACE_DRAW = "ValueBar.onDraw";
+	private static final String TRACE_TOUCH = "ValueBar.onTouchEvent";
+	private static final String TRACE_LISTENER = "ValueBar.onValueChanged";
 	
 	/**
 	 * Constants used to identify orientation.
@@ -95,16 +104,42 @@ public class ValueBar extends View {
 	 */
 	private Paint mBarPointerHaloPaint;
 
+	/**
+	 * {@code PointerSprite} instance used to draw the pointer and its halo.
+	 */
+	private PointerSprite mPointerSprite;
+
+	/**
+	 * The simulated color vision deficiency, see {@link ColorVision}.
+	 */
+	private int mColorVisionMode = ColorVision.MODE_NONE;
+
+	/**
+	 * The filter simulating it, applied to every paint while drawing.
+	 */
+	private ColorFilter mColorVisionFilter;
+
 	/**
 	 * The rectangle enclosing the bar.
 	 */
 	private RectF mBarRect = new RectF();
 
 	/**
-	 * {@code Shader} instance used to fill the shader of the paint.
+	 * {@code Shader} instance used to fill the shader of the paint, built on
+	 * the first draw after the bar or its input color changed.
 	 */
 	private Shader shader;
 
+	/**
+	 * The color the gradient of the bar is built from.
+	 */
+	private int mShaderColor;
+
+	/**
+	 * The ARGB value of the pointer.
+	 */
+	private int mBarPointerColor = 0xff81ff00;
+
 	/**
 	 * {@code true} if the user clicked on the pointer to start the move mode. <br>
 	 * {@code false} once the user stops touching the screen.
@@ -113,6 +148,25 @@ public class ValueBar extends View {
 	 */
 	private boolean mIsMovingPointer;
 
+	/**
+	 * Absorbs pointer moves within the touch hysteresis.
+	 * 
+	 * @see #setTouchHysteresis(float)
+	 */
+	private final TouchHysteresis mTouchHysteresis = new TouchHysteresis();
+
+	/**
+	 * Extrapolates the drag, see {@link #setTouchPrediction(int)}.
+	 */
+	private final TouchPredictor mTouchPredictor = new TouchPredictor();
+	private final float[] mPrediction = new float[2];
+
+	/**
+	 * The position the pointer is drawn at while predicting, -1 to draw it
+	 * at {@code mBarPointerPosition}.
+	 */
+	private int mPredictedPosition = -1;
+
 	/**
 	 * The ARGB value of the currently selected color.
 	 */
@@ -124,6 +178,11 @@ public class ValueBar extends View {
 	 */
 	private float[] mHSVColor = new float[3];
 
+	/**
+	 * Scratch array for {@link #getColorLong(long)}.
+	 */
+	private final float[] mPreciseHSV = new float[3];
+
 	/**
 	 * Factor used to calculate the position to the Opacity on the bar.
 	 */
@@ -201,27 +260,30 @@ public class ValueBar extends View {
 				b.getDimensionPixelSize(R.dimen.bar_pointer_halo_radius));
 		mOrientation = a.getBoolean(
 				R.styleable.ColorBars_bar_orientation_horizontal, ORIENTATION_DEFAULT);
+		mTouchHysteresis.setThreshold(Math.max(a.getDimension(
+				R.styleable.ColorBars_bar_touch_hysteresis, 0), 0));
+		mTouchPredictor.setHorizon(Math.max(
+				a.getInt(R.styleable.ColorBars_bar_touch_prediction, 0), 0));
 
 		a.recycle();
 
-		mBarPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mBarPaint.setShader(shader);
-
 		mBarPointerPosition = mBarPointerHaloRadius;
 
-		mBarPointerHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mBarPointerHaloPaint.setColor(Color.BLACK);
-		mBarPointerHaloPaint.setAlpha(0x50);
-
-		mBarPointerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-		mBarPointerPaint.setColor(0xff81ff00);
-
 		mPosToSatFactor = 1 / ((float) mBarLength);
 		mSatToPosFactor = ((float) mBarLength) / 1;
 	}
 
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		Tracer tracer = Tracing.begin(TRACE_MEASURE);
+		try {
+			measureBar(widthMeasureSpec, heightMeasureSpec);
+		} finally {
+			Tracing.end(tracer, TRACE_MEASURE);
+		}
+	}
+
+	private void measureBar(int widthMeasureSpec, int heightMeasureSpec) {
 		final int intrinsicSize = mPreferredBarLength
 				+ (mBarPointerHaloRadius * 2);
 
@@ -261,44 +323,31 @@ public class ValueBar extends View {
 
 	@Override
 	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		Tracer tracer = Tracing.begin(TRACE_SIZE_CHANGED);
+		try {
+			handleSizeChanged(w, h, oldw, oldh);
+		} finally {
+			Tracing.end(tracer, TRACE_SIZE_CHANGED);
+		}
+	}
+
+	private void handleSizeChanged(int w, int h, int oldw, int oldh) {
 		super.onSizeChanged(w, h, oldw, oldh);
 
 		// Fill the rectangle instance based on orientation
-		int x1, y1;
-		if (mOrientation == ORIENTATION_HORIZONTAL) {
-			x1 = (mBarLength + mBarPointerHaloRadius);
-			y1 = mBarThickness;
-			mBarLength = w - (mBarPointerHaloRadius * 2);
-			mBarRect.set(mBarPointerHaloRadius,
-					(mBarPointerHaloRadius - (mBarThickness / 2)),
-					(mBarLength + (mBarPointerHaloRadius)),
-					(mBarPointerHaloRadius + (mBarThickness / 2)));
-		}
-		else {
-			x1 = mBarThickness;
-			y1 = (mBarLength + mBarPointerHaloRadius);
-			mBarLength = h - (mBarPointerHaloRadius * 2);
-			mBarRect.set((mBarPointerHaloRadius - (mBarThickness / 2)),
-					mBarPointerHaloRadius,
-					(mBarPointerHaloRadius + (mBarThickness / 2)),
-					(mBarLength + (mBarPointerHaloRadius)));
-		}
+		mBarLength = BarPainter.setBarRect(mBarRect,
+				mOrientation == ORIENTATION_HORIZONTAL, w, h,
+				mBarPointerHaloRadius, mBarThickness);
 
 		// Update variables that depend of mBarLength.
 		if (!isInEditMode()) {
-			shader = new LinearGradient(mBarPointerHaloRadius, 0,
-					x1, y1,
-					new int[] { Color.HSVToColor(0xFF, mHSVColor), Color.BLACK },
-					null, Shader.TileMode.CLAMP);
+			mShaderColor = Color.HSVToColor(0xFF, mHSVColor);
 		} else {
-			shader = new LinearGradient(mBarPointerHaloRadius, 0,
-					x1, y1,
-					new int[] { 0xff81ff00, Color.BLACK }, null,
-					Shader.TileMode.CLAMP);
+			mShaderColor = 0xff81ff00;
 			Color.colorToHSV(0xff81ff00, mHSVColor);
 		}
+		shader = null;
 
-		mBarPaint.setShader(shader);
 		mPosToSatFactor = 1 / ((float) mBarLength);
 		mSatToPosFactor = ((float) mBarLength) / 1;
 
@@ -314,30 +363,79 @@ public class ValueBar extends View {
 		}
 	}
 
+	/**
+	 * @return Whether the paints were created, which happens on the first draw.
+	 */
+	boolean hasPaints() {
+		return mBarPaint != null;
+	}
+
+	/**
+	 * Create the paints on the first draw and rebuild the shader if the bar
+	 * changed since the last one.
+	 */
+	private void preparePaints() {
+		if (mBarPaint == null) {
+			mBarPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+			mBarPointerHaloPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mBarPointerHaloPaint.setColor(Color.BLACK);
+			mBarPointerHaloPaint.setAlpha(0x50);
+
+			mBarPointerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		}
+
+		if (shader == null) {
+			shader = BarPainter.createShader(
+					mOrientation == ORIENTATION_HORIZONTAL, mBarLength,
+					mBarPointerHaloRadius, mBarThickness,
+					new int[] { mShaderColor, Color.BLACK });
+			mBarPaint.setShader(shader);
+		}
+		mBarPointerPaint.setColor(mBarPointerColor);
+
+		mBarPaint.setColorFilter(mColorVisionFilter);
+		mBarPointerHaloPaint.setColorFilter(mColorVisionFilter);
+		mBarPointerPaint.setColorFilter(mColorVisionFilter);
+	}
+
 	@Override
 	protected void onDraw(Canvas canvas) {
-		// Draw the bar.
-		canvas.drawRect(mBarRect, mBarPaint);
-
-		// Calculate the center of the pointer.
-		int cX, cY;
-		if (mOrientation == ORIENTATION_HORIZONTAL) {
-			cX = mBarPointerPosition;
-			cY = mBarPointerHaloRadius;
+		Tracer tracer = Tracing.begin(TRACE_DRAW);
+		try {
+			drawBar(canvas);
+		} finally {
+			Tracing.end(tracer, TRACE_DRAW);
 		}
-		else {
-			cX = mBarPointerHaloRadius;
-			cY = mBarPointerPosition;
+	}
+
+	private void drawBar(Canvas canvas) {
+		preparePaints();
+
+		// Draw the bar, the pointer halo and the pointer.
+		int position = mPredictedPosition >= 0 ? mPredictedPosition
+				: mBarPointerPosition;
+		if (mPointerSprite == null) {
+			mPointerSprite = PointerSprite.obtain(mBarPointerHaloRadius,
+					mBarPointerRadius);
 		}
-		
-		// Draw the pointer halo.
-		canvas.drawCircle(cX, cY, mBarPointerHaloRadius, mBarPointerHaloPaint);
-		// Draw the pointer.
-		canvas.drawCircle(cX, cY, mBarPointerRadius, mBarPointerPaint);
-	};
+		BarPainter.draw(canvas, mBarRect, mBarPaint,
+				mOrientation == ORIENTATION_HORIZONTAL, position,
+				mBarPointerHaloRadius, mPointerSprite, mBarPointerHaloPaint,
+				mBarPointerPaint);
+	}
 
 	@Override
 	public boolean onTouchEvent(MotionEvent event) {
+		Tracer tracer = Tracing.begin(TRACE_TOUCH);
+		try {
+			return handleTouchEvent(event);
+		} finally {
+			Tracing.end(tracer, TRACE_TOUCH);
+		}
+	}
+
+	private boolean handleTouchEvent(MotionEvent event) {
 		getParent().requestDisallowInterceptTouchEvent(true);
 
 		// Convert coordinates to our internal coordinate system
@@ -352,55 +450,74 @@ public class ValueBar extends View {
 		switch (event.getAction()) {
 		case MotionEvent.ACTION_DOWN:
 		    	mIsMovingPointer = true;
+			mTouchHysteresis.reset();
+			mTouchPredictor.reset();
+			mTouchPredictor.add(event, 0, 0);
 			// Check whether the user pressed on (or near) the pointer
 			if (dimen >= (mBarPointerHaloRadius)
 					&& dimen <= (mBarPointerHaloRadius + mBarLength)) {
 				mBarPointerPosition = Math.round(dimen);
+				mTouchHysteresis.set(dimen, 0);
 				calculateColor(Math.round(dimen));
-				mBarPointerPaint.setColor(mColor);
+				mBarPointerColor = mColor;
 				invalidate();
 			}
 			break;
 		case MotionEvent.ACTION_MOVE:
+			if (mIsMovingPointer) {
+				mTouchPredictor.add(event, 0, 0);
+			}
+			if (mIsMovingPointer && !acceptMove(dimen)) {
+				// Jitter, absorbed before any color is computed.
+				clearPrediction();
+				break;
+			}
+			if (mIsMovingPointer) {
+				updatePrediction();
+			}
 			if (mIsMovingPointer) {
 				// Move the the pointer on the bar.
 				if (dimen >= mBarPointerHaloRadius
 						&& dimen <= (mBarPointerHaloRadius + mBarLength)) {
 					mBarPointerPosition = Math.round(dimen);
 					calculateColor(Math.round(dimen));
-					mBarPointerPaint.setColor(mColor);
+					mBarPointerColor = mColor;
 					if (mPicker != null) {
-						mPicker.setNewCenterColor(mColor);
-						mPicker.changeOpacityBarColor(mColor);
+						mPicker.onLinkedControlChanged(this);
 					}
 					invalidate();
 				} else if (dimen < mBarPointerHaloRadius) {
 					mBarPointerPosition = mBarPointerHaloRadius;
 					mColor = Color.HSVToColor(mHSVColor);
-					mBarPointerPaint.setColor(mColor);
+					mBarPointerColor = mColor;
 					if (mPicker != null) {
-						mPicker.setNewCenterColor(mColor);
-						mPicker.changeOpacityBarColor(mColor);
+						mPicker.onLinkedControlChanged(this);
 					}
 					invalidate();
 				} else if (dimen > (mBarPointerHaloRadius + mBarLength)) {
 					mBarPointerPosition = mBarPointerHaloRadius + mBarLength;
 					mColor = Color.BLACK;
-					mBarPointerPaint.setColor(mColor);
+					mBarPointerColor = mColor;
 					if (mPicker != null) {
-						mPicker.setNewCenterColor(mColor);
-						mPicker.changeOpacityBarColor(mColor);
+						mPicker.onLinkedControlChanged(this);
 					}
 					invalidate();
 				}
 			}
 			if(onValueChangedListener != null && oldChangedListenerValue != mColor){
-	            onValueChangedListener.onValueChanged(mColor);
-	            oldChangedListenerValue = mColor;
+				Tracer listenerTracer = Tracing.begin(TRACE_LISTENER);
+				try {
+					onValueChangedListener.onValueChanged(mColor);
+				} finally {
+					Tracing.end(listenerTracer, TRACE_LISTENER);
+				}
+				oldChangedListenerValue = mColor;
 			}
 			break;
 		case MotionEvent.ACTION_UP:
+		case MotionEvent.ACTION_CANCEL:
 			mIsMovingPointer = false;
+			clearPrediction();
 			break;
 		}
 		return true;
@@ -414,29 +531,21 @@ public class ValueBar extends View {
 	 * @param color
 	 */
 	public void setColor(int color) {
-		int x1, y1;
-		if(mOrientation == ORIENTATION_HORIZONTAL) {
-			x1 = (mBarLength + mBarPointerHaloRadius);
-			y1 = mBarThickness;
-		}
-		else {
-			x1 = mBarThickness;
-			y1 = (mBarLength + mBarPointerHaloRadius);
+		onInputColorChanged(color);
+		if (mPicker != null) {
+			mPicker.onLinkedControlChanged(this);
 		}
-		
+	}
+
+	@Override
+	public int onInputColorChanged(int color) {
 		Color.colorToHSV(color, mHSVColor);
-		shader = new LinearGradient(mBarPointerHaloRadius, 0,
-				x1, y1, new int[] {
-						color, Color.BLACK }, null, Shader.TileMode.CLAMP);
-		mBarPaint.setShader(shader);
+		mShaderColor = color;
+		shader = null;
 		calculateColor(mBarPointerPosition);
-		mBarPointerPaint.setColor(mColor);
-		if (mPicker != null) {
-			mPicker.setNewCenterColor(mColor);
-			if(mPicker.hasOpacityBar())
-				mPicker.changeOpacityBarColor(mColor);
-		}
+		mBarPointerColor = mColor;
 		invalidate();
+		return mColor;
 	}
 
 	/**
@@ -449,10 +558,9 @@ public class ValueBar extends View {
 				.round((mBarLength - (mSatToPosFactor * value))
 						+ mBarPointerHaloRadius);
 		calculateColor(mBarPointerPosition);
-		mBarPointerPaint.setColor(mColor);
+		mBarPointerColor = mColor;
 		if (mPicker != null) {
-			mPicker.setNewCenterColor(mColor);
-			mPicker.changeOpacityBarColor(mColor);
+			mPicker.onLinkedControlChanged(this);
 		}
 		invalidate();
 	}
@@ -492,10 +600,142 @@ public class ValueBar extends View {
 	 * @see com.larswerkman.holocolorpicker.ColorPicker#addSVBar(com.larswerkman.holocolorpicker.SVBar)
 	 * @param picker
 	 */
+	@Override
 	public void setColorPicker(ColorPicker picker) {
 		mPicker = picker;
 	}
 
+	/**
+	 * Set the touch hysteresis. While dragging, the pointer only follows
+	 * the finger once it moved more than this distance from where the
+	 * pointer last followed it. Moves that don't change the pixel of the
+	 * pointer are always ignored and the ends of the bar are always reached.
+	 * 
+	 * @param pixels The distance in pixels, 0 by default.
+	 */
+	public void setTouchHysteresis(float pixels) {
+		mTouchHysteresis.setThreshold(pixels);
+	}
+
+	public float getTouchHysteresis() {
+		return mTouchHysteresis.getThreshold();
+	}
+
+	/**
+	 * Set the touch prediction. While dragging, the pointer is drawn where
+	 * the finger is expected to be this far ahead, extrapolated from its
+	 * recent velocity. Every real sample replaces the prediction. The color
+	 * and the listeners only ever follow the real samples.
+	 * 
+	 * @param millis How far ahead to predict, 0 (the default) disables the
+	 *            prediction.
+	 */
+	public void setTouchPrediction(int millis) {
+		mTouchPredictor.setHorizon(millis);
+		if (millis == 0) {
+			clearPrediction();
+		}
+	}
+
+	public int getTouchPrediction() {
+		return mTouchPredictor.getHorizon();
+	}
+
+	/**
+	 * Extrapolate the drag from the committed samples, clamped to the bar.
+	 */
+	private void updatePrediction() {
+		if (!mTouchPredictor.predict(mPrediction)) {
+			clearPrediction();
+			return;
+		}
+		int position = Math.round(mOrientation == ORIENTATION_HORIZONTAL
+				? mPrediction[0] : mPrediction[1]);
+		position = Math.max(mBarPointerHaloRadius,
+				Math.min(position, mBarPointerHaloRadius + mBarLength));
+		if (position != mPredictedPosition) {
+			mPredictedPosition = position;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Draw the pointer at its committed position again.
+	 */
+	private void clearPrediction() {
+		if (mPredictedPosition >= 0) {
+			mPredictedPosition = -1;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Check whether a move of the pointer to {@code dimen} is more than
+	 * jitter.
+	 */
+	private boolean acceptMove(float dimen) {
+		int start = mBarPointerHaloRadius;
+		int end = mBarPointerHaloRadius + mBarLength;
+		int position = Math.round(dimen);
+		position = position < start ? start : (position > end ? end : position);
+		if (position == mBarPointerPosition) {
+			return false;
+		}
+		if (position == start || position == end) {
+			mTouchHysteresis.set(dimen, 0);
+			return true;
+		}
+		return mTouchHysteresis.accept(dimen);
+	}
+
+	/**
+	 * Preview the bar as seen with a color vision deficiency. The simulation
+	 * is applied as a color filter while drawing, the colors reported by the
+	 * bar are not changed.
+	 * 
+	 * @param mode One of the modes of {@link ColorVision}.
+	 */
+	public void setColorVisionMode(int mode) {
+		mColorVisionFilter = ColorVision.getColorFilter(mode);
+		mColorVisionMode = mode;
+		invalidate();
+	}
+
+	public int getColorVisionMode() {
+		return mColorVisionMode;
+	}
+
+	@Override
+	public int getStage() {
+		return STAGE_VALUE;
+	}
+
+	@Override
+	public void setPointerFromColor(int color, float[] hsv) {
+		mBarPointerPosition = Math
+				.round((mBarLength - (mSatToPosFactor * hsv[2]))
+						+ mBarPointerHaloRadius);
+	}
+
+	@Override
+	public long getColorLong(long color) {
+		ColorLong.colorLongToHSV(color, mPreciseHSV);
+		return ColorLong.HSVToColorLong(mPreciseHSV[0], mPreciseHSV[1],
+				1 - getPointerFraction(), 1f, ColorLong.space(color));
+	}
+
+	/**
+	 * Get the position of the pointer as fraction of the bar length.
+	 */
+	private float getPointerFraction() {
+		if (mBarLength <= 0) {
+			return 0;
+		}
+		float fraction = (mBarPointerPosition - mBarPointerHaloRadius)
+				/ (float) mBarLength;
+		return fraction < 0 ? 0 : (fraction > 1 ? 1 : fraction);
+	}
+
 	@Override
 	protected Parcelable onSaveInstanceState() {
 		Parcelable superState = super.onSaveInstanceState();
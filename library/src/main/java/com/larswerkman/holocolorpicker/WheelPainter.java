@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.SweepGradient;
+
+/**
+ * Geometry and drawing of the color wheel shared by {@link ColorPicker} and
+ * {@link ColorWheelDrawable}, so both render the same wheel for a size.
+ *
+ * <p>
+ * All positions are relative to the center of the wheel.
+ * </p>
+ */
+final class WheelPainter {
+
+	private WheelPainter() {
+	}
+
+	/**
+	 * Get the radius of the wheel's ring for a picker of a size.
+	 *
+	 * @param size The width and height of the picker.
+	 * @param wheelThickness The thickness of the ring.
+	 * @param pointerHaloRadius The radius of the pointer halo, which has to
+	 *            fit inside the picker.
+	 *
+	 * @return The radius of the middle of the ring.
+	 */
+	static int getWheelRadius(int size, int wheelThickness,
+			int pointerHaloRadius) {
+		return size / 2 - wheelThickness - pointerHaloRadius;
+	}
+
+	/**
+	 * Scale a radius that is given for the preferred wheel radius to the
+	 * actual one.
+	 *
+	 * @param preferredRadius The radius for the preferred wheel radius.
+	 * @param wheelRadius The actual wheel radius.
+	 * @param preferredWheelRadius The preferred wheel radius.
+	 *
+	 * @return The scaled radius.
+	 */
+	static int scaleRadius(int preferredRadius, int wheelRadius,
+			int preferredWheelRadius) {
+		return (int) ((float) preferredRadius
+				* ((float) wheelRadius / (float) preferredWheelRadius));
+	}
+
+	/**
+	 * Set a rectangle to the bounds of a circle around the center.
+	 */
+	static void setCircle(RectF rectangle, float radius) {
+		rectangle.set(-radius, -radius, radius, radius);
+	}
+
+	/**
+	 * Create the paint of the ring, drawn with
+	 * {@code canvas.drawOval(wheelRectangle, paint)}.
+	 *
+	 * @param wheelThickness The thickness of the ring.
+	 *
+	 * @return The {@code Paint} instance.
+	 */
+	static Paint createWheelPaint(int wheelThickness) {
+		Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setShader(new SweepGradient(0, 0, ColorPicker.COLORS, null));
+		paint.setStyle(Paint.Style.STROKE);
+		paint.setStrokeWidth(wheelThickness);
+		return paint;
+	}
+
+	/**
+	 * Draw the center with the new color, or with the old color in its left
+	 * half and the new one in its right half.
+	 *
+	 * @param canvas The canvas, translated to the center of the wheel.
+	 * @param centerRectangle The bounds of the center.
+	 * @param showOldColor {@code true} to show the old color.
+	 * @param oldPaint Paint with the old color.
+	 * @param newPaint Paint with the new color.
+	 */
+	static void drawCenter(Canvas canvas, RectF centerRectangle,
+			boolean showOldColor, Paint oldPaint, Paint newPaint) {
+		if (showOldColor) {
+			canvas.drawArc(centerRectangle, 90, 180, true, oldPaint);
+			canvas.drawArc(centerRectangle, 270, 180, true, newPaint);
+		} else {
+			canvas.drawArc(centerRectangle, 0, 360, true, newPaint);
+		}
+	}
+}
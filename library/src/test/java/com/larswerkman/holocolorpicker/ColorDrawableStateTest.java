@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Drawables created from the constant state of a wheel or bar show what the
+ * original showed and change independently afterwards.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ColorDrawableStateTest {
+
+	@Test
+	public void newWheelDrawablesCopyTheState() {
+		Resources res = RuntimeEnvironment.application.getResources();
+		ColorWheelDrawable original = new ColorWheelDrawable(res);
+		original.setColor(0xFF336699);
+		original.setOldCenterColor(0xFF996633);
+		original.setAlpha(0x80);
+
+		ColorWheelDrawable copy = (ColorWheelDrawable) newDrawable(original);
+		assertEquals(0xFF336699, copy.getColor());
+		assertEquals(0x80, copy.getAlpha());
+
+		copy.setColor(0xFF00FF00);
+		copy.setAlpha(0xFF);
+		assertEquals(0xFF336699, original.getColor());
+		assertEquals(0x80, original.getAlpha());
+		assertEquals(copy.getIntrinsicWidth(), original.getIntrinsicWidth());
+	}
+
+	@Test
+	public void newBarDrawablesCopyTheState() {
+		Resources res = RuntimeEnvironment.application.getResources();
+		for (int type = ColorBarDrawable.TYPE_SV; type <= ColorBarDrawable.TYPE_OPACITY; type++) {
+			ColorBarDrawable original = new ColorBarDrawable(res, type, true);
+			original.setColor(0x80336699);
+			original.setAlpha(0x40);
+
+			ColorBarDrawable copy = (ColorBarDrawable) newDrawable(original);
+			assertEquals(0x80336699, copy.getColor());
+			assertEquals(0x40, copy.getAlpha());
+
+			copy.setColor(0xFF00FF00);
+			assertEquals(0x80336699, original.getColor());
+			assertEquals(copy.getIntrinsicHeight(),
+					original.getIntrinsicHeight());
+		}
+	}
+
+	private static Drawable newDrawable(Drawable drawable) {
+		Drawable copy = drawable.getConstantState().newDrawable();
+		assertNotSame(drawable, copy);
+		assertNotSame(drawable.getConstantState(), copy.getConstantState());
+		return copy;
+	}
+}
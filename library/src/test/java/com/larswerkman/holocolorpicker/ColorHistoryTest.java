@@ -0,0 +1,195 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColorHistoryTest {
+
+	private File mFile;
+
+	private ColorHistory mHistory;
+
+	@Before
+	public void setUp() throws IOException {
+		mFile = File.createTempFile("history", ".log");
+		mFile.delete();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (mHistory != null) {
+			mHistory.close();
+		}
+		mFile.delete();
+		new File(mFile.getPath() + ".tmp").delete();
+	}
+
+	@Test
+	public void reopeningKeepsColorsAndFavorites() throws IOException {
+		mHistory = new ColorHistory(mFile, null);
+		for (int i = 0; i < 3000; i++) {
+			mHistory.add(i);
+		}
+		mHistory.setFavorite(0xFF0000FF, true);
+		mHistory.setFavorite(0xFF00FF00, true);
+		mHistory.close();
+
+		mHistory = new ColorHistory(mFile, null);
+		int[] colors = new int[3];
+		assertEquals(3, mHistory.getRecent(colors, null));
+		assertArrayEquals(new int[] { 2999, 2998, 2997 }, colors);
+		assertArrayEquals(new int[] { 0xFF0000FF, 0xFF00FF00 },
+				mHistory.getFavorites());
+		assertEquals(3002, mHistory.getRecordCount());
+	}
+
+	@Test
+	public void compactionFoldsFavorites() throws IOException {
+		mHistory = new ColorHistory(mFile, null);
+		for (int i = 0; i < 100; i++) {
+			mHistory.setFavorite(i, true);
+			mHistory.add(i);
+			mHistory.setFavorite(i, i % 10 == 0);
+		}
+		mHistory.setMaxHistory(5);
+		mHistory.compact();
+
+		int[] favorites = { 0, 10, 20, 30, 40, 50, 60, 70, 80, 90 };
+		assertArrayEquals(favorites, mHistory.getFavorites());
+		assertEquals(favorites.length + 5, mHistory.getRecordCount());
+		mHistory.setFavorite(30, false);
+		mHistory.close();
+
+		mHistory = new ColorHistory(mFile, null);
+		assertArrayEquals(new int[] { 0, 10, 20, 40, 50, 60, 70, 80, 90 },
+				mHistory.getFavorites());
+		int[] colors = new int[10];
+		assertEquals(5, mHistory.getRecent(colors, null));
+		assertEquals(99, colors[0]);
+		assertEquals(95, colors[4]);
+	}
+
+	@Test
+	public void appendsContinueDuringCompaction() throws Exception {
+		mHistory = new ColorHistory(mFile, null);
+		for (int i = 0; i < 20000; i++) {
+			mHistory.add(i);
+		}
+		mHistory.setMaxHistory(100);
+
+		final IOException[] failure = new IOException[1];
+		Thread compaction = new Thread() {
+			@Override
+			public void run() {
+				try {
+					mHistory.compact();
+				} catch (IOException e) {
+					failure[0] = e;
+				}
+			}
+		};
+		compaction.start();
+		for (int i = 20000; i < 40000; i++) {
+			mHistory.add(i);
+		}
+		compaction.join();
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+
+		int count = mHistory.getRecordCount();
+		assertTrue(count < 40000);
+		assertRecent(count);
+		mHistory.close();
+
+		mHistory = new ColorHistory(mFile, null);
+		assertEquals(count, mHistory.getRecordCount());
+		assertRecent(count);
+		mHistory.add(40000);
+		assertEquals(40000, recent());
+	}
+
+	@Test
+	public void compactsOnTheExecutorOnlyWhenRecordsCanBeDropped()
+			throws IOException {
+		final AtomicInteger compactions = new AtomicInteger();
+		Executor executor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				compactions.incrementAndGet();
+				command.run();
+			}
+		};
+		mHistory = new ColorHistory(mFile, executor);
+		for (int i = 0; i < 100000; i++) {
+			mHistory.add(i);
+		}
+		assertEquals(0, compactions.get());
+		assertEquals(100000, mHistory.getRecordCount());
+
+		mHistory.setMaxHistory(10);
+		mHistory.add(100000);
+		assertEquals(1, compactions.get());
+		assertEquals(10, mHistory.getRecordCount());
+		assertEquals(100000, recent());
+	}
+
+	@Test
+	public void dropsColorsSelectedAfterClose() throws IOException {
+		mHistory = new ColorHistory(mFile, null);
+		mHistory.onColorSelected(1);
+		mHistory.close();
+		mHistory.onColorSelected(2);
+
+		mHistory = new ColorHistory(mFile, null);
+		assertEquals(1, mHistory.getRecordCount());
+		assertEquals(1, recent());
+		assertFalse(mHistory.isFavorite(1));
+	}
+
+	private int recent() {
+		int[] colors = new int[1];
+		mHistory.getRecent(colors, null);
+		return colors[0];
+	}
+
+	/**
+	 * Assert the log holds the most recent selected colors, in order.
+	 */
+	private void assertRecent(int count) {
+		int[] colors = new int[count];
+		assertEquals(count, mHistory.getRecent(colors, null));
+		assertTrue(count >= 100);
+		for (int i = 0; i < count; i++) {
+			assertEquals(39999 - i, colors[i]);
+		}
+	}
+}
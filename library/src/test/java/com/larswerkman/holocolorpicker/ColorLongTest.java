@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ColorLongTest {
+
+	@Test
+	public void packPlacesEveryComponent() {
+		long color = ColorLong.pack(1f, 0.5f, 0f, 1f,
+				ColorLong.SPACE_DISPLAY_P3);
+
+		assertEquals(0xFFFF, ColorLong.red16(color));
+		assertEquals(32768, ColorLong.green16(color));
+		assertEquals(0, ColorLong.blue16(color));
+		assertEquals(0xFFF, ColorLong.alpha12(color));
+		assertEquals(ColorLong.SPACE_DISPLAY_P3, ColorLong.space(color));
+	}
+
+	@Test
+	public void packClampsComponents() {
+		long color = ColorLong.pack(2f, -1f, Float.NaN, 0.5f,
+				ColorLong.SPACE_SRGB);
+
+		assertEquals(0xFFFF, ColorLong.red16(color));
+		assertEquals(0, ColorLong.green16(color));
+		assertEquals(0, ColorLong.blue16(color));
+	}
+
+	@Test
+	public void argbRoundTripsExactly() {
+		for (int value = 0; value < 256; value++) {
+			int argb = (value << 24) | (value << 16) | ((255 - value) << 8)
+					| (value ^ 0x5A);
+			assertEquals(argb, ColorLong.toArgb(ColorLong.fromArgb(argb,
+					ColorLong.SPACE_SRGB)));
+		}
+	}
+
+	@Test
+	public void hsvRoundTrips() {
+		float[] hsv = new float[3];
+		for (int hue = 0; hue < 360; hue += 15) {
+			long color = ColorLong.HSVToColorLong(hue, 0.75f, 0.5f, 1f,
+					ColorLong.SPACE_SRGB);
+			ColorLong.colorLongToHSV(color, hsv);
+
+			assertEquals(hue, hsv[0], 0.01f);
+			assertEquals(0.75f, hsv[1], 0.001f);
+			assertEquals(0.5f, hsv[2], 0.001f);
+		}
+	}
+
+	@Test
+	public void convertingToP3AndBackKeepsTheColor() {
+		long color = ColorLong.fromArgb(0x80336699, ColorLong.SPACE_SRGB);
+		long back = ColorLong.convert(ColorLong.convert(color,
+				ColorLong.SPACE_DISPLAY_P3), ColorLong.SPACE_SRGB);
+
+		assertEquals(ColorLong.SPACE_SRGB, ColorLong.space(back));
+		assertEquals(ColorLong.toArgb(color), ColorLong.toArgb(back));
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ColorMathTest {
+
+	@Test
+	public void hsvRoundTripsEveryColorOfACube() {
+		float[] hsv = new float[3];
+		for (int r = 0; r < 256; r += 15) {
+			for (int g = 0; g < 256; g += 15) {
+				for (int b = 0; b < 256; b += 15) {
+					int color = 0xFF000000 | (r << 16) | (g << 8) | b;
+					ColorMath.colorToHSV(color, hsv);
+					assertEquals(color, ColorMath.HSVToColor(0xFF, hsv[0],
+							hsv[1], hsv[2]));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void hsvMatchesTheReference() {
+		float[] hsv = new float[4];
+		ColorMath.colorToHSV(0xFF336699, hsv, 1);
+
+		assertEquals(210f, hsv[1], 0.001f);
+		assertEquals(0.667f, hsv[2], 0.001f);
+		assertEquals(0.6f, hsv[3], 0.001f);
+		assertEquals(0, ColorMath.colorToHue(0xFF808080), 0f);
+	}
+
+	@Test
+	public void hsvToColorWrapsHuesAndClamps() {
+		assertEquals(0xFFFF0000, ColorMath.HSVToColor(0xFF, 360, 1, 1));
+		assertEquals(0xFF00FF00, ColorMath.HSVToColor(0xFF, -240, 1, 1));
+		assertEquals(0x80FFFFFF, ColorMath.HSVToColor(0x80, 42, -1, 2));
+	}
+
+	@Test
+	public void interpolatesBetweenStops() {
+		int[] colors = { 0xFF000000, 0x00FFFFFF, 0xFF0000FF };
+
+		assertEquals(0xFF000000, ColorMath.interpolate(colors, -1));
+		assertEquals(0x80808080, ColorMath.interpolate(colors, 0.25f));
+		assertEquals(0x00FFFFFF, ColorMath.interpolate(colors, 0.5f));
+		assertEquals(0xFF0000FF, ColorMath.interpolate(colors, 2));
+	}
+
+	@Test
+	public void saturatesTowardsWhite() {
+		assertEquals(0xFFFF0000, ColorMath.saturate(0xFFFF0000, 255));
+		assertEquals(0xFFFFFFFF, ColorMath.saturate(0xFFFF0000, 0));
+		assertEquals(0x80FF8080, ColorMath.saturate(0x80FF0000, 127));
+	}
+
+	@Test
+	public void luminanceFollowsWcag() {
+		assertEquals(0f, ColorMath.luminance(0xFF000000), 0f);
+		assertEquals(1f, ColorMath.luminance(0x00FFFFFF), 0.0001f);
+		assertEquals(0.2159f, ColorMath.luminance(0xFF808080), 0.0001f);
+		assertEquals(0.0722f, ColorMath.luminance(0xFF0000FF), 0.0001f);
+	}
+}
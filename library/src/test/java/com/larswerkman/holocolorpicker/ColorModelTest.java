@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ColorModelTest {
+
+	@Test
+	public void colorsRoundTripExactly() {
+		ColorModel model = new ColorModel(0);
+		for (int i = 0; i < 0x1000000; i += 0x10307) {
+			int color = 0x80000000 | i;
+			model.setColor(color);
+			assertEquals(color, model.getColor());
+		}
+	}
+
+	@Test
+	public void greysKeepTheHue() {
+		ColorModel model = new ColorModel(0xFF00FF00);
+		model.setColor(0xFF808080);
+
+		assertEquals(120f, ColorModel.getHue(model.getState()), 0.01f);
+		assertEquals(0xFF808080, model.getColor());
+	}
+
+	@Test
+	public void everyWriteBumpsTheSequenceAndNotifies() {
+		ColorModel model = new ColorModel(0xFFFF0000);
+		final AtomicInteger notified = new AtomicInteger();
+		ColorModel.OnModelChangedListener listener = new ColorModel.OnModelChangedListener() {
+			@Override
+			public void onModelChanged(ColorModel model) {
+				notified.incrementAndGet();
+			}
+		};
+		model.addOnModelChangedListener(listener);
+		model.addOnModelChangedListener(listener);
+
+		int sequence = ColorModel.getSequence(model.getState());
+		model.setHue(200);
+		model.setSaturation(0.5f);
+		model.setValue(0.25f);
+		long state = model.setAlpha(0x40);
+		model.removeOnModelChangedListener(listener);
+		model.setAlpha(0x20);
+
+		assertEquals(4, notified.get());
+		assertEquals(sequence + 4, ColorModel.getSequence(state));
+		assertEquals(200f, ColorModel.getHue(state), 0.01f);
+		assertEquals(0.5f, ColorModel.getSaturation(state), 0.001f);
+		assertEquals(0.25f, ColorModel.getValue(state), 0.001f);
+		assertEquals(0x40, ColorModel.getAlpha(state));
+	}
+
+	@Test
+	public void concurrentComponentWritesAreNotLost() throws Exception {
+		final ColorModel model = new ColorModel(0xFF000000);
+		final CountDownLatch start = new CountDownLatch(1);
+		final int writes = 10000;
+		Thread[] threads = new Thread[3];
+		for (int t = 0; t < threads.length; t++) {
+			final int component = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 1; i <= writes; i++) {
+						if (component == 0) {
+							model.setHue(i % 360);
+						} else if (component == 1) {
+							model.setSaturation(i / (float) writes);
+						} else {
+							model.setValue(i / (float) writes);
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		long state = model.getState();
+		assertEquals(writes % 360, ColorModel.getHue(state), 0.01f);
+		assertEquals(1f, ColorModel.getSaturation(state), 0f);
+		assertEquals(1f, ColorModel.getValue(state), 0f);
+		assertEquals((3 * writes) & 0xFFFF, ColorModel.getSequence(state));
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ColorPaletteTest {
+
+	private static final int[] WHEEL = { 0xFFFF0000, 0xFFFF00FF, 0xFF0000FF,
+			0xFF00FFFF, 0xFF00FF00, 0xFFFFFF00, 0xFFFF0000 };
+
+	@Test
+	public void findsTheNearestEntry() {
+		Random random = new Random(7);
+		int[] colors = new int[50];
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] = 0xFF000000 | random.nextInt(0x1000000);
+		}
+		ColorPalette palette = new ColorPalette(colors, WHEEL);
+
+		for (int i = 0; i < 1000; i++) {
+			float angle = (float) ((random.nextFloat() * 4 - 2) * Math.PI);
+			int nearest = palette.nearest(angle);
+
+			float distance = distance(palette.getAngle(nearest), angle);
+			for (int j = 0; j < palette.size(); j++) {
+				assertTrue(distance <= distance(palette.getAngle(j), angle) + 1e-5f);
+			}
+		}
+	}
+
+	@Test
+	public void keepsOneColorPerHue() {
+		ColorPalette palette = new ColorPalette(new int[] { 0xFF800000,
+				0xFFFF0000, 0xFFFF8080, 0xFF00FF00 }, WHEEL);
+
+		assertEquals(2, palette.size());
+		assertEquals(0xFFFF0000, palette.getColor(palette.nearest(0)));
+	}
+
+	@Test
+	public void wrapsAroundTheWheel() {
+		// Hues of 10 and 350 degrees, at angles of -10 and -350 degrees.
+		int nearRed = ColorMath.HSVToColor(0xFF, 10, 1, 1);
+		int beforeRed = ColorMath.HSVToColor(0xFF, 350, 1, 1);
+		ColorPalette palette = new ColorPalette(new int[] { nearRed,
+				beforeRed, 0xFF0000FF }, WHEEL);
+
+		assertEquals(beforeRed,
+				palette.getColor(palette.nearest((float) Math.toRadians(5))));
+		assertEquals(nearRed,
+				palette.getColor(palette.nearest((float) Math.toRadians(-5))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptyPalettes() {
+		new ColorPalette(new int[0], WHEEL);
+	}
+
+	private static float distance(float a, float b) {
+		double turn = 2 * Math.PI;
+		double d = Math.abs(a - b) % turn;
+		return (float) Math.min(d, turn - d);
+	}
+}
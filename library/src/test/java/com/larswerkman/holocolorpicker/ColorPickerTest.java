@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Colors set on the picker are reported the way the wheel shows them.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ColorPickerTest {
+
+	private static final int[] PALETTE = new int[] { 0xFFF44336, 0xFFFFEB3B,
+			0xFF4CAF50, 0xFF2196F3, 0xFF9C27B0 };
+
+	private ColorPicker mPicker;
+
+	@Before
+	public void setUp() {
+		mPicker = new ColorPicker(RuntimeEnvironment.application);
+	}
+
+	@Test
+	public void setColorSnapsToThePalette() {
+		mPicker.setPalette(PALETTE);
+		for (int color : new int[] { 0xFF336699, 0xFFE0A020, 0xFF808080,
+				PALETTE[2] }) {
+			mPicker.setColor(color);
+			assertTrue(Integer.toHexString(mPicker.getColor()),
+					indexOf(PALETTE, mPicker.getColor()) >= 0);
+		}
+		assertEquals(PALETTE[2], mPicker.getColor());
+	}
+
+	@Test
+	public void setColorLongSnapsToThePalette() {
+		mPicker.setPalette(PALETTE);
+		mPicker.setColor(ColorLong.fromArgb(0xFF336699, ColorLong.SPACE_SRGB));
+
+		assertTrue(indexOf(PALETTE, mPicker.getColor()) >= 0);
+		assertEquals(mPicker.getColor(),
+				ColorLong.toArgb(mPicker.getColorLong()));
+	}
+
+	@Test
+	public void setColorReportsTheHueStep() {
+		mPicker.setHueSteps(12);
+		mPicker.setColor(0xFF336699);
+		int color = mPicker.getColor();
+
+		float[] hsv = new float[3];
+		ColorMath.colorToHSV(color, hsv);
+		float hue = hsv[0] / 30;
+		assertEquals(Math.round(hue), hue, 0.05f);
+
+		// Hues within the same segment give the same color.
+		mPicker.setColor(0xFF335C99);
+		assertEquals(color, mPicker.getColor());
+	}
+
+	private static int indexOf(int[] colors, int color) {
+		for (int i = 0; i < colors.length; i++) {
+			if (colors[i] == color) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConflatingColorListenerTest {
+
+	/**
+	 * Time the consumer spends on every color, in ms.
+	 */
+	private static final int CONSUMER_DELAY = 10;
+
+	private ExecutorService mService;
+
+	/**
+	 * Tasks handed to the executor that didn't start yet, and the most there
+	 * ever were.
+	 */
+	private final AtomicInteger mQueued = new AtomicInteger();
+	private final AtomicInteger mMaxQueued = new AtomicInteger();
+
+	private final Executor mExecutor = new Executor() {
+		@Override
+		public void execute(final Runnable task) {
+			// Only the drag thread submits, so the maximum doesn't race.
+			int queued = mQueued.incrementAndGet();
+			if (queued > mMaxQueued.get()) {
+				mMaxQueued.set(queued);
+			}
+			mService.execute(new Runnable() {
+				@Override
+				public void run() {
+					mQueued.decrementAndGet();
+					task.run();
+				}
+			});
+		}
+	};
+
+	@Before
+	public void setUp() {
+		mService = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		mService.shutdownNow();
+	}
+
+	@Test
+	public void dragAt1kHzQueuesAtMostOneTask() throws InterruptedException {
+		final int colors = 1000;
+		final CountDownLatch last = new CountDownLatch(1);
+		final AtomicInteger delivered = new AtomicInteger();
+		final int[] lastDelivered = new int[1];
+
+		ConflatingColorListener listener = new ConflatingColorListener(
+				mExecutor, new ColorPicker.OnColorChangedListener() {
+					@Override
+					public void onColorChanged(int color) {
+						delivered.incrementAndGet();
+						lastDelivered[0] = color;
+						try {
+							Thread.sleep(CONSUMER_DELAY);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						if (color == colors) {
+							last.countDown();
+						}
+					}
+				});
+
+		// One color per millisecond, like a drag reported at 1 kHz.
+		long start = System.nanoTime();
+		for (int i = 1; i <= colors; i++) {
+			long due = start + i * 1000000L;
+			while (System.nanoTime() < due) {
+				Thread.yield();
+			}
+			listener.onColorChanged(i);
+		}
+
+		assertTrue(last.await(5, TimeUnit.SECONDS));
+		assertEquals(1, mMaxQueued.get());
+		assertEquals(colors, lastDelivered[0]);
+		assertEquals(colors, delivered.get() + listener.getDroppedCount());
+		assertTrue(listener.getDroppedCount() > colors / 2);
+	}
+
+	@Test
+	public void deliversEveryColorToAFastConsumer() {
+		final int[] received = new int[3];
+		final AtomicInteger count = new AtomicInteger();
+		Executor direct = new Executor() {
+			@Override
+			public void execute(Runnable task) {
+				task.run();
+			}
+		};
+		ConflatingColorListener listener = new ConflatingColorListener(
+				direct, new ColorPicker.OnColorChangedListener() {
+					@Override
+					public void onColorChanged(int color) {
+						received[count.getAndIncrement()] = color;
+					}
+				});
+
+		listener.onColorChanged(1);
+		listener.onColorChanged(2);
+		listener.onColorChanged(3);
+
+		assertEquals(3, count.get());
+		assertEquals(3, received[2]);
+		assertEquals(0, listener.getDroppedCount());
+		assertFalse(listener.isPending());
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.widget.LinearLayout;
+
+/**
+ * Records a drag over the picker and all four bars and replays it at the
+ * usual display rates. The replay draws the views into bitmaps, so it runs
+ * with native graphics, like {@link GoldenImageTest}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 33)
+public class GestureReplayerTest {
+
+	private static final int[] RATES = new int[] { 60, 120, 240 };
+
+	/**
+	 * Interval of the recorded samples in ms, a 250 Hz touch panel.
+	 */
+	private static final int SAMPLE_INTERVAL = 4;
+
+	/**
+	 * Number of samples of every drag.
+	 */
+	private static final int SAMPLES = 100;
+
+	/**
+	 * {@code Meter} backed by the {@code ThreadMXBean} of the JVM.
+	 */
+	private static final class ThreadMXBeanMeter implements
+			GestureReplayer.Meter {
+
+		private final com.sun.management.ThreadMXBean mBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+
+		@Override
+		public long threadCpuTimeNanos() {
+			return mBean.getCurrentThreadCpuTime();
+		}
+
+		@Override
+		public long threadAllocatedBytes() {
+			return mBean.getThreadAllocatedBytes(Thread.currentThread()
+					.getId());
+		}
+	}
+
+	private ColorPicker mPicker;
+	private SVBar mSVBar;
+	private OpacityBar mOpacityBar;
+	private SaturationBar mSaturationBar;
+	private ValueBar mValueBar;
+	private View[] mViews;
+
+	@Before
+	public void setUp() {
+		Context context = RuntimeEnvironment.application;
+		mPicker = new ColorPicker(context);
+		mSVBar = new SVBar(context);
+		mOpacityBar = new OpacityBar(context);
+		mSaturationBar = new SaturationBar(context);
+		mValueBar = new ValueBar(context);
+		mPicker.addSVBar(mSVBar);
+		mPicker.addOpacityBar(mOpacityBar);
+		mPicker.addSaturationBar(mSaturationBar);
+		mPicker.addValueBar(mValueBar);
+		mPicker.setOnColorChangedListener(new ColorPicker.OnColorChangedListener() {
+			@Override
+			public void onColorChanged(int color) {
+			}
+		});
+		mViews = new View[] { mPicker, mSVBar, mOpacityBar, mSaturationBar,
+				mValueBar };
+
+		// The views need a parent, they disallow intercepting touches.
+		LinearLayout layout = new LinearLayout(context);
+		layout.setOrientation(LinearLayout.VERTICAL);
+		for (View view : mViews) {
+			layout.addView(view, new LinearLayout.LayoutParams(
+					LinearLayout.LayoutParams.WRAP_CONTENT,
+					LinearLayout.LayoutParams.WRAP_CONTENT));
+		}
+		layout.measure(MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED),
+				MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+		layout.layout(0, 0, layout.getMeasuredWidth(),
+				layout.getMeasuredHeight());
+	}
+
+	@Test
+	public void replaysARecordedSessionAtEveryRate() throws IOException {
+		GestureRecording recording = writeAndRead(record());
+		assertEquals(5, recording.getTrackCount());
+		assertEquals(5 * (SAMPLES + 2), recording.size());
+
+		GestureReplayer replayer = new GestureReplayer(recording, mViews);
+		replayer.setMeter(new ThreadMXBeanMeter());
+
+		GestureReplayer.Report previous = null;
+		for (int rate : RATES) {
+			GestureReplayer.Report report = replayer.replay(rate);
+
+			assertEquals(rate, report.getRate());
+			assertTrue(report.toString(), report.getEventCount() > 0);
+			assertTrue(report.toString(), report.getFrameCount() > 0);
+			assertTrue(report.toString(), report.getInvalidationCount() > 0);
+			assertTrue(report.toString(), report.getListenerCallCount() > 0);
+			assertTrue(report.toString(), report.getCpuNanos() > 0);
+			assertTrue(report.toString(), report.getAllocatedBytes() >= 0);
+			for (View view : mViews) {
+				String section = view.getClass().getSimpleName() + ".onDraw";
+				assertTrue(section, report.getTracer().getHistogram(section)
+						.getCount() > 0);
+			}
+
+			// Faster displays batch fewer moves into every event.
+			if (previous != null) {
+				assertTrue(report.toString(),
+						report.getEventCount() >= previous.getEventCount());
+				assertTrue(report.toString(),
+						report.getFrameCount() > previous.getFrameCount());
+			}
+			previous = report;
+		}
+	}
+
+	/**
+	 * Drag the picker's pointer around the wheel, then drag every bar from
+	 * one end to the other, while recording.
+	 */
+	private GestureRecording record() {
+		GestureRecorder recorder = new GestureRecorder();
+		recorder.start(mViews);
+
+		Resources resources = mPicker.getResources();
+		float center = mPicker.getWidth() / 2f;
+		float radius = center
+				- resources.getDimensionPixelSize(R.dimen.color_wheel_thickness)
+				- resources.getDimensionPixelSize(R.dimen.color_pointer_halo_radius);
+		long time = 0;
+		float[] x = new float[SAMPLES];
+		float[] y = new float[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			// Start on the pointer, which is at the top of the wheel.
+			double angle = -Math.PI / 2 + 2 * Math.PI * i / SAMPLES;
+			x[i] = (float) (center + radius * Math.cos(angle));
+			y[i] = (float) (center + radius * Math.sin(angle));
+		}
+		time = drag(mPicker, x, y, time);
+
+		float halo = resources
+				.getDimensionPixelSize(R.dimen.bar_pointer_halo_radius);
+		for (int track = 1; track < mViews.length; track++) {
+			View bar = mViews[track];
+			float length = bar.getWidth() - 2 * halo;
+			for (int i = 0; i < SAMPLES; i++) {
+				x[i] = halo + length * i / (SAMPLES - 1);
+				y[i] = halo;
+			}
+			time = drag(bar, x, y, time);
+		}
+
+		recorder.stop();
+		return recorder.getRecording();
+	}
+
+	/**
+	 * Send a down, a move per sample and an up to a view.
+	 *
+	 * @return The time after the drag.
+	 */
+	private static long drag(View view, float[] x, float[] y, long time) {
+		long downTime = time;
+		dispatch(view, downTime, time, MotionEvent.ACTION_DOWN, x[0], y[0]);
+		for (int i = 0; i < x.length; i++) {
+			time += SAMPLE_INTERVAL;
+			dispatch(view, downTime, time, MotionEvent.ACTION_MOVE, x[i], y[i]);
+		}
+		time += SAMPLE_INTERVAL;
+		dispatch(view, downTime, time, MotionEvent.ACTION_UP,
+				x[x.length - 1], y[y.length - 1]);
+		return time + 100;
+	}
+
+	private static void dispatch(View view, long downTime, long time,
+			int action, float x, float y) {
+		MotionEvent event = MotionEvent.obtain(downTime, time, action, x, y, 0);
+		view.dispatchTouchEvent(event);
+		event.recycle();
+	}
+
+	private static GestureRecording writeAndRead(GestureRecording recording)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		recording.writeTo(out);
+		GestureRecording read = GestureRecording
+				.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(recording.size(), read.size());
+		for (int i = 0; i < read.size(); i++) {
+			assertEquals(recording.getTrack(i), read.getTrack(i));
+			assertEquals(recording.getAction(i), read.getAction(i));
+			assertEquals(recording.getTime(i), read.getTime(i));
+			assertEquals(recording.getX(i), read.getX(i), 1 / 32f);
+			assertEquals(recording.getY(i), read.getY(i), 1 / 32f);
+		}
+		return read;
+	}
+}
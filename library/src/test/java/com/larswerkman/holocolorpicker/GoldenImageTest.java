@@ -0,0 +1,348 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+/**
+ * Renders every view at several sizes and colors through the
+ * {@link Rendering#isReferencePath() reference} and the cached path and
+ * compares both with the golden images in {@code src/test/resources/golden}.
+ *
+ * <p>
+ * The goldens are the reference renderings of this test, rasterized by
+ * Robolectric's native graphics on SDK 33 at the default density. After an
+ * intended change of the looks, record them again by running the tests with
+ * the system property {@code golden.record} set to the golden directory,
+ * e.g. through {@code gradlew test -PrecordGoldens}, and review the new
+ * images.
+ * </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 33)
+public class GoldenImageTest {
+
+	/**
+	 * The largest difference allowed per premultiplied channel. Anti-aliased
+	 * edges of the cached bitmaps and sprites round their coverage a little
+	 * differently than the reference, by up to about 20.
+	 */
+	private static final int TOLERANCE = 24;
+
+	/**
+	 * Sizes of the pickers, lengths of the bars.
+	 */
+	private static final int[] SIZES = new int[] { 160, 300 };
+
+	private static final int[] COLORS = new int[] { 0xFF336699, 0xFFE0A020,
+			0x80FF0080 };
+
+	private static final int[] PALETTE = new int[] { 0xFFF44336, 0xFFFFEB3B,
+			0xFF4CAF50, 0xFF2196F3, 0xFF9C27B0, 0xFF795548 };
+
+	/**
+	 * Creates the view of one golden image.
+	 */
+	private interface ViewFactory {
+		View create(Context context, int color);
+	}
+
+	private final StringBuilder mFailures = new StringBuilder();
+
+	@After
+	public void tearDown() {
+		Rendering.setReferencePath(false);
+	}
+
+	@Test
+	public void wheel() {
+		checkPicker("wheel", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				ColorPicker picker = new ColorPicker(context);
+				picker.setColor(color);
+				return picker;
+			}
+		});
+	}
+
+	@Test
+	public void disc() {
+		checkPicker("disc", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				ColorPicker picker = new ColorPicker(context);
+				picker.setDiscMode(true);
+				picker.setColor(color);
+				return picker;
+			}
+		});
+	}
+
+	@Test
+	public void hueSteps() {
+		checkPicker("steps", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				ColorPicker picker = new ColorPicker(context);
+				picker.setHueSteps(12);
+				picker.setColor(color);
+				return picker;
+			}
+		});
+	}
+
+	@Test
+	public void palette() {
+		checkPicker("palette", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				ColorPicker picker = new ColorPicker(context);
+				picker.setPalette(PALETTE);
+				picker.setColor(color);
+				return picker;
+			}
+		});
+	}
+
+	@Test
+	public void svBar() {
+		checkBar("svbar", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				SVBar bar = new SVBar(context);
+				bar.setColor(color);
+				return bar;
+			}
+		});
+	}
+
+	@Test
+	public void opacityBar() {
+		checkBar("opacitybar", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				OpacityBar bar = new OpacityBar(context);
+				bar.setColor(color);
+				return bar;
+			}
+		});
+	}
+
+	@Test
+	public void saturationBar() {
+		checkBar("saturationbar", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				SaturationBar bar = new SaturationBar(context);
+				bar.setColor(color);
+				return bar;
+			}
+		});
+	}
+
+	@Test
+	public void valueBar() {
+		checkBar("valuebar", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				ValueBar bar = new ValueBar(context);
+				bar.setColor(color);
+				return bar;
+			}
+		});
+	}
+
+	@Test
+	public void gradientEditor() {
+		checkBar("gradient", new ViewFactory() {
+			@Override
+			public View create(Context context, int color) {
+				GradientEditor editor = new GradientEditor(context);
+				editor.setStopColor(0, color);
+				return editor;
+			}
+		});
+	}
+
+	private void checkPicker(String name, ViewFactory factory) {
+		for (int size : SIZES) {
+			int spec = MeasureSpec.makeMeasureSpec(size, MeasureSpec.EXACTLY);
+			check(name, factory, size, spec, spec);
+		}
+		assertNoFailures();
+	}
+
+	private void checkBar(String name, ViewFactory factory) {
+		for (int length : SIZES) {
+			check(name, factory, length,
+					MeasureSpec.makeMeasureSpec(length, MeasureSpec.EXACTLY),
+					MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+		}
+		assertNoFailures();
+	}
+
+	private void check(String name, ViewFactory factory, int size,
+			int widthMeasureSpec, int heightMeasureSpec) {
+		Context context = RuntimeEnvironment.application;
+		for (int color : COLORS) {
+			String golden = name + "_" + size + "_"
+					+ Integer.toHexString(color) + ".png";
+			View view = factory.create(context, color);
+			view.measure(widthMeasureSpec, heightMeasureSpec);
+			view.layout(0, 0, view.getMeasuredWidth(),
+					view.getMeasuredHeight());
+
+			Rendering.setReferencePath(false);
+			Bitmap cached = render(view);
+			Rendering.setReferencePath(true);
+			Bitmap reference = render(view);
+
+			Bitmap expected;
+			File recordDir = getRecordDir();
+			if (recordDir != null) {
+				record(new File(recordDir, golden), reference);
+				expected = reference;
+			} else {
+				expected = load(golden);
+			}
+			if (expected == null) {
+				mFailures.append(golden).append(": missing, record it\n");
+				continue;
+			}
+			compare(golden + " reference", expected, reference);
+			compare(golden + " cached", expected, cached);
+		}
+	}
+
+	private static Bitmap render(View view) {
+		Bitmap bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(),
+				Bitmap.Config.ARGB_8888);
+		view.draw(new Canvas(bitmap));
+		return bitmap;
+	}
+
+	private void compare(String name, Bitmap expected, Bitmap actual) {
+		if (expected.getWidth() != actual.getWidth()
+				|| expected.getHeight() != actual.getHeight()) {
+			mFailures.append(name).append(": ").append(actual.getWidth())
+					.append("x").append(actual.getHeight())
+					.append(" instead of ").append(expected.getWidth())
+					.append("x").append(expected.getHeight()).append("\n");
+			return;
+		}
+
+		ImageDiff diff = ImageDiff.compare(pixels(expected), pixels(actual),
+				TOLERANCE);
+		if (!diff.matches()) {
+			mFailures.append(name).append(": ").append(diff).append("\n");
+		}
+	}
+
+	/**
+	 * Get the premultiplied pixels of a bitmap. The colors of nearly
+	 * transparent pixels are not visible, so they should not count as fully
+	 * as the alpha does.
+	 */
+	private static int[] pixels(Bitmap bitmap) {
+		int width = bitmap.getWidth();
+		int[] pixels = new int[width * bitmap.getHeight()];
+		bitmap.getPixels(pixels, 0, width, 0, 0, width, bitmap.getHeight());
+		for (int i = 0; i < pixels.length; i++) {
+			int a = pixels[i] >>> 24;
+			int r = ((pixels[i] >> 16) & 0xFF) * a / 255;
+			int g = ((pixels[i] >> 8) & 0xFF) * a / 255;
+			int b = (pixels[i] & 0xFF) * a / 255;
+			pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+		}
+		return pixels;
+	}
+
+	private static Bitmap load(String golden) {
+		InputStream in = GoldenImageTest.class
+				.getResourceAsStream("/golden/" + golden);
+		if (in == null) {
+			return null;
+		}
+		try {
+			return BitmapFactory.decodeStream(in);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// Nothing left to read.
+			}
+		}
+	}
+
+	/**
+	 * @return The directory to record the goldens into, {@code null} to
+	 *         compare with the goldens.
+	 */
+	private static File getRecordDir() {
+		String dir = System.getProperty("golden.record");
+		return dir == null || dir.length() == 0 ? null : new File(dir);
+	}
+
+	private static void record(File golden, Bitmap bitmap) {
+		golden.getParentFile().mkdirs();
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(golden);
+			bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+		} catch (IOException e) {
+			throw new AssertionError("Recording " + golden + " failed: " + e);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// The golden is checked when it is loaded.
+				}
+			}
+		}
+	}
+
+	private void assertNoFailures() {
+		if (mFailures.length() > 0) {
+			fail(mFailures.toString());
+		}
+	}
+}
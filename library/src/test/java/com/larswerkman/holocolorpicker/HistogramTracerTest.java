@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class HistogramTracerTest {
+
+	@After
+	public void tearDown() {
+		Tracing.setTracer(null);
+	}
+
+	@Test
+	public void recordsNestedSections() {
+		HistogramTracer tracer = new HistogramTracer();
+		for (int i = 0; i < 3; i++) {
+			tracer.beginSection("outer");
+			tracer.beginSection("inner");
+			tracer.endSection("inner");
+			tracer.endSection("outer");
+		}
+
+		assertEquals(3, tracer.getHistogram("outer").getCount());
+		assertEquals(3, tracer.getHistogram("inner").getCount());
+		assertEquals(0, tracer.getHistogram("missing").getCount());
+		assertEquals(2, tracer.getSections().size());
+		assertTrue(tracer.getHistogram("outer").getTotalNanos() >= tracer
+				.getHistogram("inner").getTotalNanos());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsEndingTheWrongSection() {
+		HistogramTracer tracer = new HistogramTracer();
+		tracer.beginSection("outer");
+		tracer.beginSection("inner");
+		tracer.endSection("outer");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsEndingWithoutSection() {
+		new HistogramTracer().endSection("section");
+	}
+
+	@Test
+	public void percentilesAreUpperBounds() {
+		HistogramTracer.Histogram histogram = new HistogramTracer.Histogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(1000, histogram.getMinNanos());
+		assertEquals(100000, histogram.getMaxNanos());
+		assertEquals(50500, histogram.getMeanNanos());
+		long median = histogram.getPercentileNanos(50);
+		assertTrue(median >= 50000 && median < 2 * 50000);
+		assertEquals(100000, histogram.getPercentileNanos(100));
+	}
+
+	@Test
+	public void disabledTracingBeginsNothing() {
+		assertNull(Tracing.begin("section"));
+		Tracing.end(null, "section");
+	}
+
+	@Test
+	public void sectionsEndOnTheTracerThatBeganThem() {
+		HistogramTracer first = new HistogramTracer();
+		Tracing.setTracer(first);
+		Tracer tracer = Tracing.begin("section");
+		Tracing.setTracer(new HistogramTracer());
+		Tracing.end(tracer, "section");
+
+		assertSame(first, tracer);
+		assertEquals(1, first.getHistogram("section").getCount());
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TouchHysteresisTest {
+
+	/**
+	 * Jitter of a held finger, in pixels in each direction.
+	 */
+	private static final float JITTER = 1f;
+
+	private final Random mRandom = new Random(42);
+
+	@Test
+	public void absorbsTheJitterOfAHeldFinger() {
+		TouchHysteresis hysteresis = new TouchHysteresis();
+		hysteresis.setThreshold(3);
+		hysteresis.set(100, 100);
+
+		int accepted = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (hysteresis.accept(jitter(100), jitter(100))) {
+				accepted++;
+			}
+		}
+		assertEquals(0, accepted);
+	}
+
+	@Test
+	public void letsThroughAJitteredDragAtTheThreshold() {
+		TouchHysteresis hysteresis = new TouchHysteresis();
+		hysteresis.setThreshold(3);
+		hysteresis.set(0, 100);
+
+		int accepted = 0;
+		float lastX = 0;
+		for (int i = 1; i <= 1000; i++) {
+			float x = jitter(i);
+			if (hysteresis.accept(x, jitter(100))) {
+				accepted++;
+				lastX = x;
+			}
+		}
+		// A move of 1 pixel per sample crosses 3 pixels every 2 to 5 samples.
+		assertTrue("accepted " + accepted, accepted >= 200 && accepted <= 500);
+		assertTrue(lastX > 1000 - 3 - 2 * JITTER);
+	}
+
+	@Test
+	public void zeroThresholdOnlyAbsorbsRepeatedPositions() {
+		TouchHysteresis hysteresis = new TouchHysteresis();
+		hysteresis.set(10, 10);
+
+		assertFalse(hysteresis.accept(10, 10));
+		assertTrue(hysteresis.accept(10.01f, 10));
+		assertFalse(hysteresis.accept(10.01f, 10));
+	}
+
+	@Test
+	public void acceptsAlongABar() {
+		TouchHysteresis hysteresis = new TouchHysteresis();
+		hysteresis.setThreshold(2);
+		hysteresis.set(50, 0);
+
+		assertFalse(hysteresis.accept(52));
+		assertTrue(hysteresis.accept(52.5f));
+		assertFalse(hysteresis.accept(51));
+		assertTrue(hysteresis.accept(50));
+	}
+
+	@Test
+	public void acceptsTheFirstMoveAfterReset() {
+		TouchHysteresis hysteresis = new TouchHysteresis();
+		hysteresis.setThreshold(100);
+		hysteresis.set(10, 10);
+		hysteresis.reset();
+
+		assertTrue(hysteresis.accept(10, 10));
+		assertFalse(hysteresis.accept(20, 20));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeThresholds() {
+		new TouchHysteresis().setThreshold(-1);
+	}
+
+	private float jitter(float position) {
+		return position + (mRandom.nextFloat() * 2 - 1) * JITTER;
+	}
+}
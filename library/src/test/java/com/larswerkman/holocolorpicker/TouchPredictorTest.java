@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TouchPredictorTest {
+
+	@Test
+	public void extrapolatesAConstantVelocity() {
+		TouchPredictor predictor = new TouchPredictor();
+		predictor.setHorizon(16);
+		for (int i = 0; i <= 10; i++) {
+			predictor.add(1000 + i * 8, 100 + i * 4, 200 - i * 2);
+		}
+
+		float[] out = new float[2];
+		assertTrue(predictor.predict(out));
+		assertEquals(140 + 8, out[0], 0.001f);
+		assertEquals(180 - 4, out[1], 0.001f);
+	}
+
+	@Test
+	public void onlyUsesTheSamplesOfTheWindow() {
+		TouchPredictor predictor = new TouchPredictor();
+		predictor.setHorizon(10);
+		// A move elsewhere long ago, then one of 1 pixel per ms.
+		predictor.add(0, 1000, 0);
+		predictor.add(5, 2000, 0);
+		for (int t = 100; t <= 100 + TouchPredictor.WINDOW + 10; t += 10) {
+			predictor.add(t, t, 0);
+		}
+
+		float[] out = new float[2];
+		assertTrue(predictor.predict(out));
+		assertEquals(160, out[0], 0.001f);
+	}
+
+	@Test
+	public void needsTwoSamplesAtDifferentTimes() {
+		TouchPredictor predictor = new TouchPredictor();
+		predictor.setHorizon(16);
+		float[] out = { -1, -1 };
+
+		predictor.add(0, 10, 10);
+		assertFalse(predictor.predict(out));
+		predictor.add(0, 20, 20);
+		assertFalse(predictor.predict(out));
+		// Samples older than the window are not used either.
+		predictor.reset();
+		predictor.add(0, 10, 10);
+		predictor.add(TouchPredictor.WINDOW + 1, 20, 20);
+		assertFalse(predictor.predict(out));
+		assertArrayEquals(new float[] { -1, -1 }, out, 0f);
+	}
+
+	@Test
+	public void resetForgetsThePreviousDrag() {
+		TouchPredictor predictor = new TouchPredictor();
+		predictor.setHorizon(8);
+		predictor.add(0, 0, 0);
+		predictor.add(8, 80, 0);
+		predictor.reset();
+		predictor.add(100, 0, 0);
+		predictor.add(108, 0, 8);
+
+		float[] out = new float[2];
+		assertTrue(predictor.predict(out));
+		assertEquals(0, out[0], 0f);
+		assertEquals(16, out[1], 0.001f);
+	}
+
+	@Test
+	public void aZeroHorizonDisablesThePrediction() {
+		TouchPredictor predictor = new TouchPredictor();
+		assertFalse(predictor.isEnabled());
+		predictor.add(0, 0, 0);
+		predictor.add(8, 8, 8);
+
+		assertFalse(predictor.predict(new float[2]));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeHorizons() {
+		new TouchPredictor().setHorizon(-1);
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012 Lars Werkman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.larswerkman.holocolorpicker;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+/**
+ * Checks the picker and the bars create their paints on the first draw.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ViewConstructionTest {
+
+	@Test
+	public void paintsAreCreatedOnTheFirstDraw() {
+		Context context = RuntimeEnvironment.application;
+
+		ColorPicker picker = new ColorPicker(context);
+		assertFalse(picker.hasPaints());
+		draw(picker);
+		assertTrue(picker.hasPaints());
+
+		SVBar svBar = new SVBar(context);
+		assertFalse(svBar.hasPaints());
+		draw(svBar);
+		assertTrue(svBar.hasPaints());
+
+		OpacityBar opacityBar = new OpacityBar(context);
+		assertFalse(opacityBar.hasPaints());
+		draw(opacityBar);
+		assertTrue(opacityBar.hasPaints());
+
+		SaturationBar saturationBar = new SaturationBar(context);
+		assertFalse(saturationBar.hasPaints());
+		draw(saturationBar);
+		assertTrue(saturationBar.hasPaints());
+
+		ValueBar valueBar = new ValueBar(context);
+		assertFalse(valueBar.hasPaints());
+		draw(valueBar);
+		assertTrue(valueBar.hasPaints());
+	}
+
+	private static void draw(View view) {
+		int unspecified = MeasureSpec.makeMeasureSpec(0,
+				MeasureSpec.UNSPECIFIED);
+		view.measure(unspecified, unspecified);
+		int width = view.getMeasuredWidth();
+		int height = view.getMeasuredHeight();
+		view.layout(0, 0, width, height);
+		view.draw(new Canvas(Bitmap.createBitmap(width, height,
+				Bitmap.Config.ARGB_8888)));
+	}
+}